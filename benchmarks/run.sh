@@ -0,0 +1,21 @@
+#!/bin/sh
+# Compiles the core and the benchmarks into benchmarks/build and runs them.
+# Arguments are passed through, e.g. ./benchmarks/run.sh --filter movegen
+# Use "./benchmarks/run.sh smp [--threads N]" for the SMP scaling report.
+set -e
+root=$(cd "$(dirname "$0")/.." && pwd)
+out="$root/benchmarks/build"
+rm -rf "$out"
+mkdir -p "$out"
+javac -d "$out" $(find "$root/src/main/java" "$root/benchmarks/src/main/java" -name '*.java')
+# The Vector API kernels are optional; use them when this JDK can build them.
+vector=
+if javac --add-modules jdk.incubator.vector -cp "$out" -d "$out" \
+        $(find "$root/src/vector/java" -name '*.java') 2>/dev/null; then
+    vector="--add-modules jdk.incubator.vector"
+fi
+if [ "$1" = smp ]; then
+    shift
+    exec java $vector -cp "$out" checkers.bench.SmpScaling "$@"
+fi
+exec java $vector -cp "$out" checkers.bench.Benchmarks "$@"
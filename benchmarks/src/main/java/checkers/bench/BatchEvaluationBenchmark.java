@@ -0,0 +1,49 @@
+package checkers.bench;
+
+import checkers.core.Board;
+import checkers.eval.LeafBatch;
+import checkers.eval.PositionalEvaluator;
+
+/**
+ * One operation evaluates one sample position as part of a full
+ * {@link LeafBatch}, to compare with {@link EvaluationBenchmark}. The
+ * vector kernel is used when the Vector API is compiled in and enabled.
+ */
+final class BatchEvaluationBenchmark implements Benchmark {
+
+    private final Board[] positions = Positions.sample();
+    private final PositionalEvaluator evaluator = new PositionalEvaluator();
+    private final LeafBatch batch = new LeafBatch();
+
+    BatchEvaluationBenchmark() {
+        // Vector API code runs orders of magnitude slower until C2 compiles
+        // it, which would stop calibration at a handful of operations.
+        for (int i = 0; i < 20_000; i++) {
+            run(LeafBatch.CAPACITY);
+        }
+    }
+
+    @Override
+    public String name() {
+        return "eval-batch-" + evaluator.kernel();
+    }
+
+    @Override
+    public long run(int operations) {
+        long sink = 0;
+        int p = 0;
+        for (int done = 0; done < operations; done += batch.size()) {
+            batch.clear();
+            int size = Math.min(LeafBatch.CAPACITY, operations - done);
+            for (int i = 0; i < size; i++) {
+                batch.add(positions[p]);
+                if (++p == positions.length) {
+                    p = 0;
+                }
+            }
+            evaluator.evaluate(batch);
+            sink += batch.score(size - 1);
+        }
+        return sink;
+    }
+}
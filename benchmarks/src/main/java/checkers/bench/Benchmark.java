@@ -0,0 +1,15 @@
+package checkers.bench;
+
+/**
+ * A single measured hot path.
+ * <p>
+ * Implementations do their setup in the constructor and perform
+ * {@code operations} units of work per call to {@link #run(int)}. The
+ * returned value must depend on the work done so the JIT cannot discard it.
+ */
+public interface Benchmark {
+
+    String name();
+
+    long run(int operations);
+}
@@ -0,0 +1,139 @@
+package checkers.bench;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Runs the core hot-path benchmarks and reports time and allocation per
+ * operation.
+ * <p>
+ * Each benchmark is calibrated so one iteration lasts roughly
+ * {@code --time} milliseconds, warmed up, then measured. Allocation is read
+ * from the per-thread allocated-bytes counter of HotSpot's
+ * {@code ThreadMXBean}, the same source the JMH gc profiler uses.
+ * <p>
+ * Usage: {@code java checkers.bench.Benchmarks [--filter REGEX]
+ * [--warmup N] [--iterations N] [--time MS]}, or {@code benchmarks/run.sh}
+ * to compile and run in one step.
+ */
+public final class Benchmarks {
+
+    private static final List<Supplier<Benchmark>> ALL = List.of(
+            MoveGenerationBenchmark::new,
+            MakeUnmakeBenchmark::new,
+            HashingBenchmark::new,
+            EvaluationBenchmark::new,
+            BatchEvaluationBenchmark::new,
+            PerftBenchmark::new,
+            SearchBenchmark::new);
+
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private int warmupIterations = 5;
+    private int measuredIterations = 5;
+    private long iterationNanos = 500_000_000L;
+
+    /** Keeps benchmark results reachable so the JIT cannot drop the work. */
+    private long blackhole;
+
+    public static void main(String[] args) {
+        Benchmarks runner = new Benchmarks();
+        Pattern filter = Pattern.compile(".*");
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : null;
+            switch (args[i]) {
+                case "--filter":
+                    filter = Pattern.compile(required(args[i], value));
+                    i++;
+                    break;
+                case "--warmup":
+                    runner.warmupIterations = Integer.parseInt(required(args[i], value));
+                    i++;
+                    break;
+                case "--iterations":
+                    runner.measuredIterations = Integer.parseInt(required(args[i], value));
+                    i++;
+                    break;
+                case "--time":
+                    runner.iterationNanos = Long.parseLong(required(args[i], value)) * 1_000_000L;
+                    i++;
+                    break;
+                default:
+                    System.err.println("Unknown argument: " + args[i]);
+                    System.err.println("Usage: Benchmarks [--filter REGEX] [--warmup N]"
+                            + " [--iterations N] [--time MS]");
+                    System.exit(2);
+            }
+        }
+        if (runner.threads.isThreadAllocatedMemorySupported()) {
+            runner.threads.setThreadAllocatedMemoryEnabled(true);
+        }
+        System.out.printf("%-20s %14s %12s %14s%n", "benchmark", "ns/op", "+/-", "bytes/op");
+        for (Supplier<Benchmark> supplier : ALL) {
+            Benchmark benchmark = supplier.get();
+            if (filter.matcher(benchmark.name()).find()) {
+                runner.measure(benchmark);
+            }
+        }
+        if (runner.blackhole == 42) {
+            System.out.println();
+        }
+    }
+
+    private static String required(String option, String value) {
+        if (value == null) {
+            throw new IllegalArgumentException(option + " needs a value");
+        }
+        return value;
+    }
+
+    void measure(Benchmark benchmark) {
+        int operations = calibrate(benchmark);
+        for (int i = 0; i < warmupIterations; i++) {
+            blackhole += benchmark.run(operations);
+        }
+        double[] nsPerOp = new double[measuredIterations];
+        long allocated = 0;
+        long totalOperations = 0;
+        long threadId = Thread.currentThread().getId();
+        for (int i = 0; i < measuredIterations; i++) {
+            long bytesBefore = threads.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            blackhole += benchmark.run(operations);
+            long elapsed = System.nanoTime() - start;
+            allocated += threads.getThreadAllocatedBytes(threadId) - bytesBefore;
+            totalOperations += operations;
+            nsPerOp[i] = (double) elapsed / operations;
+        }
+        double mean = 0;
+        for (double v : nsPerOp) {
+            mean += v;
+        }
+        mean /= nsPerOp.length;
+        double variance = 0;
+        for (double v : nsPerOp) {
+            variance += (v - mean) * (v - mean);
+        }
+        double error = nsPerOp.length > 1 ? Math.sqrt(variance / (nsPerOp.length - 1)) : 0;
+        System.out.printf("%-20s %14.2f %12.2f %14.3f%n", benchmark.name(), mean, error,
+                (double) allocated / totalOperations);
+    }
+
+    /** Doubles the batch size until one batch takes at least a tenth of an iteration. */
+    private int calibrate(Benchmark benchmark) {
+        int operations = 1;
+        while (true) {
+            long start = System.nanoTime();
+            blackhole += benchmark.run(operations);
+            long elapsed = System.nanoTime() - start;
+            if (elapsed >= iterationNanos / 10 || operations >= Integer.MAX_VALUE / 20) {
+                long scaled = (long) ((double) operations * iterationNanos / Math.max(elapsed, 1));
+                return (int) Math.max(1, Math.min(scaled, Integer.MAX_VALUE));
+            }
+            operations *= 2;
+        }
+    }
+}
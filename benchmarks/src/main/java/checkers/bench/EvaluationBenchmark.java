@@ -0,0 +1,34 @@
+package checkers.bench;
+
+import checkers.core.Board;
+import checkers.eval.Evaluator;
+import checkers.eval.PositionalEvaluator;
+
+/**
+ * One operation evaluates one sample position with the
+ * {@link PositionalEvaluator}, whose material and placement terms the board
+ * keeps incrementally.
+ */
+final class EvaluationBenchmark implements Benchmark {
+
+    private final Board[] positions = Positions.sample();
+    private final Evaluator evaluator = new PositionalEvaluator();
+
+    @Override
+    public String name() {
+        return "eval-positional";
+    }
+
+    @Override
+    public long run(int operations) {
+        long sink = 0;
+        int p = 0;
+        for (int i = 0; i < operations; i++) {
+            sink += evaluator.evaluate(positions[p]);
+            if (++p == positions.length) {
+                p = 0;
+            }
+        }
+        return sink;
+    }
+}
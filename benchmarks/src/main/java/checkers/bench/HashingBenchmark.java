@@ -0,0 +1,31 @@
+package checkers.bench;
+
+import checkers.core.Board;
+import checkers.core.Zobrist;
+
+/**
+ * One operation computes the Zobrist key of one sample position from
+ * scratch. The incremental update is covered by {@link MakeUnmakeBenchmark}.
+ */
+final class HashingBenchmark implements Benchmark {
+
+    private final Board[] positions = Positions.sample();
+
+    @Override
+    public String name() {
+        return "zobrist-full";
+    }
+
+    @Override
+    public long run(int operations) {
+        long sink = 0;
+        int p = 0;
+        for (int i = 0; i < operations; i++) {
+            sink ^= Zobrist.compute(positions[p]);
+            if (++p == positions.length) {
+                p = 0;
+            }
+        }
+        return sink;
+    }
+}
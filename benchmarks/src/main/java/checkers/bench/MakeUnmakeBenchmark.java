@@ -0,0 +1,45 @@
+package checkers.bench;
+
+import checkers.core.Board;
+import checkers.core.MoveGenerator;
+
+import java.util.Arrays;
+
+/** One operation plays and takes back one legal move of a sample position. */
+final class MakeUnmakeBenchmark implements Benchmark {
+
+    private final Board[] positions = Positions.sample();
+    private final long[][] moves = new long[positions.length][];
+
+    MakeUnmakeBenchmark() {
+        long[] buffer = new long[MoveGenerator.MAX_MOVES];
+        for (int i = 0; i < positions.length; i++) {
+            int n = MoveGenerator.generate(positions[i], buffer, 0);
+            moves[i] = Arrays.copyOf(buffer, n);
+        }
+    }
+
+    @Override
+    public String name() {
+        return "make-unmake";
+    }
+
+    @Override
+    public long run(int operations) {
+        long sink = 0;
+        int p = 0;
+        int m = 0;
+        for (int i = 0; i < operations; i++) {
+            Board board = positions[p];
+            long[] list = moves[p];
+            board.make(list[m % list.length]);
+            sink += board.key();
+            board.unmake();
+            if (++p == positions.length) {
+                p = 0;
+                m++;
+            }
+        }
+        return sink;
+    }
+}
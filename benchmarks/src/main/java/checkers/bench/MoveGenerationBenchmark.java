@@ -0,0 +1,31 @@
+package checkers.bench;
+
+import checkers.core.Board;
+import checkers.core.MoveGenerator;
+
+/** One operation generates all legal moves of one sample position. */
+final class MoveGenerationBenchmark implements Benchmark {
+
+    private final Board[] positions = Positions.sample();
+    private final long[] moves = new long[MoveGenerator.MAX_MOVES];
+
+    @Override
+    public String name() {
+        return "movegen";
+    }
+
+    @Override
+    public long run(int operations) {
+        long sink = 0;
+        int p = 0;
+        for (int i = 0; i < operations; i++) {
+            Board board = positions[p];
+            sink += MoveGenerator.generate(board, moves, 0);
+            sink ^= moves[0];
+            if (++p == positions.length) {
+                p = 0;
+            }
+        }
+        return sink;
+    }
+}
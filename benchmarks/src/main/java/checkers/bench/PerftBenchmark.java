@@ -0,0 +1,38 @@
+package checkers.bench;
+
+import checkers.core.Board;
+import checkers.perft.Perft;
+
+/** One operation is a depth-3 perft of one sample position. */
+final class PerftBenchmark implements Benchmark {
+
+    private static final int DEPTH = 3;
+
+    private final Perft[] perfts;
+
+    PerftBenchmark() {
+        Board[] positions = Positions.sample();
+        perfts = new Perft[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            perfts[i] = new Perft(positions[i]);
+        }
+    }
+
+    @Override
+    public String name() {
+        return "perft3";
+    }
+
+    @Override
+    public long run(int operations) {
+        long sink = 0;
+        int p = 0;
+        for (int i = 0; i < operations; i++) {
+            sink += perfts[p].perft(DEPTH);
+            if (++p == perfts.length) {
+                p = 0;
+            }
+        }
+        return sink;
+    }
+}
@@ -0,0 +1,39 @@
+package checkers.bench;
+
+import checkers.core.Board;
+import checkers.core.MoveGenerator;
+
+import java.util.SplittableRandom;
+
+/** Deterministic set of middlegame positions reached by seeded random play. */
+final class Positions {
+
+    static final int COUNT = 256;
+
+    private Positions() {
+    }
+
+    static Board[] sample() {
+        SplittableRandom random = new SplittableRandom(20240601L);
+        long[] moves = new long[MoveGenerator.MAX_MOVES];
+        Board[] positions = new Board[COUNT];
+        int found = 0;
+        while (found < COUNT) {
+            Board board = Board.initial();
+            int plies = 8 + random.nextInt(40);
+            boolean alive = true;
+            for (int ply = 0; ply < plies && alive; ply++) {
+                int n = MoveGenerator.generate(board, moves, 0);
+                if (n == 0) {
+                    alive = false;
+                } else {
+                    board.make(moves[random.nextInt(n)]);
+                }
+            }
+            if (alive && MoveGenerator.hasMove(board)) {
+                positions[found++] = board.copy();
+            }
+        }
+        return positions;
+    }
+}
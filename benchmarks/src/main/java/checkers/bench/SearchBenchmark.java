@@ -0,0 +1,34 @@
+package checkers.bench;
+
+import checkers.core.Board;
+import checkers.eval.MaterialEvaluator;
+import checkers.search.Search;
+import checkers.search.SearchLimits;
+
+/** One operation is a fixed-depth search of one sample position. */
+final class SearchBenchmark implements Benchmark {
+
+    private static final int DEPTH = 6;
+
+    private final Board[] positions = Positions.sample();
+    private final Search search = new Search(new MaterialEvaluator());
+    private final SearchLimits limits = SearchLimits.depth(DEPTH);
+
+    @Override
+    public String name() {
+        return "search-depth" + DEPTH;
+    }
+
+    @Override
+    public long run(int operations) {
+        long sink = 0;
+        int p = 0;
+        for (int i = 0; i < operations; i++) {
+            sink += search.search(positions[p], limits).nodes();
+            if (++p == positions.length) {
+                p = 0;
+            }
+        }
+        return sink;
+    }
+}
@@ -0,0 +1,76 @@
+package checkers.bench;
+
+import checkers.core.Board;
+import checkers.eval.MaterialEvaluator;
+import checkers.search.ParallelSearch;
+import checkers.search.SearchLimits;
+import checkers.search.SearchResult;
+import checkers.search.TranspositionTable;
+
+/**
+ * Measures how Lazy SMP search speed scales with the thread count.
+ * <p>
+ * For each thread count, searches a fixed set of sample positions for a
+ * fixed time each and reports total nodes per second and the speed-up over
+ * one thread. Usage: {@code java checkers.bench.SmpScaling [--threads N]
+ * [--millis MS] [--positions N] [--hash MB]}; thread counts double from one
+ * up to {@code --threads}, which defaults to the number of processors.
+ */
+public final class SmpScaling {
+
+    private SmpScaling() {
+    }
+
+    public static void main(String[] args) {
+        int maxThreads = Runtime.getRuntime().availableProcessors();
+        long millis = 1000;
+        int positionCount = 8;
+        int hashMb = 256;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--threads":
+                    maxThreads = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--millis":
+                    millis = Long.parseLong(args[i + 1]);
+                    break;
+                case "--positions":
+                    positionCount = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--hash":
+                    hashMb = Integer.parseInt(args[i + 1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown argument: " + args[i]);
+            }
+        }
+        Board[] sample = Positions.sample();
+        positionCount = Math.min(positionCount, sample.length);
+        SearchLimits limits = SearchLimits.millis(millis);
+
+        System.out.printf("%8s %14s %10s %10s%n", "threads", "nodes/s", "speed-up", "avg depth");
+        double baseline = 0;
+        for (int threads = 1; threads <= maxThreads; threads = threads < maxThreads
+                ? Math.min(threads * 2, maxThreads) : threads + 1) {
+            TranspositionTable table = new TranspositionTable(hashMb);
+            long nodes = 0;
+            long nanos = 0;
+            int depths = 0;
+            try (ParallelSearch search = new ParallelSearch(threads, MaterialEvaluator::new, table)) {
+                for (int p = 0; p < positionCount; p++) {
+                    table.clear();
+                    SearchResult result = search.search(sample[p * (sample.length / positionCount)], limits);
+                    nodes += result.nodes();
+                    nanos += result.elapsedNanos();
+                    depths += result.depth();
+                }
+            }
+            double nps = nodes * 1e9 / Math.max(nanos, 1);
+            if (threads == 1) {
+                baseline = nps;
+            }
+            System.out.printf("%8d %,14.0f %10.2f %10.1f%n", threads, nps, nps / baseline,
+                    (double) depths / positionCount);
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package checkers.analysis;
+
+import checkers.core.Board;
+import checkers.core.Move;
+import checkers.eval.Evaluator;
+import checkers.eval.NnueEvaluator;
+import checkers.eval.NnueNetwork;
+import checkers.eval.PositionalEvaluator;
+import checkers.search.Search;
+import checkers.search.SearchLimits;
+import checkers.search.SearchResult;
+import checkers.search.TranspositionTable;
+import checkers.tablebase.Tablebase;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Analyses a stream of positions on a pool of independent searchers and
+ * writes one result line per position, in input order.
+ * <p>
+ * The reading thread hands each position to two bounded queues: the work
+ * queue the searchers take from, and the output queue the writer drains in
+ * order, waiting on each position until its searcher is done. Both hold at
+ * most {@code window} positions, so a slow writer or slow searchers stall
+ * the reader instead of buffering the input. Searchers share nothing but
+ * the queues and an optional read-only tablebase; each owns its
+ * transposition table and clears it and the move ordering history per
+ * position, so results do not depend on which thread searched what.
+ * <p>
+ * Input is one FEN per line (blank lines and lines starting with '#' are
+ * skipped), or with {@code --binary} 13-byte records: black, white and
+ * kings bitboards as big-endian ints and the side to move as a byte.
+ * Output lines are tab-separated: FEN, best move, score, depth, nodes and
+ * principal variation, with captures written as their full path, or FEN
+ * and {@code error: ...} for bad input.
+ * <p>
+ * Usage: {@code java checkers.analysis.BatchAnalyzer [--threads N]
+ * [--depth N | --nodes N] [--hash MB] [--tablebase FILE] [--nnue FILE]
+ * [--binary] INPUT [OUTPUT]}. With {@code --nnue} the searchers evaluate
+ * with that network instead of the {@link PositionalEvaluator}.
+ */
+public final class BatchAnalyzer {
+
+    public static final int DEFAULT_DEPTH = 10;
+    public static final int DEFAULT_HASH_MB = 16;
+
+    /** Marks the end of the input on both queues. */
+    private static final Job END = new Job(null, null);
+
+    private final int threads;
+    private final int window;
+    private final SearchLimits limits;
+    private final int hashMegabytes;
+    private final Supplier<? extends Evaluator> evaluators;
+    private Tablebase tablebase;
+
+    public BatchAnalyzer(int threads, SearchLimits limits, int hashMegabytes,
+                         Supplier<? extends Evaluator> evaluators) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Need at least one thread: " + threads);
+        }
+        this.threads = threads;
+        this.window = threads * 4;
+        this.limits = limits;
+        this.hashMegabytes = hashMegabytes;
+        this.evaluators = evaluators;
+    }
+
+    public void setTablebase(Tablebase tablebase) {
+        this.tablebase = tablebase;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        SearchLimits limits = SearchLimits.depth(DEFAULT_DEPTH);
+        int hash = DEFAULT_HASH_MB;
+        String tablebase = null;
+        String nnue = null;
+        boolean binary = false;
+        String input = null;
+        String output = null;
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--threads") && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else if (arg.equals("--depth") && i + 1 < args.length) {
+                limits = SearchLimits.depth(Integer.parseInt(args[++i]));
+            } else if (arg.equals("--nodes") && i + 1 < args.length) {
+                limits = SearchLimits.nodes(Long.parseLong(args[++i]));
+            } else if (arg.equals("--hash") && i + 1 < args.length) {
+                hash = Integer.parseInt(args[++i]);
+            } else if (arg.equals("--tablebase") && i + 1 < args.length) {
+                tablebase = args[++i];
+            } else if (arg.equals("--nnue") && i + 1 < args.length) {
+                nnue = args[++i];
+            } else if (arg.equals("--binary")) {
+                binary = true;
+            } else if (input == null && !arg.startsWith("--")) {
+                input = arg;
+            } else if (output == null && !arg.startsWith("--")) {
+                output = arg;
+            } else {
+                usage();
+            }
+        }
+        if (input == null) {
+            usage();
+        }
+        Supplier<? extends Evaluator> evaluators = PositionalEvaluator::new;
+        if (nnue != null) {
+            NnueNetwork network = NnueNetwork.load(Paths.get(nnue));
+            evaluators = () -> new NnueEvaluator(network);
+        }
+        BatchAnalyzer analyzer = new BatchAnalyzer(threads, limits, hash, evaluators);
+        if (tablebase != null) {
+            analyzer.setTablebase(Tablebase.load(Paths.get(tablebase)));
+        }
+        long start = System.nanoTime();
+        long positions;
+        try (InputStream in = input.equals("-") ? System.in : Files.newInputStream(Paths.get(input));
+             Writer out = output == null || output.equals("-")
+                     ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))
+                     : Files.newBufferedWriter(Paths.get(output))) {
+            positions = binary ? analyzer.analyzeBinary(in, out) : analyzer.analyzeText(in, out);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.printf("%d positions in %.1f s, %.1f positions/s on %d threads%n",
+                positions, seconds, positions / seconds, threads);
+    }
+
+    private static void usage() {
+        System.err.println("Usage: BatchAnalyzer [--threads N] [--depth N | --nodes N] [--hash MB]"
+                + " [--tablebase FILE] [--nnue FILE] [--binary] INPUT [OUTPUT]");
+        System.exit(2);
+    }
+
+    /** Analyses one FEN per line; returns the number of positions. */
+    public long analyzeText(InputStream in, Writer out) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        return run(() -> {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    return line;
+                }
+            }
+            return null;
+        }, out);
+    }
+
+    /** Analyses 13-byte binary records; returns the number of positions. */
+    public long analyzeBinary(InputStream in, Writer out) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in, 1 << 16));
+        return run(() -> {
+            int black;
+            try {
+                black = data.readInt();
+            } catch (EOFException e) {
+                return null;
+            }
+            int white = data.readInt();
+            int kings = data.readInt();
+            int side = data.readUnsignedByte();
+            try {
+                return new Board(black, white, kings, side).toFen();
+            } catch (IllegalArgumentException e) {
+                return "invalid " + Integer.toHexString(black) + " " + Integer.toHexString(white)
+                        + " " + Integer.toHexString(kings) + " " + side;
+            }
+        }, out);
+    }
+
+    private interface Source {
+        /** The next position as FEN text, or null at the end. */
+        String next() throws IOException;
+    }
+
+    private long run(Source source, Writer out) throws IOException {
+        BlockingQueue<Job> work = new ArrayBlockingQueue<>(window);
+        BlockingQueue<Job> ordered = new ArrayBlockingQueue<>(window);
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread(() -> work(work), "analysis-" + i);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+        IOException[] writeError = new IOException[1];
+        Thread writer = new Thread(() -> {
+            try {
+                drain(ordered, out);
+            } catch (IOException e) {
+                writeError[0] = e;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "analysis-writer");
+        writer.setDaemon(true);
+        writer.start();
+        long count = 0;
+        try {
+            for (String fen; (fen = source.next()) != null; count++) {
+                Job job = new Job(fen, new CountDownLatch(1));
+                if (!offer(ordered, job, writer)) {
+                    break;
+                }
+                work.put(job);
+            }
+            for (int i = 0; i < threads; i++) {
+                work.put(END);
+            }
+            offer(ordered, END, writer);
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Analysis interrupted");
+        } finally {
+            for (Thread worker : workers) {
+                worker.interrupt();
+            }
+            writer.interrupt();
+        }
+        if (writeError[0] != null) {
+            throw writeError[0];
+        }
+        out.flush();
+        return count;
+    }
+
+    /** Queues {@code job} for the writer unless the writer has died; waits while the queue is full. */
+    private static boolean offer(BlockingQueue<Job> ordered, Job job, Thread writer) throws InterruptedException {
+        while (writer.isAlive()) {
+            if (ordered.offer(job, 100, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void work(BlockingQueue<Job> work) {
+        TranspositionTable table = new TranspositionTable(hashMegabytes);
+        Search search = new Search(evaluators.get(), table);
+        search.setTablebase(tablebase);
+        try {
+            for (Job job; (job = work.take()) != END; ) {
+                try {
+                    table.clear();
+                    search.clearHistory();
+                    job.output = format(job.fen, search.search(Board.fromFen(job.fen), limits));
+                } catch (RuntimeException e) {
+                    job.output = job.fen + "\terror: " + e.getMessage();
+                } catch (Error e) {
+                    // A stack overflow or out of memory in one search fails
+                    // that position only; the writer is waiting for its line.
+                    job.output = job.fen + "\terror: " + e;
+                } finally {
+                    job.done.countDown();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void drain(BlockingQueue<Job> ordered, Writer out) throws IOException, InterruptedException {
+        for (Job job; (job = ordered.take()) != END; ) {
+            job.done.await();
+            out.write(job.output);
+            out.write('\n');
+        }
+        out.flush();
+    }
+
+    private static String format(String fen, SearchResult result) {
+        StringBuilder line = new StringBuilder(fen)
+                .append('\t').append(Move.toPathString(result.bestMove()))
+                .append('\t').append(result.score())
+                .append('\t').append(result.depth())
+                .append('\t').append(result.nodes())
+                .append('\t');
+        long[] pv = result.pv();
+        for (int i = 0; i < pv.length; i++) {
+            line.append(i == 0 ? "" : " ").append(Move.toPathString(pv[i]));
+        }
+        return line.toString();
+    }
+
+    private static final class Job {
+        final String fen;
+        final CountDownLatch done;
+        /** Written by the searcher before {@code done} opens. */
+        String output;
+
+        Job(String fen, CountDownLatch done) {
+            this.fen = fen;
+            this.done = done;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package checkers.archive;
+
+import checkers.core.Board;
+import checkers.core.MoveGenerator;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * A game read from a {@link GameArchiveReader}. Moves stay in their stored
+ * form, one legal-move index per ply, until {@link #moves()} replays them;
+ * scans that only need tags or results never run the move generator.
+ */
+public final class ArchivedGame {
+
+    private final long number;
+    private final Map<String, String> tags;
+    private final String result;
+    private final int black;
+    private final int white;
+    private final int kings;
+    private final int side;
+    private final byte[] moveIndices;
+
+    ArchivedGame(long number, Map<String, String> tags, String result,
+                 int black, int white, int kings, int side, byte[] moveIndices) {
+        this.number = number;
+        this.tags = Collections.unmodifiableMap(tags);
+        this.result = result;
+        this.black = black;
+        this.white = white;
+        this.kings = kings;
+        this.side = side;
+        this.moveIndices = moveIndices;
+    }
+
+    /** Position of the game in the archive, from zero. */
+    public long number() {
+        return number;
+    }
+
+    public Map<String, String> tags() {
+        return tags;
+    }
+
+    public String tag(String name) {
+        return tags.get(name);
+    }
+
+    /** Result in {@link checkers.pdn.PdnGame} form, e.g. {@code 2-0}. */
+    public String result() {
+        return result;
+    }
+
+    public int plies() {
+        return moveIndices.length;
+    }
+
+    public Board startBoard() {
+        return new Board(black, white, kings, side);
+    }
+
+    /**
+     * Replays the stored indices into moves.
+     *
+     * @throws IllegalArgumentException if an index is out of range for its position
+     */
+    public long[] moves() {
+        Board board = startBoard();
+        long[] legal = new long[MoveGenerator.MAX_MOVES];
+        long[] moves = new long[moveIndices.length];
+        for (int i = 0; i < moves.length; i++) {
+            int count = MoveGenerator.generate(board, legal, 0);
+            int index = moveIndices[i] & 0xFF;
+            if (index >= count) {
+                throw new IllegalArgumentException("Game " + number + ", ply " + (i + 1)
+                        + ": move index " + index + " of " + count);
+            }
+            moves[i] = legal[index];
+            board.make(moves[i]);
+        }
+        return moves;
+    }
+
+    @Override
+    public String toString() {
+        return "#" + number + " " + tags + " " + plies() + " plies " + result;
+    }
+}
@@ -0,0 +1,51 @@
+package checkers.archive;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Constants and varint coding shared by {@link GameArchiveWriter} and
+ * {@link GameArchiveReader}.
+ * <p>
+ * File layout: the magic {@code CKGA} and format version (4 bytes each,
+ * big-endian), then blocks of up to {@link #BLOCK_GAMES} game records, then
+ * the block index, then a 16-byte trailer holding the index offset (long),
+ * the block count (int) and the magic again. Each index entry is the block
+ * offset (long), its length in bytes (int) and its game count (int).
+ * <p>
+ * A game record is, in unsigned LEB128 varints: the tag count and each tag
+ * as a length-prefixed UTF-8 name and value; a flags byte (bits 0-1 the
+ * result, bit 2 set for a non-standard start position, bit 3 white to move
+ * first); for a non-standard start the black, white and kings bitboards as
+ * 4-byte ints; the ply count; and one byte per ply, the index of the move
+ * in the list {@link checkers.core.MoveGenerator#generate} produces. The
+ * format therefore depends on the generator's move order, which is part of
+ * the version.
+ */
+final class GameArchive {
+
+    static final int MAGIC = 0x434B4741;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 8;
+    static final int TRAILER_BYTES = 16;
+    static final int INDEX_ENTRY_BYTES = 16;
+    static final int BLOCK_GAMES = 256;
+
+    static final int RESULT_MASK = 3;
+    static final int CUSTOM_START = 4;
+    static final int WHITE_FIRST = 8;
+
+    private GameArchive() {
+    }
+
+    static int readVarint(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+}
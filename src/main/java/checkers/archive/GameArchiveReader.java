@@ -0,0 +1,254 @@
+package checkers.archive;
+
+import checkers.core.Board;
+import checkers.core.Move;
+import checkers.pdn.PdnGame;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Reads a game archive written by {@link GameArchiveWriter}. The block index
+ * is loaded on open, so {@link #game(long)} reads and decodes a single
+ * block, and {@link #forEach} scans the file block by block. Not
+ * thread-safe; open one reader per thread.
+ * <p>
+ * Usage: {@code java checkers.archive.GameArchiveReader FILE [GAME]} scans
+ * the archive and prints a summary, or prints one game.
+ */
+public final class GameArchiveReader implements Closeable {
+
+    private static final String[] RESULTS = {
+            PdnGame.UNKNOWN, PdnGame.BLACK_WINS, PdnGame.WHITE_WINS, PdnGame.DRAWN};
+
+    private final FileChannel channel;
+    private final Path file;
+    private final long[] offsets;
+    private final int[] lengths;
+    /** First game number of each block, plus the total game count at the end. */
+    private final long[] firstGames;
+    private ByteBuffer block = ByteBuffer.allocate(1 << 16);
+
+    private GameArchiveReader(FileChannel channel, Path file, long[] offsets, int[] lengths, long[] firstGames) {
+        this.channel = channel;
+        this.file = file;
+        this.offsets = offsets;
+        this.lengths = lengths;
+        this.firstGames = firstGames;
+    }
+
+    public static GameArchiveReader open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < GameArchive.HEADER_BYTES + GameArchive.TRAILER_BYTES) {
+                throw new IOException("Not a game archive: " + file);
+            }
+            ByteBuffer header = readFully(channel, 0, GameArchive.HEADER_BYTES);
+            ByteBuffer trailer = readFully(channel, size - GameArchive.TRAILER_BYTES, GameArchive.TRAILER_BYTES);
+            if (header.getInt(0) != GameArchive.MAGIC || trailer.getInt(12) != GameArchive.MAGIC) {
+                throw new IOException("Not a game archive, or not closed properly: " + file);
+            }
+            if (header.getInt(4) != GameArchive.VERSION) {
+                throw new IOException("Unsupported game archive version " + header.getInt(4) + ": " + file);
+            }
+            long indexOffset = trailer.getLong(0);
+            int blocks = trailer.getInt(8);
+            if (blocks < 0 || indexOffset < GameArchive.HEADER_BYTES
+                    || indexOffset + (long) blocks * GameArchive.INDEX_ENTRY_BYTES + GameArchive.TRAILER_BYTES != size) {
+                throw new IOException("Corrupt game archive index: " + file);
+            }
+            ByteBuffer index = readFully(channel, indexOffset, blocks * GameArchive.INDEX_ENTRY_BYTES);
+            long[] offsets = new long[blocks];
+            int[] lengths = new int[blocks];
+            long[] firstGames = new long[blocks + 1];
+            for (int i = 0; i < blocks; i++) {
+                offsets[i] = index.getLong();
+                lengths[i] = index.getInt();
+                int games = index.getInt();
+                if (offsets[i] < GameArchive.HEADER_BYTES || lengths[i] < 0 || offsets[i] + lengths[i] > indexOffset
+                        || games <= 0) {
+                    throw new IOException("Corrupt game archive index: " + file);
+                }
+                firstGames[i + 1] = firstGames[i] + games;
+            }
+            return new GameArchiveReader(channel, file, offsets, lengths, firstGames);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: GameArchiveReader FILE [GAME]");
+            System.exit(2);
+        }
+        try (GameArchiveReader reader = open(Paths.get(args[0]))) {
+            if (args.length == 2) {
+                print(reader.game(Long.parseLong(args[1])));
+                return;
+            }
+            long start = System.nanoTime();
+            long[] plies = new long[1];
+            long[] results = new long[RESULTS.length];
+            reader.forEach(game -> {
+                plies[0] += game.plies();
+                results[Arrays.asList(RESULTS).indexOf(game.result())]++;
+            });
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%d games in %d blocks, %d plies, results %s %d / %s %d / %s %d / %s %d, %.2f s%n",
+                    reader.gameCount(), reader.blockCount(), plies[0],
+                    RESULTS[1], results[1], RESULTS[2], results[2], RESULTS[3], results[3],
+                    RESULTS[0], results[0], seconds);
+        }
+    }
+
+    private static void print(ArchivedGame game) {
+        for (Map.Entry<String, String> tag : game.tags().entrySet()) {
+            System.out.println("[" + tag.getKey() + " \"" + tag.getValue() + "\"]");
+        }
+        Board start = game.startBoard();
+        if (!start.equals(Board.initial())) {
+            System.out.println("[FEN \"" + start.toFen() + "\"]");
+        }
+        StringBuilder text = new StringBuilder();
+        long[] moves = game.moves();
+        for (int i = 0; i < moves.length; i++) {
+            if (i % 2 == 0) {
+                text.append(i / 2 + 1).append(". ");
+            }
+            text.append(Move.toPathString(moves[i])).append(' ');
+        }
+        System.out.println(text.append(game.result()));
+    }
+
+    public long gameCount() {
+        return firstGames[firstGames.length - 1];
+    }
+
+    public int blockCount() {
+        return offsets.length;
+    }
+
+    /** Reads game {@code number}, counting from zero. */
+    public ArchivedGame game(long number) throws IOException {
+        if (number < 0 || number >= gameCount()) {
+            throw new IndexOutOfBoundsException("Game " + number + " of " + gameCount());
+        }
+        int b = Arrays.binarySearch(firstGames, number);
+        b = b >= 0 ? b : -b - 2;
+        ByteBuffer in = readBlock(b);
+        for (long n = firstGames[b]; n < number; n++) {
+            skipGame(in);
+        }
+        return decode(in, number);
+    }
+
+    /** Decodes every game in archive order. */
+    public void forEach(Consumer<? super ArchivedGame> action) throws IOException {
+        for (int b = 0; b < offsets.length; b++) {
+            ByteBuffer in = readBlock(b);
+            for (long n = firstGames[b]; n < firstGames[b + 1]; n++) {
+                action.accept(decode(in, n));
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private ByteBuffer readBlock(int b) throws IOException {
+        if (block.capacity() < lengths[b]) {
+            block = ByteBuffer.allocate(Integer.highestOneBit(lengths[b]) << 1);
+        }
+        block.clear().limit(lengths[b]);
+        while (block.hasRemaining()) {
+            if (channel.read(block, offsets[b] + block.position()) < 0) {
+                throw new IOException("Truncated game archive: " + file);
+            }
+        }
+        return block.flip();
+    }
+
+    private ArchivedGame decode(ByteBuffer in, long number) throws IOException {
+        try {
+            int tagCount = GameArchive.readVarint(in);
+            Map<String, String> tags = new LinkedHashMap<>();
+            for (int i = 0; i < tagCount; i++) {
+                tags.put(readString(in), readString(in));
+            }
+            int flags = in.get();
+            int black = Board.INITIAL_BLACK;
+            int white = Board.INITIAL_WHITE;
+            int kings = 0;
+            if ((flags & GameArchive.CUSTOM_START) != 0) {
+                black = in.getInt();
+                white = in.getInt();
+                kings = in.getInt();
+            }
+            int side = (flags & GameArchive.WHITE_FIRST) != 0 ? Board.WHITE : Board.BLACK;
+            int plies = GameArchive.readVarint(in);
+            if (plies < 0 || plies > in.remaining()) {
+                throw new IllegalArgumentException("Moves run past the block");
+            }
+            byte[] moves = new byte[plies];
+            in.get(moves);
+            return new ArchivedGame(number, tags, RESULTS[flags & GameArchive.RESULT_MASK],
+                    black, white, kings, side, moves);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Corrupt game " + number + " in " + file, e);
+        }
+    }
+
+    private void skipGame(ByteBuffer in) throws IOException {
+        try {
+            int tagCount = GameArchive.readVarint(in);
+            for (int i = 0; i < 2 * tagCount; i++) {
+                int length = GameArchive.readVarint(in);
+                in.position(in.position() + length);
+            }
+            int flags = in.get();
+            if ((flags & GameArchive.CUSTOM_START) != 0) {
+                in.position(in.position() + 12);
+            }
+            int plies = GameArchive.readVarint(in);
+            in.position(in.position() + plies);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Corrupt block in " + file, e);
+        }
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = GameArchive.readVarint(in);
+        if (length < 0 || length > in.remaining()) {
+            throw new IllegalArgumentException("String runs past the block");
+        }
+        String s = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return s;
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of file");
+            }
+        }
+        return buffer.flip();
+    }
+}
@@ -0,0 +1,236 @@
+package checkers.archive;
+
+import checkers.core.Board;
+import checkers.core.Move;
+import checkers.core.MoveGenerator;
+import checkers.pdn.PdnGame;
+import checkers.pdn.PdnReader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Writes a game archive (see {@link GameArchive} for the layout). Games are
+ * encoded into an in-memory block that is written out once it holds
+ * {@link GameArchive#BLOCK_GAMES} games; {@link #close()} writes the last
+ * block, the index and the trailer. Not thread-safe.
+ * <p>
+ * Usage: {@code java checkers.archive.GameArchiveWriter OUTPUT INPUT.pdn...}
+ * converts PDN collections, skipping games whose moves do not replay.
+ */
+public final class GameArchiveWriter implements Closeable {
+
+    private final FileChannel channel;
+    private final Board board = Board.initial();
+    private final long[] legal = new long[MoveGenerator.MAX_MOVES];
+
+    private byte[] block = new byte[1 << 16];
+    private int blockLength;
+    private int blockGames;
+    private long position = GameArchive.HEADER_BYTES;
+    private long[] index = new long[64];
+    private int blocks;
+    private long games;
+    private boolean closed;
+
+    public GameArchiveWriter(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer header = ByteBuffer.allocate(GameArchive.HEADER_BYTES);
+        header.putInt(GameArchive.MAGIC).putInt(GameArchive.VERSION).flip();
+        writeFully(header, 0);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: GameArchiveWriter OUTPUT INPUT.pdn...");
+            System.exit(2);
+        }
+        long games;
+        long skipped = 0;
+        long pdnBytes = 0;
+        Path output = Paths.get(args[0]);
+        try (GameArchiveWriter writer = new GameArchiveWriter(output)) {
+            for (int i = 1; i < args.length; i++) {
+                Path input = Paths.get(args[i]);
+                pdnBytes += Files.size(input);
+                try (PdnReader reader = new PdnReader(Files.newInputStream(input))) {
+                    for (PdnGame game; (game = reader.next()) != null; ) {
+                        try {
+                            writer.add(game);
+                        } catch (IllegalArgumentException e) {
+                            skipped++;
+                        }
+                    }
+                }
+            }
+            games = writer.games();
+        }
+        System.out.printf("%d games, %d skipped, %,d PDN bytes -> %,d archive bytes%n",
+                games, skipped, pdnBytes, Files.size(output));
+    }
+
+    /**
+     * Adds a PDN game. Its {@code FEN} tag becomes the stored start position.
+     *
+     * @throws IllegalArgumentException if the game does not replay
+     */
+    public void add(PdnGame game) throws IOException {
+        Board start = game.startBoard();
+        Map<String, String> tags = new LinkedHashMap<>(game.tags());
+        tags.remove("FEN");
+        add(tags, start, game.replay(), game.result());
+    }
+
+    /**
+     * Adds a game played from {@code start}.
+     *
+     * @param result a {@link PdnGame} result: {@code 2-0}, {@code 0-2}, {@code 1-1} or {@code *}
+     * @throws IllegalArgumentException if a move is not legal in its position
+     */
+    public void add(Map<String, String> tags, Board start, long[] moves, String result) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Archive is closed");
+        }
+        int mark = blockLength;
+        try {
+            putVarint(tags.size());
+            for (Map.Entry<String, String> tag : tags.entrySet()) {
+                putString(tag.getKey());
+                putString(tag.getValue());
+            }
+            boolean custom = start.black() != Board.INITIAL_BLACK || start.white() != Board.INITIAL_WHITE
+                    || start.kings() != 0 || start.sideToMove() != Board.BLACK;
+            put(resultCode(result) | (custom ? GameArchive.CUSTOM_START : 0)
+                    | (start.sideToMove() == Board.WHITE ? GameArchive.WHITE_FIRST : 0));
+            if (custom) {
+                putInt(start.black());
+                putInt(start.white());
+                putInt(start.kings());
+            }
+            putVarint(moves.length);
+            board.copyFrom(start);
+            for (long move : moves) {
+                put(indexOf(move));
+                board.make(move);
+            }
+        } catch (IllegalArgumentException e) {
+            blockLength = mark;
+            throw e;
+        }
+        games++;
+        if (++blockGames == GameArchive.BLOCK_GAMES) {
+            flushBlock();
+        }
+    }
+
+    /** Number of games added so far. */
+    public long games() {
+        return games;
+    }
+
+    private int indexOf(long move) {
+        int count = MoveGenerator.generate(board, legal, 0);
+        for (int i = 0; i < count; i++) {
+            if (legal[i] == move) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Illegal move in game " + games + ": " + Move.toString(move));
+    }
+
+    private static int resultCode(String result) {
+        switch (result) {
+            case PdnGame.BLACK_WINS:
+                return 1;
+            case PdnGame.WHITE_WINS:
+                return 2;
+            case PdnGame.DRAWN:
+                return 3;
+            default:
+                return 0;
+        }
+    }
+
+    private void flushBlock() throws IOException {
+        if (blockGames == 0) {
+            return;
+        }
+        writeFully(ByteBuffer.wrap(block, 0, blockLength), position);
+        if (3 * blocks + 3 > index.length) {
+            index = Arrays.copyOf(index, index.length * 2);
+        }
+        index[3 * blocks] = position;
+        index[3 * blocks + 1] = blockLength;
+        index[3 * blocks + 2] = blockGames;
+        blocks++;
+        position += blockLength;
+        blockLength = 0;
+        blockGames = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            flushBlock();
+            ByteBuffer tail = ByteBuffer.allocate(blocks * GameArchive.INDEX_ENTRY_BYTES + GameArchive.TRAILER_BYTES);
+            for (int i = 0; i < blocks; i++) {
+                tail.putLong(index[3 * i]).putInt((int) index[3 * i + 1]).putInt((int) index[3 * i + 2]);
+            }
+            tail.putLong(position).putInt(blocks).putInt(GameArchive.MAGIC).flip();
+            writeFully(tail, position);
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer, long at) throws IOException {
+        while (buffer.hasRemaining()) {
+            at += channel.write(buffer, at);
+        }
+    }
+
+    private void put(int b) {
+        if (blockLength == block.length) {
+            block = Arrays.copyOf(block, block.length * 2);
+        }
+        block[blockLength++] = (byte) b;
+    }
+
+    private void putInt(int v) {
+        put(v >>> 24);
+        put(v >>> 16);
+        put(v >>> 8);
+        put(v);
+    }
+
+    private void putVarint(int v) {
+        while ((v & ~0x7F) != 0) {
+            put((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        put(v);
+    }
+
+    private void putString(String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        putVarint(bytes.length);
+        for (byte b : bytes) {
+            put(b);
+        }
+    }
+}
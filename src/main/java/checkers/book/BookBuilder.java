@@ -0,0 +1,194 @@
+package checkers.book;
+
+import checkers.core.Board;
+import checkers.core.Move;
+import checkers.pdn.PdnGame;
+import checkers.pdn.PdnReader;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles an {@link OpeningBook} from PDN game collections.
+ * <p>
+ * The first {@code plies} moves of every game that starts from the standard
+ * position are counted per (position, move). A move earns one point for
+ * being played plus the mover's result in that game: two for a win, one for
+ * a draw. Moves seen in fewer than {@code minGames} games are dropped.
+ * <p>
+ * Usage: {@code java checkers.book.BookBuilder [--plies N] [--min-games N]
+ * OUTPUT INPUT.pdn...}
+ */
+public final class BookBuilder {
+
+    public static final int DEFAULT_PLIES = 16;
+    public static final int DEFAULT_MIN_GAMES = 2;
+
+    private final int plies;
+    private final int minGames;
+    private final Map<BookMove, int[]> stats = new HashMap<>();
+    private long games;
+    private long skipped;
+
+    public BookBuilder(int plies, int minGames) {
+        if (plies < 1 || minGames < 1) {
+            throw new IllegalArgumentException("plies and minGames must be positive");
+        }
+        this.plies = plies;
+        this.minGames = minGames;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int plies = DEFAULT_PLIES;
+        int minGames = DEFAULT_MIN_GAMES;
+        List<Path> paths = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--plies") && i + 1 < args.length) {
+                plies = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--min-games") && i + 1 < args.length) {
+                minGames = Integer.parseInt(args[++i]);
+            } else {
+                paths.add(Paths.get(args[i]));
+            }
+        }
+        if (paths.size() < 2) {
+            System.err.println("Usage: BookBuilder [--plies N] [--min-games N] OUTPUT INPUT.pdn...");
+            System.exit(2);
+        }
+        BookBuilder builder = new BookBuilder(plies, minGames);
+        for (Path input : paths.subList(1, paths.size())) {
+            builder.addPdn(input);
+        }
+        int entries = builder.write(paths.get(0));
+        System.out.println(builder.games + " games, " + builder.skipped + " skipped, "
+                + entries + " book entries");
+    }
+
+    /** Adds every game of a PDN file that starts from the standard position. */
+    public void addPdn(Path file) throws IOException {
+        try (PdnReader reader = new PdnReader(Files.newInputStream(file))) {
+            for (PdnGame game; (game = reader.next()) != null; ) {
+                addGame(game);
+            }
+        }
+    }
+
+    public void addGame(PdnGame game) {
+        String fen = game.tag("FEN");
+        try {
+            if (fen != null && !Board.fromFen(fen).equals(Board.initial())) {
+                skipped++;
+                return;
+            }
+        } catch (IllegalArgumentException e) {
+            skipped++;
+            return;
+        }
+        addGame(game.moves(), points(game.result()));
+    }
+
+    /**
+     * Adds one game from the standard start position.
+     *
+     * @param result points for the first player (black): 2 win, 1 draw,
+     *               0 loss, or -1 if unknown
+     */
+    public void addGame(List<String> moves, int result) {
+        Board board = Board.initial();
+        long[] keys = new long[Math.min(plies, moves.size())];
+        long[] played = new long[keys.length];
+        for (int ply = 0; ply < keys.length; ply++) {
+            try {
+                played[ply] = Move.parse(board, moves.get(ply));
+            } catch (IllegalArgumentException e) {
+                skipped++;
+                return;
+            }
+            keys[ply] = board.key();
+            board.make(played[ply]);
+        }
+        games++;
+        for (int ply = 0; ply < keys.length; ply++) {
+            int points = result < 0 ? 1 : (ply % 2 == 0 ? result : 2 - result);
+            int[] counts = stats.computeIfAbsent(
+                    new BookMove(keys[ply], Move.from(played[ply]), Move.to(played[ply])), k -> new int[2]);
+            counts[0]++;
+            counts[1] += 1 + points;
+        }
+    }
+
+    private static int points(String result) {
+        switch (result) {
+            case PdnGame.BLACK_WINS:
+                return 2;
+            case PdnGame.DRAWN:
+                return 1;
+            case PdnGame.WHITE_WINS:
+                return 0;
+            default:
+                return -1;
+        }
+    }
+
+    /** Writes the book sorted by key, heaviest move first; returns the entry count. */
+    public int write(Path output) throws IOException {
+        List<Map.Entry<BookMove, int[]>> kept = new ArrayList<>();
+        for (Map.Entry<BookMove, int[]> e : stats.entrySet()) {
+            if (e.getValue()[0] >= minGames) {
+                kept.add(e);
+            }
+        }
+        kept.sort((a, b) -> {
+            int byKey = Long.compareUnsigned(a.getKey().key, b.getKey().key);
+            return byKey != 0 ? byKey : Integer.compare(b.getValue()[1], a.getValue()[1]);
+        });
+        try (OutputStream file = Files.newOutputStream(output);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            out.writeInt(OpeningBook.MAGIC);
+            out.writeInt(OpeningBook.VERSION);
+            out.writeInt(kept.size());
+            for (Map.Entry<BookMove, int[]> e : kept) {
+                out.writeLong(e.getKey().key);
+                out.writeByte(e.getKey().from);
+                out.writeByte(e.getKey().to);
+                out.writeShort(Math.min(e.getValue()[1], OpeningBook.MAX_WEIGHT));
+            }
+        }
+        return kept.size();
+    }
+
+    private static final class BookMove {
+        final long key;
+        final int from;
+        final int to;
+
+        BookMove(long key, int from, int to) {
+            this.key = key;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof BookMove)) {
+                return false;
+            }
+            BookMove other = (BookMove) o;
+            return key == other.key && from == other.from && to == other.to;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(key) * 31 + from * 32 + to;
+        }
+    }
+}
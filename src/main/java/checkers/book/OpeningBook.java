@@ -0,0 +1,178 @@
+package checkers.book;
+
+import checkers.core.Board;
+import checkers.core.Move;
+import checkers.core.MoveGenerator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+
+/**
+ * Opening book keyed by {@link checkers.core.Zobrist} position keys.
+ * <p>
+ * File layout (big-endian): the magic {@code CKBK}, format version and entry
+ * count, followed by fixed 12-byte entries sorted by key: position key
+ * (8 bytes), origin and destination square (1 byte each) and weight
+ * (unsigned 16 bits). The file is memory-mapped and searched by binary
+ * search, so a lookup touches a handful of pages and allocates nothing
+ * beyond the legal-move buffer used to resolve the chosen move.
+ * <p>
+ * Usage: {@code java checkers.book.OpeningBook BOOK [FEN]} lists the book
+ * moves of a position.
+ */
+public final class OpeningBook {
+
+    static final int MAGIC = 0x434B424B;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 12;
+    static final int ENTRY_BYTES = 12;
+    static final int MAX_WEIGHT = 0xFFFF;
+
+    private final ByteBuffer entries;
+    private final int count;
+
+    private OpeningBook(ByteBuffer entries, int count) {
+        this.entries = entries;
+        this.count = count;
+    }
+
+    public static OpeningBook open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException("Not an opening book: " + file);
+            }
+            ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (data.getInt(0) != MAGIC) {
+                throw new IOException("Not an opening book: " + file);
+            }
+            if (data.getInt(4) != VERSION) {
+                throw new IOException("Unsupported opening book version " + data.getInt(4) + ": " + file);
+            }
+            int count = data.getInt(8);
+            if (count < 0 || HEADER_BYTES + (long) count * ENTRY_BYTES != size) {
+                throw new IOException("Corrupt opening book: " + file);
+            }
+            return new OpeningBook(data.position(HEADER_BYTES).slice(), count);
+        }
+    }
+
+    /** Number of (position, move) entries. */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Picks a book move for {@code board} with probability proportional to
+     * its weight, or returns {@link Move#NONE} if the position is not in the
+     * book. Entries that match no legal move are left out of the draw.
+     */
+    public long pick(Board board, SplittableRandom random) {
+        long key = board.key();
+        int first = firstIndex(key);
+        long[] legal = null;
+        int legalCount = 0;
+        long total = 0;
+        int end = first;
+        while (end < count && keyAt(end) == key) {
+            if (legal == null) {
+                legal = new long[MoveGenerator.MAX_MOVES];
+                legalCount = MoveGenerator.generate(board, legal, 0);
+            }
+            if (resolve(end, legal, legalCount) != Move.NONE) {
+                total += weightAt(end);
+            }
+            end++;
+        }
+        if (total == 0) {
+            return Move.NONE;
+        }
+        long target = random.nextLong(total);
+        for (int i = first; i < end; i++) {
+            long move = resolve(i, legal, legalCount);
+            if (move != Move.NONE) {
+                target -= weightAt(i);
+                if (target < 0) {
+                    return move;
+                }
+            }
+        }
+        return Move.NONE;
+    }
+
+    /**
+     * Writes the book moves of {@code board} and their weights into the
+     * given arrays, heaviest first, and returns how many there are.
+     */
+    public int moves(Board board, long[] moves, int[] weights) {
+        long key = board.key();
+        long[] legal = new long[MoveGenerator.MAX_MOVES];
+        int legalCount = MoveGenerator.generate(board, legal, 0);
+        int n = 0;
+        for (int i = firstIndex(key); i < count && keyAt(i) == key && n < moves.length; i++) {
+            long move = resolve(i, legal, legalCount);
+            if (move != Move.NONE) {
+                moves[n] = move;
+                weights[n] = weightAt(i);
+                n++;
+            }
+        }
+        return n;
+    }
+
+    /** Index of the first entry with a key not less than {@code key}. */
+    private int firstIndex(long key) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (Long.compareUnsigned(keyAt(mid), key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private long keyAt(int i) {
+        return entries.getLong(i * ENTRY_BYTES);
+    }
+
+    private int weightAt(int i) {
+        return entries.getShort(i * ENTRY_BYTES + 10) & 0xFFFF;
+    }
+
+    /** Matches the stored squares against the legal moves; a stale entry yields NONE. */
+    private long resolve(int i, long[] legal, int legalCount) {
+        int from = entries.get(i * ENTRY_BYTES + 8);
+        int to = entries.get(i * ENTRY_BYTES + 9);
+        for (int m = 0; m < legalCount; m++) {
+            if (Move.from(legal[m]) == from && Move.to(legal[m]) == to) {
+                return legal[m];
+            }
+        }
+        return Move.NONE;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: OpeningBook BOOK [FEN]");
+            System.exit(2);
+        }
+        OpeningBook book = open(Paths.get(args[0]));
+        Board board = args.length == 2 ? Board.fromFen(args[1]) : Board.initial();
+        long[] moves = new long[MoveGenerator.MAX_MOVES];
+        int[] weights = new int[MoveGenerator.MAX_MOVES];
+        int n = book.moves(board, moves, weights);
+        System.out.println(book.size() + " entries, " + n + " moves for " + board.toFen());
+        for (int i = 0; i < n; i++) {
+            System.out.printf("%-8s %6d%n", Move.toString(moves[i]), weights[i]);
+        }
+    }
+}
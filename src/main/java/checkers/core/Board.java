@@ -0,0 +1,438 @@
+package checkers.core;
+
+import java.util.Arrays;
+
+/**
+ * A checkers position packed into three 32-bit bitboards.
+ * <p>
+ * Bit {@code i} of each bitboard stands for square {@code i + 1} in standard
+ * numbering (see {@link Squares}). {@code black} and {@code white} hold every
+ * piece of that colour, {@code kings} marks which of them are crowned. Black
+ * starts on squares 1-12, moves first and advances towards square 32.
+ * <p>
+ * The whole position is four ints, so copying one is a handful of word
+ * stores and never touches per-square objects.
+ * <p>
+ * {@link #make(long)} and {@link #unmake()} keep an undo stack of primitive
+ * ints that only grows when a line longer than any seen before is played,
+ * so searching with make/unmake does not allocate.
+ * <p>
+ * The board also carries a 64-bit {@link Zobrist} key. {@code make} updates
+ * it by XOR-ing only the squares the move touches and pushes the previous
+ * key, which {@code unmake} restores; the same key stack serves repetition
+ * detection.
+ * <p>
+ * In the same way it keeps the {@link PieceSquare} total, so evaluators
+ * read material and placement from {@link #psq()} at no cost per node.
+ */
+public final class Board {
+
+    public static final int BLACK = 0;
+    public static final int WHITE = 1;
+
+    public static final int EMPTY = 0;
+    public static final int BLACK_MAN = 1;
+    public static final int BLACK_KING = 2;
+    public static final int WHITE_MAN = 3;
+    public static final int WHITE_KING = 4;
+
+    public static final int INITIAL_BLACK = 0x00000FFF;
+    public static final int INITIAL_WHITE = 0xFFF00000;
+
+    private int black;
+    private int white;
+    private int kings;
+    private int side;
+    private long key;
+    /** Plies since the last man move or capture; only those can repeat. */
+    private int quietPlies;
+    /** Sum of {@link PieceSquare} values, black's point of view. */
+    private int psq;
+
+    private static final int UNDO_STRIDE = 6;
+
+    private int[] undo = new int[UNDO_STRIDE * 64];
+    private long[] keys = new long[64];
+    private int undoSize;
+
+    public Board(int black, int white, int kings, int side) {
+        set(black, white, kings, side);
+    }
+
+    public Board(Board other) {
+        this(other.black, other.white, other.kings, other.side);
+    }
+
+    public static Board initial() {
+        return new Board(INITIAL_BLACK, INITIAL_WHITE, 0, BLACK);
+    }
+
+    public Board copy() {
+        return new Board(this);
+    }
+
+    /**
+     * A copy that also keeps the moves played before this position back to
+     * the last man move or capture, the only ones it can repeat, so
+     * {@link #isRepetition()} on the copy still sees the game that led here.
+     * Those moves can be taken back on the copy too.
+     */
+    public Board copyWithHistory() {
+        Board copy = new Board(this);
+        int plies = Math.min(quietPlies, undoSize);
+        if (plies > copy.keys.length) {
+            copy.keys = new long[plies * 2];
+            copy.undo = new int[UNDO_STRIDE * plies * 2];
+        }
+        System.arraycopy(keys, undoSize - plies, copy.keys, 0, plies);
+        System.arraycopy(undo, (undoSize - plies) * UNDO_STRIDE, copy.undo, 0, plies * UNDO_STRIDE);
+        copy.undoSize = plies;
+        copy.quietPlies = quietPlies;
+        return copy;
+    }
+
+    public void copyFrom(Board other) {
+        black = other.black;
+        white = other.white;
+        kings = other.kings;
+        side = other.side;
+        key = other.key;
+        psq = other.psq;
+        quietPlies = 0;
+        undoSize = 0;
+    }
+
+    /** Replaces the position, validating that the bitboards are consistent. */
+    public void set(int black, int white, int kings, int side) {
+        if ((black & white) != 0) {
+            throw new IllegalArgumentException("Squares occupied by both colours: "
+                    + Integer.toHexString(black & white));
+        }
+        if ((kings & ~(black | white)) != 0) {
+            throw new IllegalArgumentException("Kings on empty squares: "
+                    + Integer.toHexString(kings & ~(black | white)));
+        }
+        if (side != BLACK && side != WHITE) {
+            throw new IllegalArgumentException("Invalid side to move: " + side);
+        }
+        this.black = black;
+        this.white = white;
+        this.kings = kings;
+        this.side = side;
+        key = Zobrist.compute(black, white, kings, side);
+        psq = PieceSquare.compute(black, white, kings);
+        quietPlies = 0;
+        undoSize = 0;
+    }
+
+    /**
+     * Plays a legal move produced by {@link MoveGenerator} for this position.
+     * The move is not validated.
+     */
+    public void make(long move) {
+        int ply = undoSize;
+        int top = ply * UNDO_STRIDE;
+        if (ply == keys.length) {
+            undo = Arrays.copyOf(undo, top * 2);
+            keys = Arrays.copyOf(keys, ply * 2);
+        }
+        int[] stack = undo;
+        stack[top] = black;
+        stack[top + 1] = white;
+        stack[top + 2] = kings;
+        stack[top + 3] = side;
+        stack[top + 4] = quietPlies;
+        stack[top + 5] = psq;
+        keys[ply] = key;
+        undoSize = ply + 1;
+
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int fromBit = 1 << from;
+        int toBit = 1 << to;
+        int captured = Move.captured(move);
+        boolean wasKing = (kings & fromBit) != 0;
+        int man = side == BLACK ? BLACK_MAN - 1 : WHITE_MAN - 1;
+        int king = man + 1;
+        int promotion = side == BLACK ? Squares.BLACK_PROMOTION : Squares.WHITE_PROMOTION;
+        boolean isKing = wasKing || (toBit & promotion) != 0;
+
+        long[][] z = Zobrist.PIECE_SQUARE;
+        int[][] v = PieceSquare.VALUE;
+        int before = wasKing ? king : man;
+        int after = isKing ? king : man;
+        long k = key ^ Zobrist.BLACK_TO_MOVE ^ z[before][from] ^ z[after][to];
+        int p = psq - v[before][from] + v[after][to];
+        if (captured != 0) {
+            int theirMan = side == BLACK ? WHITE_MAN - 1 : BLACK_MAN - 1;
+            k ^= Zobrist.xorAll(z[theirMan], captured & ~kings)
+                    ^ Zobrist.xorAll(z[theirMan + 1], captured & kings);
+            p -= PieceSquare.sum(v[theirMan], captured & ~kings)
+                    + PieceSquare.sum(v[theirMan + 1], captured & kings);
+        }
+
+        // A king's jump can end on its own origin square, so clear before setting.
+        if (side == BLACK) {
+            black = (black & ~fromBit) | toBit;
+            white &= ~captured;
+        } else {
+            white = (white & ~fromBit) | toBit;
+            black &= ~captured;
+        }
+        kings &= ~(captured | fromBit);
+        if (isKing) {
+            kings |= toBit;
+        }
+        quietPlies = wasKing && captured == 0 ? quietPlies + 1 : 0;
+        key = k;
+        psq = p;
+        side ^= 1;
+    }
+
+    /** Takes back the last move played with {@link #make(long)}. */
+    public void unmake() {
+        if (undoSize == 0) {
+            throw new IllegalStateException("No move to take back");
+        }
+        int ply = --undoSize;
+        int top = ply * UNDO_STRIDE;
+        int[] stack = undo;
+        black = stack[top];
+        white = stack[top + 1];
+        kings = stack[top + 2];
+        side = stack[top + 3];
+        quietPlies = stack[top + 4];
+        psq = stack[top + 5];
+        key = keys[ply];
+    }
+
+    /** Number of moves that can currently be taken back. */
+    public int undoDepth() {
+        return undoSize;
+    }
+
+    /** Zobrist key of the current position. */
+    public long key() {
+        return key;
+    }
+
+    /**
+     * Material plus piece-square placement from black's point of view, as
+     * summed by {@link PieceSquare}.
+     */
+    public int psq() {
+        return psq;
+    }
+
+    /** Plies since the last man move or capture. */
+    public int quietPlies() {
+        return quietPlies;
+    }
+
+    /** Restores the quiet-ply count of a position saved without its moves. */
+    public void setQuietPlies(int plies) {
+        if (plies < 0) {
+            throw new IllegalArgumentException("Negative quiet plies: " + plies);
+        }
+        quietPlies = plies;
+    }
+
+    /**
+     * Whether the current position occurred before in the moves played on
+     * this board. Only king moves without capture are reversible, so the scan
+     * stops at the last man move or capture.
+     */
+    public boolean isRepetition() {
+        int limit = Math.min(quietPlies, undoSize);
+        for (int back = 4; back <= limit; back += 2) {
+            if (keys[undoSize - back] == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int black() {
+        return black;
+    }
+
+    public int white() {
+        return white;
+    }
+
+    public int kings() {
+        return kings;
+    }
+
+    public int sideToMove() {
+        return side;
+    }
+
+    public int occupied() {
+        return black | white;
+    }
+
+    public int empty() {
+        return ~(black | white);
+    }
+
+    public int pieces(int color) {
+        return color == BLACK ? black : white;
+    }
+
+    public int men(int color) {
+        return pieces(color) & ~kings;
+    }
+
+    public int kings(int color) {
+        return pieces(color) & kings;
+    }
+
+    public int pieceCount() {
+        return Integer.bitCount(black | white);
+    }
+
+    public int pieceAt(int sq) {
+        int bit = 1 << sq;
+        if ((black & bit) != 0) {
+            return (kings & bit) != 0 ? BLACK_KING : BLACK_MAN;
+        }
+        if ((white & bit) != 0) {
+            return (kings & bit) != 0 ? WHITE_KING : WHITE_MAN;
+        }
+        return EMPTY;
+    }
+
+    /**
+     * Parses a PDN FEN tag value such as {@code B:W21-32:B1-12} or
+     * {@code W:WK3,18:B12,K26}. Square ranges and the {@code K} king prefix
+     * are accepted; a trailing period is ignored.
+     */
+    public static Board fromFen(String fen) {
+        String text = fen.trim();
+        if (text.endsWith(".")) {
+            text = text.substring(0, text.length() - 1);
+        }
+        String[] fields = text.split(":");
+        if (fields.length < 1 || fields.length > 3) {
+            throw new IllegalArgumentException("Malformed FEN: " + fen);
+        }
+        int side = parseColor(fields[0].trim(), fen);
+        int[] pieces = new int[2];
+        int kings = 0;
+        for (int i = 1; i < fields.length; i++) {
+            String field = fields[i].trim();
+            if (field.isEmpty()) {
+                throw new IllegalArgumentException("Malformed FEN: " + fen);
+            }
+            int color = parseColor(field.substring(0, 1), fen);
+            String list = field.substring(1);
+            if (list.isEmpty()) {
+                continue;
+            }
+            for (String token : list.split(",")) {
+                token = token.trim();
+                boolean king = token.startsWith("K") || token.startsWith("k");
+                if (king) {
+                    token = token.substring(1);
+                }
+                int dash = token.indexOf('-');
+                int first = Squares.parse(dash < 0 ? token : token.substring(0, dash));
+                int last = dash < 0 ? first : Squares.parse(token.substring(dash + 1));
+                for (int sq = first; sq <= last; sq++) {
+                    pieces[color] |= 1 << sq;
+                    if (king) {
+                        kings |= 1 << sq;
+                    }
+                }
+            }
+        }
+        return new Board(pieces[BLACK], pieces[WHITE], kings, side);
+    }
+
+    private static int parseColor(String text, String fen) {
+        switch (text) {
+            case "B":
+            case "b":
+                return BLACK;
+            case "W":
+            case "w":
+                return WHITE;
+            default:
+                throw new IllegalArgumentException("Unknown colour '" + text + "' in FEN: " + fen);
+        }
+    }
+
+    /** Formats the position as a PDN FEN tag value, white pieces first. */
+    public String toFen() {
+        StringBuilder sb = new StringBuilder(96);
+        sb.append(side == BLACK ? 'B' : 'W');
+        appendFenPieces(sb, 'W', white);
+        appendFenPieces(sb, 'B', black);
+        return sb.toString();
+    }
+
+    private void appendFenPieces(StringBuilder sb, char color, int pieces) {
+        sb.append(':').append(color);
+        boolean first = true;
+        for (int bits = pieces; bits != 0; bits &= bits - 1) {
+            int sq = Integer.numberOfTrailingZeros(bits);
+            if (!first) {
+                sb.append(',');
+            }
+            if ((kings & (1 << sq)) != 0) {
+                sb.append('K');
+            }
+            sb.append(Squares.number(sq));
+            first = false;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Board)) {
+            return false;
+        }
+        Board other = (Board) o;
+        return black == other.black && white == other.white
+                && kings == other.kings && side == other.side;
+    }
+
+    @Override
+    public int hashCode() {
+        int h = black;
+        h = 31 * h + white;
+        h = 31 * h + kings;
+        return 31 * h + side;
+    }
+
+    /** ASCII diagram with black at the top: b/B black man/king, w/W white. */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(160);
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                int sq = Squares.at(row, col);
+                char c;
+                if (sq < 0) {
+                    c = ' ';
+                } else {
+                    switch (pieceAt(sq)) {
+                        case BLACK_MAN: c = 'b'; break;
+                        case BLACK_KING: c = 'B'; break;
+                        case WHITE_MAN: c = 'w'; break;
+                        case WHITE_KING: c = 'W'; break;
+                        default: c = '.';
+                    }
+                }
+                sb.append(c);
+            }
+            sb.append('\n');
+        }
+        sb.append(side == BLACK ? "Black" : "White").append(" to move");
+        return sb.toString();
+    }
+}
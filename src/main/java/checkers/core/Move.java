@@ -0,0 +1,149 @@
+package checkers.core;
+
+/**
+ * Moves packed into a primitive {@code long}.
+ * <p>
+ * Bits 0-31 hold the bitboard of captured squares, bits 32-36 the origin
+ * square and bits 37-41 the destination square. A multi-jump is a single
+ * move; its intermediate landing squares are implied by the captured set.
+ * {@link #NONE} (zero) never encodes a legal move: a move either changes
+ * square or, for a king jumping a full circle, captures something.
+ */
+public final class Move {
+
+    public static final long NONE = 0L;
+
+    private static final int FROM_SHIFT = 32;
+    private static final int TO_SHIFT = 37;
+
+    private Move() {
+    }
+
+    public static long of(int from, int to, int captured) {
+        return ((long) to << TO_SHIFT) | ((long) from << FROM_SHIFT) | (captured & 0xFFFFFFFFL);
+    }
+
+    public static int from(long move) {
+        return (int) (move >>> FROM_SHIFT) & 31;
+    }
+
+    public static int to(long move) {
+        return (int) (move >>> TO_SHIFT) & 31;
+    }
+
+    public static int captured(long move) {
+        return (int) move;
+    }
+
+    public static boolean isCapture(long move) {
+        return (int) move != 0;
+    }
+
+    /** Formats the move in short PDN notation, e.g. {@code 11-15} or {@code 22x15}. */
+    public static String toString(long move) {
+        if (move == NONE) {
+            return "--";
+        }
+        return Squares.number(from(move)) + (isCapture(move) ? "x" : "-") + Squares.number(to(move));
+    }
+
+    /**
+     * Formats the move with every landing square of a jump, e.g.
+     * {@code 9x18x25}. Unlike {@link #toString(long)} this never reads the
+     * same for two legal moves of one position.
+     */
+    public static String toPathString(long move) {
+        if (!isCapture(move)) {
+            return toString(move);
+        }
+        int[] path = new int[Integer.bitCount(captured(move)) + 1];
+        path[0] = from(move);
+        if (!walk(path, 1, captured(move), to(move))) {
+            return toString(move);
+        }
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < path.length; i++) {
+            text.append(i == 0 ? "" : "x").append(Squares.number(path[i]));
+        }
+        return text.toString();
+    }
+
+    /** Fills {@code path} from index {@code i} with jumps over {@code remaining} that end on {@code to}. */
+    private static boolean walk(int[] path, int i, int remaining, int to) {
+        if (remaining == 0) {
+            return path[i - 1] == to;
+        }
+        int sq = path[i - 1];
+        for (int dir = 0; dir < 4; dir++) {
+            int over = Squares.STEP[dir][sq];
+            int landing = Squares.JUMP[dir][sq];
+            if (landing >= 0 && (remaining & (1 << over)) != 0) {
+                path[i] = landing;
+                if (walk(path, i + 1, remaining & ~(1 << over), to)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Resolves move text against the legal moves of {@code board}. Both the
+     * short form ({@code 9x25}) and the full jump path ({@code 9x18x25}) are
+     * accepted; the path is used to pick between jumps that share origin and
+     * destination.
+     *
+     * @throws IllegalArgumentException if the text matches no legal move
+     */
+    public static long parse(Board board, String text) {
+        String[] parts = text.trim().split("[-x:]");
+        if (parts.length < 2) {
+            throw new IllegalArgumentException("Malformed move: " + text);
+        }
+        int[] path = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            path[i] = Squares.parse(parts[i]);
+        }
+        long[] moves = new long[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generate(board, moves, 0);
+        long match = NONE;
+        for (int i = 0; i < count; i++) {
+            long m = moves[i];
+            if (from(m) != path[0] || to(m) != path[path.length - 1]) {
+                continue;
+            }
+            if (path.length > 2 && !followsPath(m, path)) {
+                continue;
+            }
+            if (match != NONE && match != m) {
+                throw new IllegalArgumentException("Ambiguous move: " + text);
+            }
+            match = m;
+        }
+        if (match == NONE) {
+            throw new IllegalArgumentException("Illegal move " + text + " in " + board.toFen());
+        }
+        return match;
+    }
+
+    private static boolean followsPath(long move, int[] path) {
+        int captured = captured(move);
+        if (Integer.bitCount(captured) != path.length - 1) {
+            return false;
+        }
+        for (int i = 1; i < path.length; i++) {
+            int a = path[i - 1];
+            int b = path[i];
+            int over = -1;
+            for (int dir = 0; dir < 4; dir++) {
+                if (Squares.JUMP[dir][a] == b) {
+                    over = Squares.STEP[dir][a];
+                }
+            }
+            if (over < 0 || (captured & (1 << over)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,160 @@
+package checkers.core;
+
+/**
+ * Legal move generation for English draughts.
+ * <p>
+ * Moves are written into a caller-supplied {@code long[]} buffer starting at
+ * a given offset, so a search can keep one flat buffer for all plies and
+ * generate millions of positions without allocating. Captures are
+ * mandatory: when any jump exists only jumps are produced, and every jump
+ * is continued until no further capture is possible. A man that reaches the
+ * king row ends its move there.
+ */
+public final class MoveGenerator {
+
+    /** Upper bound on the number of legal moves in any reachable position. */
+    public static final int MAX_MOVES = 128;
+
+    private MoveGenerator() {
+    }
+
+    /**
+     * Writes all legal moves of the side to move into {@code moves} starting
+     * at {@code offset} and returns how many were written.
+     */
+    public static int generate(Board board, long[] moves, int offset) {
+        int count = generateCaptures(board, moves, offset);
+        if (count > 0) {
+            return count;
+        }
+        return generateQuiet(board, moves, offset);
+    }
+
+    /**
+     * Writes every complete capture sequence of the side to move and returns
+     * how many were written; zero means the side has no capture.
+     */
+    public static int generateCaptures(Board board, long[] moves, int offset) {
+        int side = board.sideToMove();
+        int us = board.pieces(side);
+        int them = board.pieces(side ^ 1);
+        int kings = board.kings();
+        int n = offset;
+        for (int bits = us; bits != 0; bits &= bits - 1) {
+            int from = Integer.numberOfTrailingZeros(bits);
+            boolean king = (kings & (1 << from)) != 0;
+            // The moving piece leaves its origin, so a king may pass over it again.
+            int blocked = (us & ~(1 << from)) | them;
+            n = jumps(moves, n, from, from, 0, them, blocked, side, king);
+        }
+        return n - offset;
+    }
+
+    private static int generateQuiet(Board board, long[] moves, int offset) {
+        int side = board.sideToMove();
+        int empty = board.empty();
+        int kings = board.kings();
+        int n = offset;
+        for (int bits = board.pieces(side); bits != 0; bits &= bits - 1) {
+            int from = Integer.numberOfTrailingZeros(bits);
+            boolean king = (kings & (1 << from)) != 0;
+            int firstDir = king || side == Board.WHITE ? Squares.UP_LEFT : Squares.DOWN_LEFT;
+            int lastDir = king || side == Board.BLACK ? Squares.DOWN_RIGHT : Squares.UP_RIGHT;
+            for (int dir = firstDir; dir <= lastDir; dir++) {
+                int to = Squares.STEP[dir][from];
+                if (to >= 0 && (empty & (1 << to)) != 0) {
+                    moves[n++] = Move.of(from, to, 0);
+                }
+            }
+        }
+        return n - offset;
+    }
+
+    /**
+     * Depth-first expansion of a jump sequence. Captured pieces stay on the
+     * board until the move completes, so they can neither be jumped twice nor
+     * landed on. A king that captures the same pieces along two different
+     * paths yields two identical encodings; like the published perft
+     * figures, each jump path counts as a move of its own.
+     */
+    private static int jumps(long[] moves, int n, int origin, int sq, int captured,
+                             int them, int blocked, int side, boolean king) {
+        int firstDir = king || side == Board.WHITE ? Squares.UP_LEFT : Squares.DOWN_LEFT;
+        int lastDir = king || side == Board.BLACK ? Squares.DOWN_RIGHT : Squares.UP_RIGHT;
+        boolean extended = false;
+        for (int dir = firstDir; dir <= lastDir; dir++) {
+            int land = Squares.JUMP[dir][sq];
+            if (land < 0) {
+                continue;
+            }
+            int over = 1 << Squares.STEP[dir][sq];
+            if ((them & ~captured & over) == 0 || (blocked & (1 << land)) != 0) {
+                continue;
+            }
+            extended = true;
+            int nowCaptured = captured | over;
+            int promotion = side == Board.BLACK ? Squares.BLACK_PROMOTION : Squares.WHITE_PROMOTION;
+            if (!king && (promotion & (1 << land)) != 0) {
+                moves[n++] = Move.of(origin, land, nowCaptured);
+            } else {
+                n = jumps(moves, n, origin, land, nowCaptured, them, blocked, side, king);
+            }
+        }
+        if (!extended && captured != 0) {
+            moves[n++] = Move.of(origin, sq, captured);
+        }
+        return n;
+    }
+
+    /** Whether the side to move has at least one capture. */
+    public static boolean hasCapture(Board board) {
+        int side = board.sideToMove();
+        int us = board.pieces(side);
+        int them = board.pieces(side ^ 1);
+        int empty = board.empty();
+        int kings = board.kings();
+        for (int bits = us; bits != 0; bits &= bits - 1) {
+            int from = Integer.numberOfTrailingZeros(bits);
+            boolean king = (kings & (1 << from)) != 0;
+            int firstDir = king || side == Board.WHITE ? Squares.UP_LEFT : Squares.DOWN_LEFT;
+            int lastDir = king || side == Board.BLACK ? Squares.DOWN_RIGHT : Squares.UP_RIGHT;
+            for (int dir = firstDir; dir <= lastDir; dir++) {
+                int land = Squares.JUMP[dir][from];
+                if (land >= 0 && (empty & (1 << land)) != 0
+                        && (them & (1 << Squares.STEP[dir][from])) != 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /** Whether the side to move has any legal move at all. */
+    public static boolean hasMove(Board board) {
+        return hasCapture(board) || hasQuietMove(board);
+    }
+
+    /**
+     * Whether the side to move has a piece with an empty square next to it
+     * in a direction it may move; the test {@link #hasMove} makes after
+     * finding no capture, for callers that already know there is none.
+     */
+    public static boolean hasQuietMove(Board board) {
+        int side = board.sideToMove();
+        int empty = board.empty();
+        int kings = board.kings();
+        for (int bits = board.pieces(side); bits != 0; bits &= bits - 1) {
+            int from = Integer.numberOfTrailingZeros(bits);
+            boolean king = (kings & (1 << from)) != 0;
+            int firstDir = king || side == Board.WHITE ? Squares.UP_LEFT : Squares.DOWN_LEFT;
+            int lastDir = king || side == Board.BLACK ? Squares.DOWN_RIGHT : Squares.UP_RIGHT;
+            for (int dir = firstDir; dir <= lastDir; dir++) {
+                int to = Squares.STEP[dir][from];
+                if (to >= 0 && (empty & (1 << to)) != 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
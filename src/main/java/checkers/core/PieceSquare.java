@@ -0,0 +1,63 @@
+package checkers.core;
+
+/**
+ * Material and piece-square values, in centi-men from black's point of
+ * view, that {@link Board} sums incrementally.
+ * <p>
+ * Each (piece, square) pair has one value combining what the piece is worth
+ * and how well it stands there: men gain as they advance and near the
+ * centre, kings gain in the centre and lose on the edges. White's values
+ * are black's rotated half a turn and negated, so the sum over all pieces
+ * is zero for a symmetric position. {@code make} adds and subtracts only the
+ * entries of the squares a move touches, so the evaluation reads the total
+ * without scanning the board.
+ */
+public final class PieceSquare {
+
+    public static final int MAN = 100;
+    public static final int KING = 130;
+
+    static final int[][] VALUE = new int[4][Squares.COUNT];
+
+    /** Bonus of a black man by row, from its back rank towards promotion. */
+    private static final int[] MAN_ADVANCE = {0, 2, 4, 6, 9, 12, 16, 0};
+
+    static {
+        for (int sq = 0; sq < Squares.COUNT; sq++) {
+            int row = Squares.row(sq);
+            int column = Squares.column(sq);
+            boolean edge = column == 0 || column == 7;
+            boolean centre = row >= 2 && row <= 5 && column >= 2 && column <= 5;
+            int man = MAN + MAN_ADVANCE[row] + (centre ? 3 : 0) - (edge ? 2 : 0);
+            int king = KING + (centre ? 8 : 0) - (edge ? 6 : 0);
+            VALUE[Board.BLACK_MAN - 1][sq] = man;
+            VALUE[Board.BLACK_KING - 1][sq] = king;
+            VALUE[Board.WHITE_MAN - 1][Squares.COUNT - 1 - sq] = -man;
+            VALUE[Board.WHITE_KING - 1][Squares.COUNT - 1 - sq] = -king;
+        }
+    }
+
+    private PieceSquare() {
+    }
+
+    /** Value of {@code piece} (one of the {@link Board} piece constants) on {@code sq}. */
+    public static int value(int piece, int sq) {
+        return VALUE[piece - 1][sq];
+    }
+
+    /** Computes the total from scratch; used when a position is set up, not during play. */
+    public static int compute(int black, int white, int kings) {
+        return sum(VALUE[Board.BLACK_MAN - 1], black & ~kings)
+                + sum(VALUE[Board.BLACK_KING - 1], black & kings)
+                + sum(VALUE[Board.WHITE_MAN - 1], white & ~kings)
+                + sum(VALUE[Board.WHITE_KING - 1], white & kings);
+    }
+
+    static int sum(int[] values, int squares) {
+        int total = 0;
+        for (int bits = squares; bits != 0; bits &= bits - 1) {
+            total += values[Integer.numberOfTrailingZeros(bits)];
+        }
+        return total;
+    }
+}
@@ -0,0 +1,98 @@
+package checkers.core;
+
+/**
+ * Geometry of the 32 playable squares.
+ * <p>
+ * Internal square indices run from 0 to 31 and map to standard checkers
+ * numbering as {@code index + 1}. Row 0 holds squares 1-4 (black's back
+ * rank), row 7 holds squares 29-32 (white's back rank). On even rows the
+ * playable squares sit on odd columns, on odd rows on even columns.
+ */
+public final class Squares {
+
+    public static final int COUNT = 32;
+
+    /** Squares on which a black man is promoted (29-32). */
+    public static final int BLACK_PROMOTION = 0xF0000000;
+    /** Squares on which a white man is promoted (1-4). */
+    public static final int WHITE_PROMOTION = 0x0000000F;
+
+    /** Diagonal directions; white men move up (0, 1), black men down (2, 3). */
+    public static final int UP_LEFT = 0;
+    public static final int UP_RIGHT = 1;
+    public static final int DOWN_LEFT = 2;
+    public static final int DOWN_RIGHT = 3;
+
+    /** Neighbouring square in each direction, or -1 off the board. */
+    static final int[][] STEP = new int[4][COUNT];
+    /** Landing square of a jump in each direction, or -1 off the board. */
+    static final int[][] JUMP = new int[4][COUNT];
+
+    private static final int[] ROW_DELTA = {-1, -1, 1, 1};
+    private static final int[] COLUMN_DELTA = {-1, 1, -1, 1};
+
+    static {
+        for (int dir = 0; dir < 4; dir++) {
+            for (int sq = 0; sq < COUNT; sq++) {
+                int row = row(sq);
+                int col = column(sq);
+                STEP[dir][sq] = at(row + ROW_DELTA[dir], col + COLUMN_DELTA[dir]);
+                JUMP[dir][sq] = at(row + 2 * ROW_DELTA[dir], col + 2 * COLUMN_DELTA[dir]);
+            }
+        }
+    }
+
+    private Squares() {
+    }
+
+    public static int step(int dir, int sq) {
+        return STEP[dir][sq];
+    }
+
+    public static int jump(int dir, int sq) {
+        return JUMP[dir][sq];
+    }
+
+    public static int row(int sq) {
+        return sq >>> 2;
+    }
+
+    public static int column(int sq) {
+        int row = sq >>> 2;
+        return ((sq & 3) << 1) + ((row & 1) == 0 ? 1 : 0);
+    }
+
+    /**
+     * Returns the square index at the given row and column, or -1 if that
+     * board cell is not a playable (dark) square.
+     */
+    public static int at(int row, int column) {
+        if (row < 0 || row > 7 || column < 0 || column > 7 || ((row + column) & 1) == 0) {
+            return -1;
+        }
+        return (row << 2) + (column >>> 1);
+    }
+
+    /** Standard 1-based square number. */
+    public static int number(int sq) {
+        return sq + 1;
+    }
+
+    /** Parses a 1-based square number into an internal index. */
+    public static int parse(String text) {
+        int number;
+        try {
+            number = Integer.parseInt(text.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a square number: " + text);
+        }
+        if (number < 1 || number > COUNT) {
+            throw new IllegalArgumentException("Square out of range: " + text);
+        }
+        return number - 1;
+    }
+
+    public static int bit(int sq) {
+        return 1 << sq;
+    }
+}
@@ -0,0 +1,66 @@
+package checkers.core;
+
+/**
+ * Zobrist keys for positions.
+ * <p>
+ * Every (piece, square) pair and the side to move get a fixed random 64-bit
+ * key; a position's key is the XOR of the keys of its pieces, plus
+ * {@link #BLACK_TO_MOVE} when black is on move. {@link Board} keeps its key
+ * current by XOR-ing in only the squares a move touches.
+ * <p>
+ * The keys come from a fixed-seed SplitMix64 sequence, so they are identical
+ * across runs and JVMs and may be stored in files such as opening books.
+ */
+public final class Zobrist {
+
+    static final long[][] PIECE_SQUARE = new long[4][Squares.COUNT];
+    public static final long BLACK_TO_MOVE;
+
+    static {
+        long state = 0x436865636B657273L;
+        for (int piece = 0; piece < 4; piece++) {
+            for (int sq = 0; sq < Squares.COUNT; sq++) {
+                state += 0x9E3779B97F4A7C15L;
+                PIECE_SQUARE[piece][sq] = mix(state);
+            }
+        }
+        state += 0x9E3779B97F4A7C15L;
+        BLACK_TO_MOVE = mix(state);
+    }
+
+    private Zobrist() {
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /** Key of {@code piece} (one of the {@link Board} piece constants) on {@code sq}. */
+    public static long key(int piece, int sq) {
+        return PIECE_SQUARE[piece - 1][sq];
+    }
+
+    /** Computes a key from scratch; used when a position is set up, not during play. */
+    public static long compute(Board board) {
+        return compute(board.black(), board.white(), board.kings(), board.sideToMove());
+    }
+
+    public static long compute(int black, int white, int kings, int side) {
+        long key = side == Board.BLACK ? BLACK_TO_MOVE : 0L;
+        key ^= xorAll(PIECE_SQUARE[Board.BLACK_MAN - 1], black & ~kings);
+        key ^= xorAll(PIECE_SQUARE[Board.BLACK_KING - 1], black & kings);
+        key ^= xorAll(PIECE_SQUARE[Board.WHITE_MAN - 1], white & ~kings);
+        key ^= xorAll(PIECE_SQUARE[Board.WHITE_KING - 1], white & kings);
+        return key;
+    }
+
+    static long xorAll(long[] keys, int squares) {
+        long key = 0;
+        for (int bits = squares; bits != 0; bits &= bits - 1) {
+            key ^= keys[Integer.numberOfTrailingZeros(bits)];
+        }
+        return key;
+    }
+}
@@ -0,0 +1,19 @@
+package checkers.eval;
+
+/**
+ * An evaluator that can also score many positions in one call, which lets
+ * it work on several positions at once with vector instructions. Each
+ * score must equal what {@link Evaluator#evaluate} returns for the same
+ * position.
+ */
+public interface BatchEvaluator extends Evaluator {
+
+    /** Scores every position in {@code leaves}, read back with {@link LeafBatch#score(int)}. */
+    void evaluate(LeafBatch leaves);
+
+    /**
+     * The fewest positions for which one batch call is faster than scoring
+     * them one by one; above {@link LeafBatch#CAPACITY} if it never is.
+     */
+    int minimumBatch();
+}
@@ -0,0 +1,14 @@
+package checkers.eval;
+
+import checkers.core.Board;
+
+/**
+ * Static evaluation of a position.
+ * <p>
+ * Scores are in centi-men from the point of view of the side to move:
+ * positive means the side to move stands better.
+ */
+public interface Evaluator {
+
+    int evaluate(Board board);
+}
@@ -0,0 +1,73 @@
+package checkers.eval;
+
+import checkers.core.Board;
+import checkers.core.MoveGenerator;
+
+/**
+ * Positions collected for one call of a {@link BatchEvaluator}, stored as
+ * parallel int arrays (one per bitboard) so a vector kernel can load the
+ * same field of several positions into one register.
+ * <p>
+ * Holds up to {@link #CAPACITY} positions, enough for every child of a
+ * node. The arrays are padded to a multiple of the widest vector, so
+ * kernels may process whole vectors past {@link #size()}; the scores of
+ * those extra lanes are meaningless.
+ */
+public final class LeafBatch {
+
+    public static final int CAPACITY = MoveGenerator.MAX_MOVES;
+    /** Ints in the widest vector a kernel may use (512 bits). */
+    static final int LANES = 16;
+
+    final int[] black;
+    final int[] white;
+    final int[] kings;
+    final int[] side;
+    final int[] psq;
+    final int[] scores;
+    int size;
+
+    public LeafBatch() {
+        int length = (CAPACITY + LANES - 1) / LANES * LANES;
+        black = new int[length];
+        white = new int[length];
+        kings = new int[length];
+        side = new int[length];
+        psq = new int[length];
+        scores = new int[length];
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Appends the current position of {@code board} and returns its index.
+     *
+     * @throws IllegalStateException if the batch is full
+     */
+    public int add(Board board) {
+        if (size == CAPACITY) {
+            throw new IllegalStateException("Batch is full");
+        }
+        int i = size++;
+        black[i] = board.black();
+        white[i] = board.white();
+        kings[i] = board.kings();
+        side[i] = board.sideToMove();
+        psq[i] = board.psq();
+        return i;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** Score of position {@code i} for its side to move, once the batch has been evaluated. */
+    public int score(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Position " + i + " of " + size);
+        }
+        return scores[i];
+    }
+}
@@ -0,0 +1,20 @@
+package checkers.eval;
+
+import checkers.core.Board;
+
+/** Counts material only: a man is worth 100, a king {@link #KING}. */
+public final class MaterialEvaluator implements Evaluator {
+
+    public static final int MAN = 100;
+    public static final int KING = 130;
+
+    @Override
+    public int evaluate(Board board) {
+        int kings = board.kings();
+        int black = board.black();
+        int white = board.white();
+        int score = MAN * (Integer.bitCount(black & ~kings) - Integer.bitCount(white & ~kings))
+                + KING * (Integer.bitCount(black & kings) - Integer.bitCount(white & kings));
+        return board.sideToMove() == Board.BLACK ? score : -score;
+    }
+}
@@ -0,0 +1,127 @@
+package checkers.eval;
+
+import checkers.core.Board;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+
+/**
+ * Evaluation by a quantised {@link NnueNetwork}.
+ * <p>
+ * The first layer is the expensive one, a sum of {@code hidden} weights per
+ * piece for each side. The evaluator keeps both sums (the accumulators)
+ * for the position it last evaluated; for the next position it subtracts
+ * the weights of pieces that disappeared and adds those of pieces that
+ * appeared. Consecutive leaves of a search differ by a move or two, so an
+ * evaluation usually touches a handful of weight rows rather than one per
+ * piece, and never allocates.
+ * <p>
+ * Not thread-safe: each search thread needs its own evaluator, which
+ * {@link checkers.search.ParallelSearch} provides by taking a supplier.
+ * The network itself is shared.
+ */
+public final class NnueEvaluator implements Evaluator {
+
+    /** System property naming the network file for the no-argument constructor. */
+    public static final String NETWORK_PROPERTY = "checkers.nnue";
+
+    private final NnueNetwork network;
+    private final NnueKernel kernel;
+    /** Accumulators seen from black and from white. */
+    private final short[][] accumulators;
+    private final byte[] clipped;
+
+    // Pieces of the position the accumulators describe.
+    private int blackMen;
+    private int blackKings;
+    private int whiteMen;
+    private int whiteKings;
+
+    public NnueEvaluator(NnueNetwork network) {
+        this.network = network;
+        this.kernel = NnueKernel.best();
+        this.accumulators = new short[2][network.hidden];
+        this.clipped = new byte[2 * network.hidden];
+        for (short[] acc : accumulators) {
+            System.arraycopy(network.featureBias, 0, acc, 0, acc.length);
+        }
+    }
+
+    /**
+     * Loads the network named by the {@value #NETWORK_PROPERTY} system
+     * property, for tools that create evaluators by class name.
+     *
+     * @throws IllegalStateException if the property is not set
+     * @throws UncheckedIOException if the network cannot be read
+     */
+    public NnueEvaluator() {
+        this(loadFromProperty());
+    }
+
+    private static NnueNetwork loadFromProperty() {
+        String file = System.getProperty(NETWORK_PROPERTY);
+        if (file == null) {
+            throw new IllegalStateException("Set -D" + NETWORK_PROPERTY + "=FILE to choose a network");
+        }
+        try {
+            return NnueNetwork.load(Paths.get(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public int evaluate(Board board) {
+        int kings = board.kings();
+        update(board.black() & ~kings, board.black() & kings, board.white() & ~kings, board.white() & kings);
+
+        int hidden = network.hidden;
+        int us = board.sideToMove();
+        kernel.clip(accumulators[us], clipped, 0);
+        kernel.clip(accumulators[us ^ 1], clipped, hidden);
+
+        byte[] dense = network.denseWeights;
+        byte[] output = network.outputWeights;
+        long sum = network.outputBias;
+        for (int j = 0; j < network.hidden2; j++) {
+            int unit = (network.denseBias[j] + kernel.dot(clipped, dense, j * 2 * hidden)) >> NnueNetwork.DENSE_SHIFT;
+            sum += (long) output[j] * Math.max(0, Math.min(127, unit));
+        }
+        return (int) ((sum * network.outputScale) >> NnueNetwork.OUTPUT_SHIFT);
+    }
+
+    private void update(int bm, int bk, int wm, int wk) {
+        change(blackMen & ~bm, Board.BLACK, false, false);
+        change(blackKings & ~bk, Board.BLACK, true, false);
+        change(whiteMen & ~wm, Board.WHITE, false, false);
+        change(whiteKings & ~wk, Board.WHITE, true, false);
+        change(bm & ~blackMen, Board.BLACK, false, true);
+        change(bk & ~blackKings, Board.BLACK, true, true);
+        change(wm & ~whiteMen, Board.WHITE, false, true);
+        change(wk & ~whiteKings, Board.WHITE, true, true);
+        blackMen = bm;
+        blackKings = bk;
+        whiteMen = wm;
+        whiteKings = wk;
+    }
+
+    /** Adds or removes pieces of one kind in both accumulators. */
+    private void change(int squares, int color, boolean king, boolean add) {
+        short[] weights = network.featureWeights;
+        int hidden = network.hidden;
+        for (int bits = squares; bits != 0; bits &= bits - 1) {
+            int sq = Integer.numberOfTrailingZeros(bits);
+            for (int view = Board.BLACK; view <= Board.WHITE; view++) {
+                // Each side sees the board from its own back rank.
+                int turned = view == Board.BLACK ? sq : 31 - sq;
+                int offset = NnueNetwork.feature(color == view, king, turned) * hidden;
+                if (add) {
+                    kernel.add(accumulators[view], weights, offset);
+                } else {
+                    kernel.subtract(accumulators[view], weights, offset);
+                }
+            }
+        }
+    }
+}
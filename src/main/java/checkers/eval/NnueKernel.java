@@ -0,0 +1,45 @@
+package checkers.eval;
+
+/**
+ * The integer loops of network inference. {@link #best()} returns a
+ * {@code jdk.incubator.vector} implementation when that module is present
+ * and the CPU has wide enough vectors, otherwise plain Java loops. Array
+ * lengths are multiples of {@link NnueNetwork#ALIGNMENT}.
+ */
+interface NnueKernel {
+
+    String name();
+
+    /** Adds {@code acc.length} weights starting at {@code offset} to {@code acc}. */
+    void add(short[] acc, short[] weights, int offset);
+
+    void subtract(short[] acc, short[] weights, int offset);
+
+    /** Writes {@code acc} clipped to 0..127 into {@code out} from {@code offset}. */
+    void clip(short[] acc, byte[] out, int offset);
+
+    /** Sum of {@code in[i] * weights[offset + i]} over all of {@code in}. */
+    int dot(byte[] in, byte[] weights, int offset);
+
+    static NnueKernel best() {
+        return Holder.BEST;
+    }
+
+    final class Holder {
+
+        static final NnueKernel BEST = load();
+
+        private Holder() {
+        }
+
+        private static NnueKernel load() {
+            try {
+                // Compiled from src/vector/java only where the incubator module is available.
+                return (NnueKernel) Class.forName("checkers.eval.VectorNnueKernel")
+                        .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError | UnsupportedOperationException e) {
+                return new ScalarNnueKernel();
+            }
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package checkers.eval;
+
+import checkers.core.Board;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Quantised weights of the network behind {@link NnueEvaluator}.
+ * Immutable once loaded, so one instance can serve every search thread.
+ * <p>
+ * The network has {@value #FEATURES} inputs, one per (piece kind, square)
+ * pair seen from one side: own man, own king, opposing man, opposing king,
+ * each on 32 squares turned so the side's own back rank is row 0. Its
+ * layers are
+ * <ol>
+ * <li>a feature transformer to {@code hidden} int16 units, evaluated once
+ *     per side (the accumulator {@link NnueEvaluator} keeps up to date);</li>
+ * <li>both accumulators, side to move first, clipped to 0..127 as int8 and
+ *     fed through an int8 dense layer to {@code hidden2} units; each sum is
+ *     shifted right by 6 and clipped to 0..127;</li>
+ * <li>an int8 output unit; the score in centi-men for the side to move is
+ *     its sum times {@code outputScale}, shifted right by 12.</li>
+ * </ol>
+ * The file is big-endian: the magic {@code CKNN}, version, feature count,
+ * {@code hidden}, {@code hidden2} and {@code outputScale} as ints, then
+ * feature weights (int16, {@code hidden} per feature), feature biases
+ * (int16), dense weights (int8, {@code 2 * hidden} per unit), dense biases
+ * (int32), output weights (int8) and the output bias (int32). Networks are
+ * trained elsewhere; {@link #material()} builds a small exact one for
+ * testing the pipeline.
+ * <p>
+ * Usage: {@code java checkers.eval.NnueNetwork --material FILE} writes that
+ * network; {@code java checkers.eval.NnueNetwork FILE [FEN]} describes a
+ * network and evaluates a position with it.
+ */
+public final class NnueNetwork {
+
+    static final int MAGIC = 0x434B4E4E;
+    static final int VERSION = 1;
+    public static final int FEATURES = 128;
+    /** Hidden sizes are kept to multiples of this so vector loops need no tail. */
+    static final int ALIGNMENT = 32;
+    static final int DENSE_SHIFT = 6;
+    static final int OUTPUT_SHIFT = 12;
+
+    final int hidden;
+    final int hidden2;
+    final int outputScale;
+    final short[] featureWeights;
+    final short[] featureBias;
+    final byte[] denseWeights;
+    final int[] denseBias;
+    final byte[] outputWeights;
+    final int outputBias;
+
+    NnueNetwork(int hidden, int hidden2, int outputScale, short[] featureWeights, short[] featureBias,
+                byte[] denseWeights, int[] denseBias, byte[] outputWeights, int outputBias) {
+        if (hidden <= 0 || hidden % ALIGNMENT != 0) {
+            throw new IllegalArgumentException("Hidden size must be a positive multiple of " + ALIGNMENT
+                    + ": " + hidden);
+        }
+        if (hidden2 <= 0) {
+            throw new IllegalArgumentException("Second hidden size must be positive: " + hidden2);
+        }
+        if (featureWeights.length != FEATURES * hidden || featureBias.length != hidden
+                || denseWeights.length != 2 * hidden * hidden2 || denseBias.length != hidden2
+                || outputWeights.length != hidden2) {
+            throw new IllegalArgumentException("Weight arrays do not match the layer sizes");
+        }
+        this.hidden = hidden;
+        this.hidden2 = hidden2;
+        this.outputScale = outputScale;
+        this.featureWeights = featureWeights;
+        this.featureBias = featureBias;
+        this.denseWeights = denseWeights;
+        this.denseBias = denseBias;
+        this.outputWeights = outputWeights;
+        this.outputBias = outputBias;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 2 && args[0].equals("--material")) {
+            material().save(Paths.get(args[1]));
+            return;
+        }
+        if (args.length < 1 || args.length > 2 || args[0].startsWith("--")) {
+            System.err.println("Usage: NnueNetwork --material FILE");
+            System.err.println("       NnueNetwork FILE [FEN]");
+            System.exit(2);
+        }
+        NnueNetwork network = load(Paths.get(args[0]));
+        Board board = args.length == 2 ? Board.fromFen(args[1]) : Board.initial();
+        System.out.printf("%d-%d-%d-1 network, %s kernel%n", FEATURES, network.hidden, network.hidden2,
+                NnueKernel.best().name());
+        System.out.println(board.toFen() + "  " + new NnueEvaluator(network).evaluate(board));
+    }
+
+    public int hidden() {
+        return hidden;
+    }
+
+    public int hidden2() {
+        return hidden2;
+    }
+
+    /**
+     * Reads a network written by {@link #save(Path)} or a trainer using the
+     * same format.
+     */
+    public static NnueNetwork load(Path file) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(file));
+        try {
+            if (in.getInt() != MAGIC) {
+                throw new IOException("Not a network file: " + file);
+            }
+            int version = in.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported network version " + version + ": " + file);
+            }
+            int features = in.getInt();
+            if (features != FEATURES) {
+                throw new IOException("Network has " + features + " inputs, expected " + FEATURES + ": " + file);
+            }
+            int hidden = in.getInt();
+            int hidden2 = in.getInt();
+            int outputScale = in.getInt();
+            if (hidden <= 0 || hidden % ALIGNMENT != 0 || hidden2 <= 0) {
+                throw new IOException("Corrupt network layer sizes: " + file);
+            }
+            // Checked before allocating, so a corrupt header cannot ask for gigabytes.
+            long bytes = 2L * FEATURES * hidden + 2L * hidden + 2L * hidden * hidden2
+                    + 4L * hidden2 + hidden2 + 4;
+            if (bytes > in.remaining()) {
+                throw new IOException("Truncated network file: " + file);
+            }
+            short[] featureWeights = new short[FEATURES * hidden];
+            in.asShortBuffer().get(featureWeights);
+            in.position(in.position() + 2 * featureWeights.length);
+            short[] featureBias = new short[hidden];
+            in.asShortBuffer().get(featureBias);
+            in.position(in.position() + 2 * hidden);
+            byte[] denseWeights = new byte[2 * hidden * hidden2];
+            in.get(denseWeights);
+            int[] denseBias = new int[hidden2];
+            in.asIntBuffer().get(denseBias);
+            in.position(in.position() + 4 * hidden2);
+            byte[] outputWeights = new byte[hidden2];
+            in.get(outputWeights);
+            int outputBias = in.getInt();
+            if (in.hasRemaining()) {
+                throw new IOException("Trailing bytes after network: " + file);
+            }
+            return new NnueNetwork(hidden, hidden2, outputScale, featureWeights, featureBias,
+                    denseWeights, denseBias, outputWeights, outputBias);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated network file: " + file);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage() + ": " + file);
+        }
+    }
+
+    public void save(Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (OutputStream stream = Files.newOutputStream(temp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(FEATURES);
+            out.writeInt(hidden);
+            out.writeInt(hidden2);
+            out.writeInt(outputScale);
+            for (short w : featureWeights) {
+                out.writeShort(w);
+            }
+            for (short b : featureBias) {
+                out.writeShort(b);
+            }
+            out.write(denseWeights);
+            for (int b : denseBias) {
+                out.writeInt(b);
+            }
+            out.write(outputWeights);
+            out.writeInt(outputBias);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /** Input index of a piece of the given kind on {@code sq}, both already turned to one side's view. */
+    static int feature(boolean own, boolean king, int sq) {
+        return ((own ? 0 : 2) + (king ? 1 : 0)) * 32 + sq;
+    }
+
+    /**
+     * The smallest network that scores exactly material: 100 a man, 125 a
+     * king. The first accumulator unit counts the side's own material, the
+     * dense layer splits the difference into its positive and negative
+     * part, and the output recombines them.
+     */
+    public static NnueNetwork material() {
+        int hidden = ALIGNMENT;
+        int hidden2 = 2;
+        short[] featureWeights = new short[FEATURES * hidden];
+        for (int sq = 0; sq < 32; sq++) {
+            featureWeights[feature(true, false, sq) * hidden] = 8;
+            featureWeights[feature(true, true, sq) * hidden] = 10;
+        }
+        byte[] dense = new byte[2 * hidden * hidden2];
+        dense[0] = 1 << DENSE_SHIFT;
+        dense[hidden] = -(1 << DENSE_SHIFT);
+        dense[2 * hidden] = -(1 << DENSE_SHIFT);
+        dense[2 * hidden + hidden] = 1 << DENSE_SHIFT;
+        byte[] output = {1 << DENSE_SHIFT, -(1 << DENSE_SHIFT)};
+        // 8 per man times 64 makes 512 per man; 512 * 800 >> 12 = 100.
+        return new NnueNetwork(hidden, hidden2, 800, featureWeights, new short[hidden], dense,
+                new int[hidden2], output, 0);
+    }
+}
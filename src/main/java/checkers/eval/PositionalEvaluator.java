@@ -0,0 +1,168 @@
+package checkers.eval;
+
+import checkers.core.Board;
+import checkers.core.PieceSquare;
+import checkers.core.Squares;
+
+/**
+ * Evaluation by material, placement, back rank, mobility and runaway men.
+ * <p>
+ * Material and placement, the largest terms, come from the
+ * {@link PieceSquare} total the board keeps up to date in make/unmake.
+ * The remaining terms are computed from the bitboards with shifts and
+ * population counts rather than by visiting pieces:
+ * <ul>
+ * <li>back rank: men still guarding their own king row, worth
+ *     {@link #BACK_RANK} each while the opponent has men left to crown;</li>
+ * <li>mobility: {@link #MOBILITY} per non-capturing move available;</li>
+ * <li>runaway men: a man at most three rows from promotion with no
+ *     opposing piece anywhere in its forward cone, against an opponent
+ *     without kings, is worth {@link #RUNAWAY} less
+ *     {@link #RUNAWAY_PER_ROW} for each row beyond the first still to
+ *     go.</li>
+ * </ul>
+ * <p>
+ * As a {@link BatchEvaluator} it scores a whole batch of leaves with the
+ * fastest {@link PositionalKernel} available, on several positions per
+ * instruction where the Vector API is enabled.
+ */
+public final class PositionalEvaluator implements BatchEvaluator {
+
+    public static final int BACK_RANK = 6;
+    public static final int MOBILITY = 2;
+    public static final int RUNAWAY = 40;
+    public static final int RUNAWAY_PER_ROW = 10;
+
+    static final int BLACK_BACK_RANK = 0x0000000F;
+    static final int WHITE_BACK_RANK = 0xF0000000;
+    /** Rows 4-6 for black and 1-3 for white: within three rows of promotion. */
+    static final int[] RUNAWAY_ROWS = {0x0FFF0000, 0x0000FFF0};
+
+    /**
+     * A square's neighbour in each direction is one of two fixed index
+     * offsets, depending on the row; {@code STEP_MASK} selects the squares
+     * each offset applies to.
+     */
+    static final int[][] STEP_SHIFT = new int[4][2];
+    static final int[][] STEP_MASK = new int[4][2];
+    /** Squares a man of each colour on each square could still walk to. */
+    static final int[][] CONE = new int[2][Squares.COUNT];
+
+    static {
+        for (int dir = 0; dir < 4; dir++) {
+            for (int sq = 0; sq < Squares.COUNT; sq++) {
+                int to = Squares.step(dir, sq);
+                if (to < 0) {
+                    continue;
+                }
+                int delta = to - sq;
+                int g = STEP_MASK[dir][0] == 0 || STEP_SHIFT[dir][0] == delta ? 0 : 1;
+                STEP_SHIFT[dir][g] = delta;
+                STEP_MASK[dir][g] |= 1 << sq;
+            }
+        }
+        // Black walks towards higher rows, so its cones fill from the far end.
+        for (int sq = Squares.COUNT - 1; sq >= 0; sq--) {
+            CONE[Board.BLACK][sq] = cone(CONE[Board.BLACK], sq, Squares.DOWN_LEFT);
+        }
+        for (int sq = 0; sq < Squares.COUNT; sq++) {
+            CONE[Board.WHITE][sq] = cone(CONE[Board.WHITE], sq, Squares.UP_LEFT);
+        }
+    }
+
+    private static int cone(int[] cones, int sq, int firstDir) {
+        int cone = 0;
+        for (int dir = firstDir; dir <= firstDir + 1; dir++) {
+            int to = Squares.step(dir, sq);
+            if (to >= 0) {
+                cone |= (1 << to) | cones[to];
+            }
+        }
+        return cone;
+    }
+
+    private final PositionalKernel kernel = PositionalKernel.best();
+
+    @Override
+    public int evaluate(Board board) {
+        return score(board.black(), board.white(), board.kings(), board.sideToMove(), board.psq());
+    }
+
+    @Override
+    public void evaluate(LeafBatch leaves) {
+        kernel.evaluate(leaves);
+    }
+
+    @Override
+    public int minimumBatch() {
+        return kernel.minimumBatch();
+    }
+
+    /** Name of the batch kernel in use, "vector" or "scalar". */
+    public String kernel() {
+        return kernel.name();
+    }
+
+    static int score(int black, int white, int kings, int side, int psq) {
+        int empty = ~(black | white);
+        int blackMen = black & ~kings;
+        int whiteMen = white & ~kings;
+
+        int score = psq;
+        if (whiteMen != 0) {
+            score += BACK_RANK * Integer.bitCount(blackMen & BLACK_BACK_RANK);
+        }
+        if (blackMen != 0) {
+            score -= BACK_RANK * Integer.bitCount(whiteMen & WHITE_BACK_RANK);
+        }
+        score += MOBILITY * (mobility(blackMen, black & kings, empty, Squares.DOWN_LEFT)
+                - mobility(whiteMen, white & kings, empty, Squares.UP_LEFT));
+        if ((white & kings) == 0) {
+            score += runaways(blackMen, white, Board.BLACK);
+        }
+        if ((black & kings) == 0) {
+            score -= runaways(whiteMen, black, Board.WHITE);
+        }
+        return side == Board.BLACK ? score : -score;
+    }
+
+    /** Non-capturing moves of men moving in {@code firstDir} and the next direction, and of kings. */
+    static int mobility(int men, int kings, int empty, int firstDir) {
+        int count = 0;
+        for (int dir = 0; dir < 4; dir++) {
+            int movers = dir == firstDir || dir == firstDir + 1 ? men | kings : kings;
+            count += Integer.bitCount(step(movers, dir) & empty);
+        }
+        return count;
+    }
+
+    /** The squares one step from each of {@code squares} in direction {@code dir}. */
+    static int step(int squares, int dir) {
+        int[] shift = STEP_SHIFT[dir];
+        int[] mask = STEP_MASK[dir];
+        return shift(squares & mask[0], shift[0]) | shift(squares & mask[1], shift[1]);
+    }
+
+    private static int shift(int squares, int delta) {
+        return delta >= 0 ? squares << delta : squares >>> -delta;
+    }
+
+    /** Runaway bonus of {@code men}; only men near promotion are looked at. */
+    private static int runaways(int men, int opponents, int color) {
+        int bonus = 0;
+        int[] cones = CONE[color];
+        for (int bits = men & RUNAWAY_ROWS[color]; bits != 0; bits &= bits - 1) {
+            int sq = Integer.numberOfTrailingZeros(bits);
+            if ((cones[sq] & opponents) == 0) {
+                bonus += runaway(sq, color);
+            }
+        }
+        return bonus;
+    }
+
+    /** Bonus of a runaway man of {@code color} on {@code sq}. */
+    static int runaway(int sq, int color) {
+        int rowsToGo = color == Board.BLACK ? 7 - Squares.row(sq) : Squares.row(sq);
+        return RUNAWAY - RUNAWAY_PER_ROW * (rowsToGo - 1);
+    }
+}
@@ -0,0 +1,40 @@
+package checkers.eval;
+
+/**
+ * The batch form of {@link PositionalEvaluator}. {@link #best()} returns a
+ * {@code jdk.incubator.vector} implementation that scores a vector's worth
+ * of positions per pass when that module is present and the CPU has wide
+ * enough vectors, otherwise a loop over the scalar evaluation.
+ */
+interface PositionalKernel {
+
+    String name();
+
+    /** Writes the score of each position in {@code leaves} to its {@code scores}. */
+    void evaluate(LeafBatch leaves);
+
+    /** See {@link BatchEvaluator#minimumBatch()}. */
+    int minimumBatch();
+
+    static PositionalKernel best() {
+        return Holder.BEST;
+    }
+
+    final class Holder {
+
+        static final PositionalKernel BEST = load();
+
+        private Holder() {
+        }
+
+        private static PositionalKernel load() {
+            try {
+                // Compiled from src/vector/java only where the incubator module is available.
+                return (PositionalKernel) Class.forName("checkers.eval.VectorPositionalKernel")
+                        .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError | UnsupportedOperationException e) {
+                return new ScalarPositionalKernel();
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package checkers.eval;
+
+/** {@link NnueKernel} in plain loops, which the JIT may still auto-vectorise. */
+final class ScalarNnueKernel implements NnueKernel {
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+
+    @Override
+    public void add(short[] acc, short[] weights, int offset) {
+        for (int i = 0; i < acc.length; i++) {
+            acc[i] += weights[offset + i];
+        }
+    }
+
+    @Override
+    public void subtract(short[] acc, short[] weights, int offset) {
+        for (int i = 0; i < acc.length; i++) {
+            acc[i] -= weights[offset + i];
+        }
+    }
+
+    @Override
+    public void clip(short[] acc, byte[] out, int offset) {
+        for (int i = 0; i < acc.length; i++) {
+            out[offset + i] = (byte) Math.max(0, Math.min(127, acc[i]));
+        }
+    }
+
+    @Override
+    public int dot(byte[] in, byte[] weights, int offset) {
+        int sum = 0;
+        for (int i = 0; i < in.length; i++) {
+            sum += in[i] * weights[offset + i];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,24 @@
+package checkers.eval;
+
+/** {@link PositionalKernel} scoring one position at a time. */
+final class ScalarPositionalKernel implements PositionalKernel {
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+
+    /** A loop over the scalar evaluation saves nothing. */
+    @Override
+    public int minimumBatch() {
+        return LeafBatch.CAPACITY + 1;
+    }
+
+    @Override
+    public void evaluate(LeafBatch leaves) {
+        for (int i = 0; i < leaves.size; i++) {
+            leaves.scores[i] = PositionalEvaluator.score(leaves.black[i], leaves.white[i], leaves.kings[i],
+                    leaves.side[i], leaves.psq[i]);
+        }
+    }
+}
@@ -0,0 +1,534 @@
+package checkers.journal;
+
+import checkers.core.Board;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Durable record of the games a server is hosting, kept as an append-only
+ * event log plus periodic snapshots in one directory.
+ * <p>
+ * Every game creation, move and result is appended as a checksummed record
+ * to the current segment file ({@code journal-SEQ.log}). Appending only
+ * copies the record into memory; one writer thread writes whatever has
+ * accumulated and forces it to disk with a single {@code fsync}, so games
+ * moving at the same time share the cost of a sync. Callers that must not
+ * acknowledge a move before it is safe wait for it with
+ * {@link #awaitDurable(long)}.
+ * <p>
+ * The journal also keeps the current position of every unfinished game.
+ * After {@link #SNAPSHOT_RECORDS} records it writes those positions to
+ * {@code snapshot-SEQ.bin}, starts a new segment and deletes the older
+ * ones, so the log never holds more than a snapshot interval of moves.
+ * {@link #open(Path)} loads the newest snapshot and replays only the
+ * records after it. A record torn by a crash fails its checksum and is cut
+ * off together with everything after it; it was never reported durable.
+ */
+public final class GameJournal implements Closeable {
+
+    static final int SEGMENT_MAGIC = 0x434B4A4C;   // "CKJL"
+    static final int SNAPSHOT_MAGIC = 0x434B534E;  // "CKSN"
+    static final int VERSION = 1;
+    static final int SEGMENT_HEADER = 16;
+
+    /** Records between snapshots. */
+    public static final int SNAPSHOT_RECORDS = 1 << 16;
+    /** A segment is rolled over once it grows past this. */
+    static final long SEGMENT_BYTES = 16L << 20;
+
+    /** Length, checksum, header and the largest body (a result of up to 255 bytes). */
+    static final int MAX_RECORD = 8 + 17 + 256;
+
+    static final byte CREATED = 1;
+    static final byte MOVED = 2;
+    static final byte ENDED = 3;
+
+    private final Path directory;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    private final Condition synced = lock.newCondition();
+    private final Map<Long, JournaledGame> games = new HashMap<>();
+    private final CRC32 crc = new CRC32();
+    private final Thread writer;
+
+    // Guarded by lock.
+    private ByteBuffer pending = ByteBuffer.allocate(1 << 16);
+    private ByteBuffer spare = ByteBuffer.allocate(1 << 16);
+    private int recordStart;
+    private long appendedSeq;
+    private long durableSeq;
+    private long nextGameId = 1;
+    private IOException failure;
+    private boolean closing;
+
+    // Writer thread only, after construction.
+    private FileChannel segment;
+    private long snapshotSeq;
+
+    private GameJournal(Path directory) {
+        this.directory = directory;
+        this.writer = new Thread(this::writeLoop, "journal-writer");
+        this.writer.setDaemon(true);
+    }
+
+    /**
+     * Opens the journal in {@code directory}, creating it if needed, and
+     * recovers the unfinished games recorded there.
+     *
+     * @throws IOException if the directory cannot be used or a snapshot or
+     *         segment is not a journal file
+     */
+    public static GameJournal open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        GameJournal journal = new GameJournal(directory);
+        journal.recover();
+        journal.roll(journal.appendedSeq + 1);
+        journal.writer.start();
+        return journal;
+    }
+
+    /** Copies of the games that were unfinished at the last record. */
+    public Collection<JournaledGame> games() {
+        lock.lock();
+        try {
+            List<JournaledGame> copies = new ArrayList<>(games.size());
+            for (JournaledGame game : games.values()) {
+                copies.add(game.copy());
+            }
+            return copies;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** An id no game in this journal has used. */
+    public long nextGameId() {
+        lock.lock();
+        try {
+            return nextGameId;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Records a new game starting from the initial position; returns its sequence number. */
+    public long created(long game, int botColor, int botDepth) {
+        lock.lock();
+        try {
+            long seq = begin(CREATED, game);
+            pending.put((byte) botColor).put((byte) botDepth);
+            end();
+            applyCreated(game, botColor, botDepth);
+            return seq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Records a legal move played in {@code game}; returns its sequence number. */
+    public long moved(long game, long move) {
+        lock.lock();
+        try {
+            JournaledGame g = games.get(game);
+            if (g == null) {
+                throw new IllegalArgumentException("No game " + game + " in the journal");
+            }
+            long seq = begin(MOVED, game);
+            pending.putLong(move);
+            end();
+            g.play(move);
+            return seq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Records that {@code game} finished; it will not be recovered. */
+    public long ended(long game, String result) {
+        byte[] text = result.getBytes(StandardCharsets.US_ASCII);
+        lock.lock();
+        try {
+            long seq = begin(ENDED, game);
+            pending.put((byte) text.length).put(text);
+            end();
+            games.remove(game);
+            return seq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until the record {@code seq} and all before it are on disk.
+     *
+     * @throws IllegalStateException if the journal could not be written
+     */
+    public void awaitDurable(long seq) {
+        lock.lock();
+        try {
+            while (durableSeq < seq && failure == null) {
+                synced.awaitUninterruptibly();
+            }
+            if (durableSeq < seq) {
+                throw new IllegalStateException("Journal write failed: " + failure.getMessage(), failure);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Writes the outstanding records and a final snapshot, then stops the writer. */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closing) {
+                return;
+            }
+            closing = true;
+            appended.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            if (failure == null && appendedSeq > snapshotSeq) {
+                snapshot(encodeSnapshot(appendedSeq), appendedSeq);
+            }
+        } finally {
+            segment.close();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private long begin(byte type, long game) {
+        if (closing || failure != null) {
+            throw new IllegalStateException(closing ? "Journal is closed"
+                    : "Journal write failed: " + failure.getMessage(), failure);
+        }
+        if (pending.remaining() < MAX_RECORD) {
+            ByteBuffer bigger = ByteBuffer.allocate(pending.capacity() * 2);
+            pending.flip();
+            pending = bigger.put(pending);
+        }
+        long seq = ++appendedSeq;
+        recordStart = pending.position();
+        // Length and checksum are filled in by end().
+        pending.putInt(0).putInt(0).putLong(seq).put(type).putLong(game);
+        return seq;
+    }
+
+    private void end() {
+        int payload = recordStart + 8;
+        int length = pending.position() - payload;
+        crc.reset();
+        crc.update(pending.array(), payload, length);
+        pending.putInt(recordStart, length);
+        pending.putInt(recordStart + 4, (int) crc.getValue());
+        appended.signal();
+    }
+
+    private void applyCreated(long game, int botColor, int botDepth) {
+        games.put(game, new JournaledGame(game, botColor, botDepth, Board.initial(), new long[16], 0));
+        nextGameId = Math.max(nextGameId, game + 1);
+    }
+
+    private void writeLoop() {
+        while (true) {
+            ByteBuffer batch;
+            long upTo;
+            byte[] snapshot = null;
+            lock.lock();
+            try {
+                while (pending.position() == 0 && !closing) {
+                    appended.awaitUninterruptibly();
+                }
+                if (pending.position() == 0) {
+                    return;
+                }
+                batch = pending;
+                pending = spare;
+                spare = batch;
+                upTo = appendedSeq;
+                if (upTo - snapshotSeq >= SNAPSHOT_RECORDS) {
+                    snapshot = encodeSnapshot(upTo);
+                }
+            } finally {
+                lock.unlock();
+            }
+            try {
+                batch.flip();
+                while (batch.hasRemaining()) {
+                    segment.write(batch);
+                }
+                segment.force(false);
+                if (snapshot != null) {
+                    snapshot(snapshot, upTo);
+                } else if (segment.size() >= SEGMENT_BYTES) {
+                    roll(upTo + 1);
+                }
+            } catch (IOException e) {
+                lock.lock();
+                try {
+                    failure = e;
+                    synced.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                return;
+            } finally {
+                batch.clear();
+            }
+            lock.lock();
+            try {
+                durableSeq = upTo;
+                synced.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /** Encodes the unfinished games as of record {@code seq}. Called with the lock held. */
+    private byte[] encodeSnapshot(long seq) {
+        int size = 32;
+        for (JournaledGame game : games.values()) {
+            size += 36 + 8 * game.plies();
+        }
+        ByteBuffer out = ByteBuffer.allocate(size + 4);
+        out.putInt(SNAPSHOT_MAGIC).putInt(VERSION).putLong(seq).putLong(nextGameId).putInt(games.size());
+        for (JournaledGame game : games.values()) {
+            Board board = game.position();
+            out.putLong(game.id()).put((byte) game.botColor()).put((byte) game.botDepth())
+                    .putInt(board.black()).putInt(board.white()).putInt(board.kings())
+                    .put((byte) board.sideToMove()).putInt(board.quietPlies()).putInt(game.plies());
+            for (long move : game.moves()) {
+                out.putLong(move);
+            }
+        }
+        CRC32 sum = new CRC32();
+        sum.update(out.array(), 0, out.position());
+        out.putInt((int) sum.getValue());
+        return Arrays.copyOf(out.array(), out.position());
+    }
+
+    /**
+     * Makes {@code data} the current snapshot, then starts a segment after
+     * {@code seq} and deletes the files it supersedes.
+     */
+    private void snapshot(byte[] data, long seq) throws IOException {
+        Path file = directory.resolve(fileName("snapshot-", seq, ".bin"));
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            out.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        snapshotSeq = seq;
+        roll(seq + 1);
+        for (Map.Entry<Long, Path> old : list("journal-", ".log").entrySet()) {
+            if (old.getKey() <= seq) {
+                Files.delete(old.getValue());
+            }
+        }
+        for (Map.Entry<Long, Path> old : list("snapshot-", ".bin").entrySet()) {
+            if (old.getKey() < seq) {
+                Files.delete(old.getValue());
+            }
+        }
+    }
+
+    /** Closes the current segment and starts one whose first record is {@code firstSeq}. */
+    private void roll(long firstSeq) throws IOException {
+        if (segment != null) {
+            segment.close();
+        }
+        Path file = directory.resolve(fileName("journal-", firstSeq, ".log"));
+        segment = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER);
+        header.putInt(SEGMENT_MAGIC).putInt(VERSION).putLong(firstSeq).flip();
+        while (header.hasRemaining()) {
+            segment.write(header);
+        }
+        segment.force(true);
+    }
+
+    private void recover() throws IOException {
+        for (Path file : list("snapshot-", ".bin").descendingMap().values()) {
+            if (loadSnapshot(file)) {
+                break;
+            }
+        }
+        appendedSeq = snapshotSeq;
+        boolean torn = false;
+        for (Path file : list("journal-", ".log").values()) {
+            if (torn) {
+                // Written after a tear that was never reported durable.
+                Files.delete(file);
+            } else {
+                torn = !replay(file);
+            }
+        }
+        durableSeq = appendedSeq;
+    }
+
+    /** Returns false if the snapshot is damaged, e.g. by a crash while it was renamed. */
+    private boolean loadSnapshot(Path file) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(file));
+        // Header and checksum of a snapshot with no games.
+        if (in.remaining() < 32 || in.getInt(0) != SNAPSHOT_MAGIC) {
+            throw new IOException("Not a journal snapshot: " + file);
+        }
+        if (in.getInt(4) != VERSION) {
+            throw new IOException("Unsupported journal version " + in.getInt(4) + ": " + file);
+        }
+        CRC32 sum = new CRC32();
+        sum.update(in.array(), 0, in.limit() - 4);
+        if ((int) sum.getValue() != in.getInt(in.limit() - 4)) {
+            return false;
+        }
+        in.position(8);
+        long seq = in.getLong();
+        long nextId = in.getLong();
+        int count = in.getInt();
+        Map<Long, JournaledGame> loaded = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            long id = in.getLong();
+            int botColor = in.get();
+            int botDepth = in.get();
+            Board board = new Board(in.getInt(), in.getInt(), in.getInt(), in.get());
+            board.setQuietPlies(in.getInt());
+            int plies = in.getInt();
+            long[] moves = new long[Math.max(16, plies)];
+            for (int p = 0; p < plies; p++) {
+                moves[p] = in.getLong();
+            }
+            loaded.put(id, new JournaledGame(id, botColor, botDepth, board, moves, plies));
+        }
+        games.putAll(loaded);
+        snapshotSeq = seq;
+        nextGameId = nextId;
+        return true;
+    }
+
+    /**
+     * Applies the records of one segment that follow the snapshot. Returns
+     * false, after truncating the file, if it ends in a torn record.
+     */
+    private boolean replay(Path file) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(file));
+        if (in.remaining() < SEGMENT_HEADER || in.getInt(0) != SEGMENT_MAGIC) {
+            throw new IOException("Not a journal segment: " + file);
+        }
+        if (in.getInt(4) != VERSION) {
+            throw new IOException("Unsupported journal version " + in.getInt(4) + ": " + file);
+        }
+        in.position(SEGMENT_HEADER);
+        CRC32 sum = new CRC32();
+        while (in.hasRemaining()) {
+            int start = in.position();
+            if (in.remaining() < 8) {
+                return truncate(file, start);
+            }
+            int length = in.getInt();
+            int checksum = in.getInt();
+            if (length < 17 || length > in.remaining()) {
+                return truncate(file, start);
+            }
+            sum.reset();
+            sum.update(in.array(), in.position(), length);
+            if ((int) sum.getValue() != checksum) {
+                return truncate(file, start);
+            }
+            long seq = in.getLong();
+            byte type = in.get();
+            long game = in.getLong();
+            if (seq <= snapshotSeq) {
+                in.position(start + 8 + length);
+                continue;
+            }
+            if (seq != appendedSeq + 1) {
+                throw new IOException("Journal record " + seq + " follows " + appendedSeq + ": " + file);
+            }
+            appendedSeq = seq;
+            switch (type) {
+                case CREATED:
+                    applyCreated(game, in.get(), in.get());
+                    break;
+                case MOVED: {
+                    JournaledGame g = games.get(game);
+                    if (g == null) {
+                        throw new IOException("Move for unknown game " + game + ": " + file);
+                    }
+                    g.play(in.getLong());
+                    break;
+                }
+                case ENDED:
+                    games.remove(game);
+                    break;
+                default:
+                    throw new IOException("Unknown journal record type " + type + ": " + file);
+            }
+            in.position(start + 8 + length);
+        }
+        return true;
+    }
+
+    private static boolean truncate(Path file, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(size);
+            channel.force(true);
+        }
+        return false;
+    }
+
+    /** Files named {@code prefix + SEQ + suffix}, by sequence number. */
+    private TreeMap<Long, Path> list(String prefix, String suffix) throws IOException {
+        TreeMap<Long, Path> files = new TreeMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, prefix + "*" + suffix)) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+                try {
+                    files.put(Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())), file);
+                } catch (NumberFormatException e) {
+                    // Not one of ours.
+                }
+            }
+        }
+        return files;
+    }
+
+    private static String fileName(String prefix, long seq, String suffix) {
+        return String.format("%s%020d%s", prefix, seq, suffix);
+    }
+}
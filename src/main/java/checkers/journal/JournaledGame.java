@@ -0,0 +1,74 @@
+package checkers.journal;
+
+import checkers.core.Board;
+
+import java.util.Arrays;
+
+/**
+ * The journal's view of one unfinished game: how it was created, the
+ * current position and every move played. This is what a snapshot stores
+ * and what {@link GameJournal#games()} hands back after a restart.
+ */
+public final class JournaledGame {
+
+    private final long id;
+    private final int botColor;
+    private final int botDepth;
+    private final Board board;
+    private long[] moves;
+    private int plies;
+
+    JournaledGame(long id, int botColor, int botDepth, Board board, long[] moves, int plies) {
+        this.id = id;
+        this.botColor = botColor;
+        this.botDepth = botDepth;
+        this.board = board;
+        this.moves = moves;
+        this.plies = plies;
+    }
+
+    public long id() {
+        return id;
+    }
+
+    /** Colour the server's bot plays, or -1 for a game between two clients. */
+    public int botColor() {
+        return botColor;
+    }
+
+    public int botDepth() {
+        return botDepth;
+    }
+
+    /** A copy of the current position, including its quiet-ply count. */
+    public Board board() {
+        Board copy = board.copy();
+        copy.setQuietPlies(board.quietPlies());
+        return copy;
+    }
+
+    /** The moves played so far, oldest first. */
+    public long[] moves() {
+        return Arrays.copyOf(moves, plies);
+    }
+
+    public int plies() {
+        return plies;
+    }
+
+    JournaledGame copy() {
+        return new JournaledGame(id, botColor, botDepth, board(), moves(), plies);
+    }
+
+    Board position() {
+        return board;
+    }
+
+    void play(long move) {
+        if (plies == moves.length) {
+            moves = Arrays.copyOf(moves, Math.max(16, plies * 2));
+        }
+        moves[plies++] = move;
+        board.make(move);
+    }
+}
@@ -0,0 +1,124 @@
+package checkers.metrics;
+
+import checkers.search.SearchMetrics;
+import checkers.search.SearchResult;
+import checkers.search.SearchStats;
+
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Engine counters summed over every search reported to it, for
+ * {@link JmxExporter} and {@link TextExporter}.
+ * <p>
+ * Each search counts its nodes in plain fields of its own and reports here
+ * once per move. Many searches may report at once, one per game room or
+ * tournament worker, so the totals are {@link LongAdder}s: striped cells
+ * that concurrent threads update without contending on one cache line.
+ * Readings are not an atomic snapshot; a search finishing meanwhile may
+ * show in some totals and not yet in others.
+ */
+public final class EngineMetrics implements SearchMetrics {
+
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder nodes = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+    private final LongAdder depths = new LongAdder();
+    private final LongAdder tableProbes = new LongAdder();
+    private final LongAdder tableHits = new LongAdder();
+    private final LongAdder cutoffs = new LongAdder();
+    private final LongAdder firstMoveCutoffs = new LongAdder();
+    private final DoubleAdder branching = new DoubleAdder();
+    private final LongAdder branchingSamples = new LongAdder();
+    private final LongAccumulator slowestNanos = new LongAccumulator(Math::max, 0);
+    private volatile SearchResult last;
+
+    @Override
+    public void searchFinished(SearchResult result) {
+        SearchStats stats = result.stats();
+        searches.increment();
+        nodes.add(result.nodes());
+        nanos.add(result.elapsedNanos());
+        depths.add(result.depth());
+        tableProbes.add(stats.tableProbes());
+        tableHits.add(stats.tableHits());
+        cutoffs.add(stats.cutoffs());
+        firstMoveCutoffs.add(stats.firstMoveCutoffs());
+        double factor = stats.effectiveBranchingFactor();
+        if (factor > 0) {
+            branching.add(factor);
+            branchingSamples.increment();
+        }
+        slowestNanos.accumulate(result.elapsedNanos());
+        last = result;
+    }
+
+    public long searches() {
+        return searches.sum();
+    }
+
+    public long nodes() {
+        return nodes.sum();
+    }
+
+    /** Nodes per second of search time, over all searches. */
+    public long nodesPerSecond() {
+        long time = nanos.sum();
+        return time > 0 ? (long) (nodes.sum() * 1e9 / time) : 0;
+    }
+
+    public double tableHitRate() {
+        long probes = tableProbes.sum();
+        return probes > 0 ? (double) tableHits.sum() / probes : 0;
+    }
+
+    /** Share of all cutoffs made by the first move searched. */
+    public double firstMoveCutoffRate() {
+        long all = cutoffs.sum();
+        return all > 0 ? (double) firstMoveCutoffs.sum() / all : 0;
+    }
+
+    /** Mean effective branching factor of the searches that completed an iteration. */
+    public double effectiveBranchingFactor() {
+        long samples = branchingSamples.sum();
+        return samples > 0 ? branching.sum() / samples : 0;
+    }
+
+    /** Mean depth of the last completed iteration. */
+    public double averageDepth() {
+        long count = searches.sum();
+        return count > 0 ? (double) depths.sum() / count : 0;
+    }
+
+    /** Mean time per move, in milliseconds. */
+    public double averageMoveMillis() {
+        long count = searches.sum();
+        return count > 0 ? nanos.sum() / 1e6 / count : 0;
+    }
+
+    public double slowestMoveMillis() {
+        return slowestNanos.get() / 1e6;
+    }
+
+    /** The most recent search reported, or null if none has been. */
+    public SearchResult last() {
+        return last;
+    }
+
+    /** Starts counting afresh. */
+    public void reset() {
+        searches.reset();
+        nodes.reset();
+        nanos.reset();
+        depths.reset();
+        tableProbes.reset();
+        tableHits.reset();
+        cutoffs.reset();
+        firstMoveCutoffs.reset();
+        branching.reset();
+        branchingSamples.reset();
+        slowestNanos.reset();
+        last = null;
+    }
+}
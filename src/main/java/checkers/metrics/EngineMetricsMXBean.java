@@ -0,0 +1,28 @@
+package checkers.metrics;
+
+/** The JMX view of {@link EngineMetrics}, registered by {@link JmxExporter}. */
+public interface EngineMetricsMXBean {
+
+    long getSearches();
+
+    long getNodes();
+
+    long getNodesPerSecond();
+
+    double getTableHitRate();
+
+    double getFirstMoveCutoffRate();
+
+    double getEffectiveBranchingFactor();
+
+    double getAverageDepth();
+
+    double getAverageMoveMillis();
+
+    double getSlowestMoveMillis();
+
+    /** One line describing the most recent search, as {@link TextExporter#describe} writes it. */
+    String getLastSearch();
+
+    void reset();
+}
@@ -0,0 +1,116 @@
+package checkers.metrics;
+
+import checkers.search.SearchResult;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.io.Closeable;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Publishes {@link EngineMetrics} as an MXBean on the platform MBean server,
+ * named {@code checkers:type=Engine,name=NAME}, for JConsole, VisualVM or
+ * any JMX collector. Attributes are read from the live counters on each
+ * request. {@link #close()} unregisters it.
+ */
+public final class JmxExporter implements EngineMetricsMXBean, Closeable {
+
+    private final EngineMetrics metrics;
+    private final MBeanServer server;
+    private final ObjectName name;
+
+    private JmxExporter(EngineMetrics metrics, MBeanServer server, ObjectName name) {
+        this.metrics = metrics;
+        this.server = server;
+        this.name = name;
+    }
+
+    /** Registers {@code metrics} under {@code name}, which must be unique in this JVM. */
+    public static JmxExporter register(EngineMetrics metrics, String name) {
+        ObjectName objectName;
+        try {
+            objectName = new ObjectName("checkers:type=Engine,name=" + name);
+        } catch (MalformedObjectNameException e) {
+            throw new IllegalArgumentException("Bad metrics name: " + name, e);
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        JmxExporter exporter = new JmxExporter(metrics, server, objectName);
+        try {
+            server.registerMBean(exporter, objectName);
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register " + objectName, e);
+        }
+        return exporter;
+    }
+
+    public ObjectName name() {
+        return name;
+    }
+
+    @Override
+    public long getSearches() {
+        return metrics.searches();
+    }
+
+    @Override
+    public long getNodes() {
+        return metrics.nodes();
+    }
+
+    @Override
+    public long getNodesPerSecond() {
+        return metrics.nodesPerSecond();
+    }
+
+    @Override
+    public double getTableHitRate() {
+        return metrics.tableHitRate();
+    }
+
+    @Override
+    public double getFirstMoveCutoffRate() {
+        return metrics.firstMoveCutoffRate();
+    }
+
+    @Override
+    public double getEffectiveBranchingFactor() {
+        return metrics.effectiveBranchingFactor();
+    }
+
+    @Override
+    public double getAverageDepth() {
+        return metrics.averageDepth();
+    }
+
+    @Override
+    public double getAverageMoveMillis() {
+        return metrics.averageMoveMillis();
+    }
+
+    @Override
+    public double getSlowestMoveMillis() {
+        return metrics.slowestMoveMillis();
+    }
+
+    @Override
+    public String getLastSearch() {
+        SearchResult last = metrics.last();
+        return last == null ? "" : TextExporter.describe(last);
+    }
+
+    @Override
+    public void reset() {
+        metrics.reset();
+    }
+
+    @Override
+    public void close() {
+        try {
+            server.unregisterMBean(name);
+        } catch (JMException e) {
+            // Already unregistered.
+        }
+    }
+}
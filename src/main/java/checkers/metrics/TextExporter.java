@@ -0,0 +1,97 @@
+package checkers.metrics;
+
+import checkers.core.Move;
+import checkers.search.SearchMetrics;
+import checkers.search.SearchResult;
+import checkers.search.SearchStats;
+
+import java.io.PrintStream;
+import java.util.Locale;
+
+/**
+ * Plain-text forms of the engine counters: {@link #format} writes
+ * {@link EngineMetrics} as {@code name value} lines for logs and scrapers,
+ * and {@link #describe} one search on one line, with enough detail to see
+ * why a move took long: a deep tree, a poor table hit rate, a move ordering
+ * that kept missing the cutoff, or an iteration that blew up.
+ */
+public final class TextExporter {
+
+    /** Iterations listed by {@link #describe}, the last few being where the time goes. */
+    private static final int ITERATIONS_SHOWN = 4;
+
+    private TextExporter() {
+    }
+
+    public static String format(EngineMetrics metrics) {
+        StringBuilder sb = new StringBuilder();
+        line(sb, "searches", Long.toString(metrics.searches()));
+        line(sb, "nodes", Long.toString(metrics.nodes()));
+        line(sb, "nodes_per_second", Long.toString(metrics.nodesPerSecond()));
+        line(sb, "tt_hit_rate", decimal(metrics.tableHitRate(), 4));
+        line(sb, "first_move_cutoff_rate", decimal(metrics.firstMoveCutoffRate(), 4));
+        line(sb, "effective_branching_factor", decimal(metrics.effectiveBranchingFactor(), 2));
+        line(sb, "average_depth", decimal(metrics.averageDepth(), 2));
+        line(sb, "average_move_ms", decimal(metrics.averageMoveMillis(), 1));
+        line(sb, "slowest_move_ms", decimal(metrics.slowestMoveMillis(), 1));
+        return sb.toString();
+    }
+
+    /**
+     * One search on one line: depth, score, nodes, speed and time, the
+     * {@link SearchStats} rates, the time of each of the last iterations
+     * and of the unfinished one, then the principal variation.
+     */
+    public static String describe(SearchResult result) {
+        SearchStats stats = result.stats();
+        StringBuilder sb = new StringBuilder();
+        sb.append("depth ").append(result.depth())
+                .append(" score ").append(result.score())
+                .append(" nodes ").append(result.nodes())
+                .append(" nps ").append(result.nodesPerSecond())
+                .append(" time ").append(millis(result.elapsedNanos())).append("ms ")
+                .append(stats);
+        int last = stats.iterations();
+        if (last > 0) {
+            sb.append(" iterations");
+            long finished = 0;
+            for (int depth = 1; depth <= last; depth++) {
+                finished += stats.iterationNanos(depth);
+                if (depth > last - ITERATIONS_SHOWN && stats.iterationNanos(depth) > 0) {
+                    sb.append(' ').append(depth).append(':').append(millis(stats.iterationNanos(depth))).append("ms");
+                }
+            }
+            sb.append(" unfinished ").append(millis(result.elapsedNanos() - finished)).append("ms");
+        }
+        sb.append(" pv");
+        for (long move : result.pv()) {
+            sb.append(' ').append(Move.toPathString(move));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Prints {@link #describe} to {@code out} for every search that took at
+     * least {@code millis} milliseconds; 0 prints them all.
+     */
+    public static SearchMetrics slowMoves(PrintStream out, long millis) {
+        long threshold = millis * 1_000_000L;
+        return result -> {
+            if (result.elapsedNanos() >= threshold) {
+                out.println("slow move: " + describe(result));
+            }
+        };
+    }
+
+    private static void line(StringBuilder sb, String name, String value) {
+        sb.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static String decimal(double value, int places) {
+        return String.format(Locale.ROOT, "%." + places + "f", value);
+    }
+
+    private static long millis(long nanos) {
+        return nanos / 1_000_000L;
+    }
+}
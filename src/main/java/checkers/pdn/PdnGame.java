@@ -0,0 +1,104 @@
+package checkers.pdn;
+
+import checkers.core.Board;
+import checkers.core.Move;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One game of a PDN collection: its tag pairs, the main-line move text and
+ * the result. Moves are kept as text; {@link #replay()} resolves them
+ * against the rules.
+ */
+public final class PdnGame {
+
+    /** Result tokens, from the first player's (black's) point of view. */
+    public static final String BLACK_WINS = "2-0";
+    public static final String WHITE_WINS = "0-2";
+    public static final String DRAWN = "1-1";
+    public static final String UNKNOWN = "*";
+
+    private final Map<String, String> tags;
+    private final List<String> moves;
+    private final String result;
+
+    PdnGame(Map<String, String> tags, List<String> moves, String result) {
+        this.tags = Collections.unmodifiableMap(tags);
+        this.moves = Collections.unmodifiableList(moves);
+        this.result = result;
+    }
+
+    /** Tag pairs in file order. */
+    public Map<String, String> tags() {
+        return tags;
+    }
+
+    public String tag(String name) {
+        return tags.get(name);
+    }
+
+    /** Main-line move text, without move numbers, comments or variations. */
+    public List<String> moves() {
+        return moves;
+    }
+
+    /**
+     * Normalised result: {@link #BLACK_WINS}, {@link #WHITE_WINS},
+     * {@link #DRAWN} or {@link #UNKNOWN}. The result token after the moves
+     * takes precedence over the {@code Result} tag.
+     */
+    public String result() {
+        return result;
+    }
+
+    /** Start position: the {@code FEN} tag if present, otherwise the initial position. */
+    public Board startBoard() {
+        String fen = tags.get("FEN");
+        return fen == null ? Board.initial() : Board.fromFen(fen);
+    }
+
+    /**
+     * Resolves the move text from the start position.
+     *
+     * @throws IllegalArgumentException if the FEN tag or a move is not legal
+     */
+    public long[] replay() {
+        Board board = startBoard();
+        long[] resolved = new long[moves.size()];
+        for (int i = 0; i < resolved.length; i++) {
+            try {
+                resolved[i] = Move.parse(board, moves.get(i));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Ply " + (i + 1) + ": " + e.getMessage(), e);
+            }
+            board.make(resolved[i]);
+        }
+        return resolved;
+    }
+
+    /** Maps the result spellings in use (1-0, 2-0, 1/2-1/2, ...) to the normal form, or null. */
+    static String normalizeResult(String token) {
+        switch (token) {
+            case "2-0":
+            case "1-0":
+                return BLACK_WINS;
+            case "0-2":
+            case "0-1":
+                return WHITE_WINS;
+            case "1-1":
+            case "1/2-1/2":
+                return DRAWN;
+            case "*":
+                return UNKNOWN;
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return tags + " " + moves.size() + " plies " + result;
+    }
+}
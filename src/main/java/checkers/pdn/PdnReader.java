@@ -0,0 +1,405 @@
+package checkers.pdn;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Streaming reader for PDN game collections.
+ * <p>
+ * Input is scanned byte by byte through a fixed 64 KB buffer and one game
+ * is materialised at a time, so memory stays bounded however large the
+ * collection is. Comments, variations, NAGs and move numbers are skipped;
+ * a game ends at its result token or where the next tag section starts.
+ * Tag values are decoded as UTF-8; move text is ASCII.
+ * <p>
+ * {@link #forEachParallel} splits a file at game boundaries and reads the
+ * parts concurrently.
+ */
+public final class PdnReader implements Closeable {
+
+    /** Longest tag or move token accepted. */
+    public static final int MAX_TOKEN_BYTES = 1 << 16;
+    /** Longest game accepted, in plies. */
+    public static final int MAX_PLIES = 1 << 16;
+
+    private static final int BUFFER_BYTES = 1 << 16;
+    /** Parts shorter than this are not worth a task of their own. */
+    private static final long MIN_PART_BYTES = 1 << 20;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+    private final byte[] token = new byte[MAX_TOKEN_BYTES];
+    private int tokenLength;
+    private boolean eof;
+
+    private Map<String, String> tags = new LinkedHashMap<>();
+    private List<String> moves = new ArrayList<>();
+
+    public PdnReader(InputStream in) {
+        this(Channels.newChannel(in));
+    }
+
+    public PdnReader(ReadableByteChannel channel) {
+        this.channel = channel;
+        buffer.flip();
+    }
+
+    /**
+     * Reads the next game, or returns null at the end of the input.
+     *
+     * @throws IOException if reading fails or a token or game exceeds the limits
+     */
+    public PdnGame next() throws IOException {
+        while (true) {
+            int c = read();
+            if (c < 0) {
+                return tags.isEmpty() && moves.isEmpty() ? null : finish(null);
+            }
+            switch (c) {
+                case '[':
+                    if (!moves.isEmpty()) {
+                        unread();
+                        return finish(null);
+                    }
+                    readTag();
+                    break;
+                case '{':
+                    skipComment();
+                    break;
+                case '(':
+                    skipVariation();
+                    break;
+                default:
+                    if (isDelimiter(c)) {
+                        break;
+                    }
+                    unread();
+                    readToken();
+                    PdnGame game = acceptToken();
+                    if (game != null) {
+                        return game;
+                    }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private PdnGame acceptToken() throws IOException {
+        int start = 0;
+        while (start < tokenLength && isDigit(token[start])) {
+            start++;
+        }
+        if (start < tokenLength && token[start] == '.') {
+            while (start < tokenLength && token[start] == '.') {
+                start++;
+            }
+        } else {
+            start = 0;
+        }
+        int end = tokenLength;
+        while (end > start && (token[end - 1] == '!' || token[end - 1] == '?')) {
+            end--;
+        }
+        if (end == start || token[start] == '$') {
+            return null;
+        }
+        String text = new String(token, start, end - start, StandardCharsets.ISO_8859_1);
+        String result = PdnGame.normalizeResult(text);
+        if (result != null) {
+            return finish(result);
+        }
+        if (moves.size() == MAX_PLIES) {
+            throw new IOException("Game longer than " + MAX_PLIES + " plies");
+        }
+        moves.add(text);
+        return null;
+    }
+
+    private PdnGame finish(String result) {
+        if (result == null) {
+            String tag = tags.get("Result");
+            result = tag == null ? null : PdnGame.normalizeResult(tag.trim());
+        }
+        PdnGame game = new PdnGame(tags, moves, result == null ? PdnGame.UNKNOWN : result);
+        tags = new LinkedHashMap<>();
+        moves = new ArrayList<>();
+        return game;
+    }
+
+    /** Reads {@code Name "value"} up to the closing bracket. */
+    private void readTag() throws IOException {
+        tokenLength = 0;
+        boolean quoted = false;
+        boolean escaped = false;
+        int c;
+        while ((c = read()) >= 0) {
+            if (!quoted && c == ']') {
+                break;
+            }
+            if (escaped) {
+                escaped = false;
+            } else if (quoted && c == '\\') {
+                escaped = true;
+                continue;
+            } else if (c == '"') {
+                quoted = !quoted;
+            }
+            append(c);
+        }
+        String tag = new String(token, 0, tokenLength, StandardCharsets.UTF_8).trim();
+        int space = 0;
+        while (space < tag.length() && !Character.isWhitespace(tag.charAt(space)) && tag.charAt(space) != '"') {
+            space++;
+        }
+        String value = tag.substring(space).trim();
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            value = value.substring(1, value.length() - 1);
+        }
+        tags.put(tag.substring(0, space), value);
+    }
+
+    private void readToken() throws IOException {
+        tokenLength = 0;
+        int c;
+        while ((c = read()) >= 0) {
+            if (isDelimiter(c) || c == '[' || c == '{' || c == '(') {
+                unread();
+                break;
+            }
+            append(c);
+        }
+    }
+
+    private void skipComment() throws IOException {
+        int c;
+        while ((c = read()) >= 0 && c != '}') {
+            // Comments do not nest.
+        }
+    }
+
+    private void skipVariation() throws IOException {
+        int depth = 1;
+        int c;
+        while (depth > 0 && (c = read()) >= 0) {
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == '{') {
+                skipComment();
+            }
+        }
+    }
+
+    private void append(int c) throws IOException {
+        if (tokenLength == MAX_TOKEN_BYTES) {
+            throw new IOException("Token longer than " + MAX_TOKEN_BYTES + " bytes");
+        }
+        token[tokenLength++] = (byte) c;
+    }
+
+    private int read() throws IOException {
+        if (!buffer.hasRemaining()) {
+            if (eof) {
+                return -1;
+            }
+            buffer.clear();
+            int n;
+            do {
+                n = channel.read(buffer);
+            } while (n == 0);
+            buffer.flip();
+            if (n < 0) {
+                eof = true;
+                return -1;
+            }
+        }
+        return buffer.get() & 0xFF;
+    }
+
+    /** Steps back over the byte just read; it is always still in the buffer. */
+    private void unread() {
+        buffer.position(buffer.position() - 1);
+    }
+
+    private static boolean isDelimiter(int c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == '\f' || c == ')' || c == '}';
+    }
+
+    private static boolean isDigit(byte c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * Reads every game of {@code file} on {@code threads} threads, calling
+     * {@code action} concurrently and in no particular order. The file is
+     * cut into parts at lines that open a tag section, so a game is never
+     * split; a comment with a line starting with '[' can confuse the cut.
+     *
+     * @return the number of games read
+     */
+    public static long forEachParallel(Path file, int threads, Consumer<? super PdnGame> action)
+            throws IOException {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Need at least one thread: " + threads);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] bounds = split(channel, threads * 4);
+            ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+                Thread t = new Thread(r, "pdn-reader");
+                t.setDaemon(true);
+                return t;
+            });
+            try {
+                List<Future<Long>> parts = new ArrayList<>();
+                for (int i = 0; i + 1 < bounds.length; i++) {
+                    long start = bounds[i];
+                    long end = bounds[i + 1];
+                    parts.add(pool.submit(() -> {
+                        long games = 0;
+                        PdnReader reader = new PdnReader(new RangeChannel(channel, start, end));
+                        for (PdnGame game; (game = reader.next()) != null; ) {
+                            action.accept(game);
+                            games++;
+                        }
+                        return games;
+                    }));
+                }
+                long games = 0;
+                for (Future<Long> part : parts) {
+                    games += part.get();
+                }
+                return games;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while reading " + file);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new IllegalStateException("PDN reader failed", cause);
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    /** Part boundaries: 0, the game starts nearest after each even cut, and the file size. */
+    static long[] split(FileChannel channel, int parts) throws IOException {
+        long size = channel.size();
+        parts = (int) Math.max(1, Math.min(parts, size / MIN_PART_BYTES));
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        for (int i = 1; i < parts; i++) {
+            long cut = gameStartAfter(channel, Math.max(size * i / parts, bounds.get(bounds.size() - 1)));
+            if (cut > bounds.get(bounds.size() - 1) && cut < size) {
+                bounds.add(cut);
+            }
+        }
+        bounds.add(size);
+        return bounds.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * Offset of the first line at or after the line following
+     * {@code offset} that starts with '[' and follows a line that does not;
+     * that is the first tag of a game. Returns the file size if there is none.
+     */
+    private static long gameStartAfter(FileChannel channel, long offset) throws IOException {
+        ByteBuffer chunk = ByteBuffer.allocate(BUFFER_BYTES);
+        long position = offset;
+        // Skip the partial line we landed in; its kind is unknown, so treat
+        // it as a tag line to avoid cutting inside a tag section.
+        boolean lineStart = offset == 0;
+        boolean previousWasTag = true;
+        while (true) {
+            chunk.clear();
+            int n = channel.read(chunk, position);
+            if (n < 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < n; i++) {
+                byte c = chunk.get(i);
+                if (c == '\n') {
+                    lineStart = true;
+                } else if (lineStart && c != ' ' && c != '\t' && c != '\r') {
+                    lineStart = false;
+                    if (c == '[' && !previousWasTag) {
+                        return position + i;
+                    }
+                    previousWasTag = c == '[';
+                }
+            }
+            position += n;
+        }
+    }
+
+    /** Reads the byte range [start, end) of a file with positional reads, so parts can share a channel. */
+    private static final class RangeChannel implements ReadableByteChannel {
+        private final FileChannel file;
+        private long position;
+        private final long end;
+
+        RangeChannel(FileChannel file, long start, long end) {
+            this.file = file;
+            this.position = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            if (position >= end) {
+                return -1;
+            }
+            int limit = dst.limit();
+            if (dst.remaining() > end - position) {
+                dst.limit(dst.position() + (int) (end - position));
+            }
+            try {
+                int n = file.read(dst, position);
+                if (n > 0) {
+                    position += n;
+                }
+                return n;
+            } finally {
+                dst.limit(limit);
+            }
+        }
+
+        @Override
+        public boolean isOpen() {
+            return file.isOpen();
+        }
+
+        @Override
+        public void close() {
+            // The file channel belongs to forEachParallel.
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package checkers.perft;
+
+import checkers.core.Board;
+import checkers.core.Move;
+import checkers.core.MoveGenerator;
+
+import java.util.Arrays;
+
+/**
+ * Counts the leaf nodes of the move tree to a fixed depth.
+ * <p>
+ * Perft is the reference check for the move generator: any change to move
+ * generation or make/unmake must leave these counts untouched. Every jump
+ * path is counted as a separate move, matching the published figures in
+ * {@link #START_POSITION_COUNTS}.
+ * <p>
+ * Usage:
+ * <pre>
+ *   java checkers.perft.Perft [--fen FEN] [--divide] DEPTH
+ *   java checkers.perft.Perft --verify [MAX_DEPTH]
+ * </pre>
+ */
+public final class Perft {
+
+    /** Published leaf counts from the standard start position, indexed by depth. */
+    public static final long[] START_POSITION_COUNTS = {
+            1L, 7L, 49L, 302L, 1_469L, 7_361L, 36_768L, 179_740L, 845_931L,
+            3_963_680L, 18_391_564L, 85_242_128L, 388_623_673L,
+    };
+
+    private static final int DEFAULT_VERIFY_DEPTH = 10;
+
+    private final Board board;
+    private long[] moves = new long[MoveGenerator.MAX_MOVES * 16];
+
+    public Perft(Board board) {
+        this.board = board;
+    }
+
+    /** Number of leaf nodes {@code depth} plies below the current position. */
+    public long perft(int depth) {
+        if (depth < 0) {
+            throw new IllegalArgumentException("Negative depth: " + depth);
+        }
+        ensureCapacity(depth);
+        return depth == 0 ? 1 : count(depth, 0);
+    }
+
+    /**
+     * Splits the count by root move: writes each root move and the leaf
+     * count below it into the given arrays and returns the number of root
+     * moves. Both arrays need room for {@link MoveGenerator#MAX_MOVES}.
+     */
+    public int divide(int depth, long[] rootMoves, long[] counts) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("Divide needs depth >= 1: " + depth);
+        }
+        ensureCapacity(depth);
+        int n = MoveGenerator.generate(board, rootMoves, 0);
+        for (int i = 0; i < n; i++) {
+            if (depth == 1) {
+                counts[i] = 1;
+                continue;
+            }
+            board.make(rootMoves[i]);
+            counts[i] = count(depth - 1, 0);
+            board.unmake();
+        }
+        return n;
+    }
+
+    private long count(int depth, int ply) {
+        int offset = ply * MoveGenerator.MAX_MOVES;
+        int n = MoveGenerator.generate(board, moves, offset);
+        if (depth == 1) {
+            return n;
+        }
+        long total = 0;
+        for (int i = offset; i < offset + n; i++) {
+            board.make(moves[i]);
+            total += count(depth - 1, ply + 1);
+            board.unmake();
+        }
+        return total;
+    }
+
+    private void ensureCapacity(int depth) {
+        int needed = Math.max(depth, 1) * MoveGenerator.MAX_MOVES;
+        if (moves.length < needed) {
+            moves = Arrays.copyOf(moves, needed);
+        }
+    }
+
+    public static void main(String[] args) {
+        String fen = null;
+        boolean divide = false;
+        boolean verify = false;
+        int depth = -1;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--fen":
+                    if (++i == args.length) {
+                        usage("--fen needs a value");
+                    }
+                    fen = args[i];
+                    break;
+                case "--divide":
+                    divide = true;
+                    break;
+                case "--verify":
+                    verify = true;
+                    break;
+                default:
+                    try {
+                        depth = Integer.parseInt(args[i]);
+                    } catch (NumberFormatException e) {
+                        usage("Unknown argument: " + args[i]);
+                    }
+            }
+        }
+        if (verify) {
+            System.exit(verify(depth < 0 ? DEFAULT_VERIFY_DEPTH : depth) ? 0 : 1);
+        }
+        if (depth < 0) {
+            usage("Missing depth");
+        }
+        Board board = fen == null ? Board.initial() : Board.fromFen(fen);
+        Perft perft = new Perft(board);
+        long start = System.nanoTime();
+        long nodes;
+        if (divide) {
+            long[] rootMoves = new long[MoveGenerator.MAX_MOVES];
+            long[] counts = new long[MoveGenerator.MAX_MOVES];
+            int n = perft.divide(depth, rootMoves, counts);
+            nodes = 0;
+            for (int i = 0; i < n; i++) {
+                System.out.println(Move.toString(rootMoves[i]) + ": " + counts[i]);
+                nodes += counts[i];
+            }
+            System.out.println();
+            System.out.println("Moves: " + n);
+        } else {
+            nodes = perft.perft(depth);
+        }
+        report(depth, nodes, System.nanoTime() - start);
+    }
+
+    /** Checks the start position against the reference counts up to {@code maxDepth}. */
+    static boolean verify(int maxDepth) {
+        int last = Math.min(maxDepth, START_POSITION_COUNTS.length - 1);
+        Perft perft = new Perft(Board.initial());
+        boolean ok = true;
+        for (int depth = 1; depth <= last; depth++) {
+            long start = System.nanoTime();
+            long nodes = perft.perft(depth);
+            long expected = START_POSITION_COUNTS[depth];
+            boolean match = nodes == expected;
+            System.out.printf("depth %2d  %,15d  %s%n", depth, nodes,
+                    match ? String.format("ok (%.3f s)", (System.nanoTime() - start) / 1e9)
+                            : "MISMATCH, expected " + expected);
+            ok &= match;
+        }
+        return ok;
+    }
+
+    private static void report(int depth, long nodes, long nanos) {
+        double seconds = nanos / 1e9;
+        System.out.printf("Depth %d: %,d nodes in %.3f s (%,.0f nodes/s)%n",
+                depth, nodes, seconds, seconds > 0 ? nodes / seconds : 0.0);
+    }
+
+    private static void usage(String message) {
+        System.err.println(message);
+        System.err.println("Usage: Perft [--fen FEN] [--divide] DEPTH");
+        System.err.println("       Perft --verify [MAX_DEPTH]");
+        System.exit(2);
+    }
+}
@@ -0,0 +1,155 @@
+package checkers.search;
+
+import checkers.core.Board;
+import checkers.core.Move;
+import checkers.core.MoveGenerator;
+import checkers.core.Squares;
+
+import java.util.Arrays;
+
+/**
+ * Move ordering for {@link Search}: scores each generated move once, then
+ * hands moves out best first by selection, so a node cut off after its
+ * first move never sorts the rest.
+ * <p>
+ * Moves are tried in this order:
+ * <ol>
+ * <li>the best move the {@link TranspositionTable} holds for the node;</li>
+ * <li>captures, most material first; in checkers a capture is compulsory,
+ *     so a move list is either all captures or none;</li>
+ * <li>the two killer moves of the ply: the last quiet moves that caused a
+ *     beta cutoff at the same distance from the root;</li>
+ * <li>the rest by history: how often, weighted by remaining depth squared,
+ *     each (side, from, to) quiet move has caused a cutoff anywhere in the
+ *     tree.</li>
+ * </ol>
+ * Everything lives in primitive arrays allocated once; the scores share the
+ * layout of the search's move array. Not thread-safe: each search thread
+ * has its own ordering, so killers and history reflect its own tree.
+ */
+final class MoveOrdering {
+
+    private static final int TABLE_MOVE = 1 << 30;
+    private static final int CAPTURE = 1 << 29;
+    private static final int KILLER = 1 << 28;
+    /** History scores are halved once one reaches this, keeping them below {@link #KILLER}. */
+    private static final int HISTORY_LIMIT = 1 << 20;
+
+    private final int[] scores = new int[Search.MAX_PLY * MoveGenerator.MAX_MOVES];
+    /** Two killer slots per ply, the most recent first. */
+    private final long[] killers = new long[Search.MAX_PLY * 2];
+    /** Indexed by side to move, origin and destination. */
+    private final int[] history = new int[2 * Squares.COUNT * Squares.COUNT];
+
+    /**
+     * Forgets the killers of the last search and halves the history, which
+     * is still a good guide for a position a move or two later.
+     */
+    void newSearch() {
+        Arrays.fill(killers, Move.NONE);
+        ageHistory();
+    }
+
+    /** Forgets all killers and history, so the next search orders as a fresh one would. */
+    void clear() {
+        Arrays.fill(killers, Move.NONE);
+        Arrays.fill(history, 0);
+    }
+
+    /**
+     * Scores the {@code count} moves at {@code offset} of {@code moves},
+     * generated at {@code ply} for {@code board}. {@code entry} is the
+     * table entry of the node or {@link TranspositionTable#MISS}.
+     */
+    void score(Board board, long[] moves, int offset, int count, int ply, long entry) {
+        boolean tableMove = entry != TranspositionTable.MISS && TranspositionTable.hasMove(entry);
+        long killer0 = killers[ply * 2];
+        long killer1 = killers[ply * 2 + 1];
+        int historyBase = board.sideToMove() * Squares.COUNT * Squares.COUNT;
+        int kings = board.kings();
+        for (int i = offset; i < offset + count; i++) {
+            long move = moves[i];
+            int score;
+            if (tableMove && TranspositionTable.isMove(entry, move)) {
+                score = TABLE_MOVE;
+            } else if (Move.isCapture(move)) {
+                int captured = Move.captured(move);
+                // A king counts a man and a half; ties favour capturing with a man.
+                int material = 4 * Integer.bitCount(captured) + 2 * Integer.bitCount(captured & kings);
+                score = CAPTURE + 2 * material + ((kings & (1 << Move.from(move))) == 0 ? 1 : 0);
+            } else if (move == killer0) {
+                score = KILLER + 1;
+            } else if (move == killer1) {
+                score = KILLER;
+            } else {
+                score = history[historyBase + Move.from(move) * Squares.COUNT + Move.to(move)];
+            }
+            scores[i] = score;
+        }
+    }
+
+    /**
+     * Moves the best scored move of {@code moves[index..end)} to
+     * {@code index} and returns it.
+     */
+    long next(long[] moves, int index, int end) {
+        int best = index;
+        int bestScore = scores[index];
+        for (int i = index + 1; i < end; i++) {
+            if (scores[i] > bestScore) {
+                best = i;
+                bestScore = scores[i];
+            }
+        }
+        long move = moves[best];
+        if (best != index) {
+            moves[best] = moves[index];
+            moves[index] = move;
+            scores[best] = scores[index];
+            scores[index] = bestScore;
+        }
+        return move;
+    }
+
+    /**
+     * Whether the move {@link #next} last put at {@code index} is an
+     * ordinary quiet move: not the table move, a capture or a killer.
+     */
+    boolean isLate(int index) {
+        return scores[index] < KILLER;
+    }
+
+    /** Sorts all of {@code moves[offset..offset + count)}, for nodes that need the order fixed up front. */
+    void sort(long[] moves, int offset, int count) {
+        for (int i = offset; i < offset + count - 1; i++) {
+            next(moves, i, offset + count);
+        }
+    }
+
+    /**
+     * Records that {@code move}, played by {@code side} at {@code ply} with
+     * {@code depth} plies to go, caused a beta cutoff. Captures are forced
+     * and ordered by material, so only quiet moves are remembered.
+     */
+    void cutoff(long move, int side, int ply, int depth) {
+        if (Move.isCapture(move)) {
+            return;
+        }
+        int k = ply * 2;
+        if (killers[k] != move) {
+            killers[k + 1] = killers[k];
+            killers[k] = move;
+        }
+        int index = side * Squares.COUNT * Squares.COUNT + Move.from(move) * Squares.COUNT + Move.to(move);
+        history[index] += depth * depth;
+        if (history[index] >= HISTORY_LIMIT) {
+            ageHistory();
+        }
+    }
+
+    private void ageHistory() {
+        for (int i = 0; i < history.length; i++) {
+            history[i] >>= 1;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package checkers.search;
+
+import checkers.core.Board;
+import checkers.eval.Evaluator;
+import checkers.tablebase.Tablebase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Lazy SMP: several independent {@link Search} threads on the same root,
+ * cooperating only through a shared {@link TranspositionTable}.
+ * <p>
+ * The calling thread runs the main search. Every other helper starts
+ * iterative deepening one ply deeper than the main thread, so half the
+ * helpers run ahead and fill the table with deeper results, while the
+ * different timing of all of them desynchronises the move order elsewhere. When the
+ * main search finishes, the helpers are stopped, and the deepest completed
+ * result is returned (the main thread's on a tie). Node counts and the
+ * table and cutoff counters of {@link SearchStats} cover all threads; the
+ * iterations are the main thread's.
+ */
+public final class ParallelSearch implements AutoCloseable {
+
+    private final Search main;
+    private final Search[] helpers;
+    private final TranspositionTable table;
+    private final ExecutorService pool;
+    private SearchMetrics metrics = SearchMetrics.NONE;
+
+    /**
+     * @param threads    total search threads, including the caller's
+     * @param evaluators supplies one evaluator per thread; evaluators may be stateful
+     */
+    public ParallelSearch(int threads, Supplier<? extends Evaluator> evaluators, TranspositionTable table) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Need at least one thread: " + threads);
+        }
+        this.table = table;
+        main = new Search(evaluators.get(), table);
+        helpers = new Search[threads - 1];
+        for (int i = 0; i < helpers.length; i++) {
+            helpers[i] = new Search(evaluators.get(), table);
+        }
+        pool = helpers.length == 0 ? null : Executors.newFixedThreadPool(helpers.length, r -> {
+            Thread t = new Thread(r, "search-helper");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** Makes every thread probe {@code tablebase}; {@code null} disables probing. */
+    public void setTablebase(Tablebase tablebase) {
+        main.setTablebase(tablebase);
+        for (Search helper : helpers) {
+            helper.setTablebase(tablebase);
+        }
+    }
+
+    /** Reports the combined result of every search to {@code metrics}. */
+    public void setMetrics(SearchMetrics metrics) {
+        this.metrics = metrics == null ? SearchMetrics.NONE : metrics;
+    }
+
+    public int threads() {
+        return helpers.length + 1;
+    }
+
+    public SearchResult search(Board position, SearchLimits limits) {
+        table.newSearch();
+        main.clearStop();
+        List<Future<SearchResult>> running = new ArrayList<>(helpers.length);
+        SearchLimits helperLimits = limits.withDepth(SearchLimits.UNLIMITED_DEPTH);
+        for (int i = 0; i < helpers.length; i++) {
+            Search helper = helpers[i];
+            int firstDepth = 1 + (i + 1) % 2;
+            helper.clearStop();
+            running.add(pool.submit(() -> helper.run(position, helperLimits, firstDepth)));
+        }
+
+        SearchResult best;
+        try {
+            best = main.run(position, limits, 1);
+        } finally {
+            for (Search helper : helpers) {
+                helper.stop();
+            }
+        }
+        long nodes = best.nodes();
+        SearchStats stats = best.stats();
+        for (Future<SearchResult> future : running) {
+            SearchResult result = join(future);
+            nodes += result.nodes();
+            stats = stats.plus(result.stats());
+            if (result.depth() > best.depth()) {
+                best = result;
+            }
+        }
+        SearchResult combined = new SearchResult(best.bestMove(), best.score(), best.depth(), nodes,
+                best.elapsedNanos(), best.pv(), stats);
+        metrics.searchFinished(combined);
+        return combined;
+    }
+
+    /** Stops the current search from another thread. */
+    public void stop() {
+        main.stop();
+        for (Search helper : helpers) {
+            helper.stop();
+        }
+    }
+
+    private static SearchResult join(Future<SearchResult> future) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return future.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Search helper failed", e.getCause());
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (pool != null) {
+            stop();
+            pool.shutdownNow();
+        }
+    }
+}
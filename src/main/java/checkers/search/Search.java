@@ -0,0 +1,588 @@
+package checkers.search;
+
+import checkers.core.Board;
+import checkers.core.Move;
+import checkers.core.MoveGenerator;
+import checkers.core.Squares;
+import checkers.eval.BatchEvaluator;
+import checkers.eval.Evaluator;
+import checkers.eval.LeafBatch;
+import checkers.tablebase.Tablebase;
+
+import java.util.Arrays;
+
+/**
+ * Negamax alpha-beta search with iterative deepening and aspiration windows.
+ * <p>
+ * The search runs to the depth, node or time limit given in
+ * {@link SearchLimits}. The time budget is hard: the clock is polled every
+ * {@value #CHECK_INTERVAL} nodes and an unfinished iteration is abandoned,
+ * returning the best move of the last completed iteration (or a better root
+ * move already proven in the abandoned one). A new iteration is not started
+ * once half the budget is spent, since it would rarely finish in time.
+ * <p>
+ * At the horizon, a position where a capture is pending is not evaluated
+ * but searched on through captures only (quiescence search), so the
+ * evaluation never sees a piece that is about to be lost.
+ * <p>
+ * When the evaluator is a {@link BatchEvaluator}, a node one ply above the
+ * horizon with at least {@link BatchEvaluator#minimumBatch()} moves makes
+ * every child first and scores all the quiet leaves in one batch, then walks
+ * them in move order exactly as if each had been evaluated on its own, so
+ * cutoffs, scores and node counts do not change. Leaves after a cutoff are
+ * scored for nothing, which is why narrow nodes, most of them in
+ * checkers, still evaluate one leaf at a time.
+ * {@link #setBatchLeaves(boolean)} turns batching off.
+ * <p>
+ * Moves are searched in the order {@link MoveOrdering} gives: the table
+ * move, then captures, killers and history.
+ * <p>
+ * The search is a principal variation search: after the first move of a
+ * node, the others are searched with a null window around alpha, only to
+ * prove them worse, and searched again with the full window when one turns
+ * out better. Late quiet moves are also searched to reduced depth first
+ * (late move reductions) and again at full depth if they beat alpha. As
+ * checkers is decided by forced captures, a move is never reduced when it
+ * captures, promotes, or leaves the opponent a capture, nor when it is the
+ * table move or a killer. {@link #setSelectivity(boolean)} turns both off
+ * for plain alpha-beta, to measure what they gain.
+ * <p>
+ * Every result carries {@link SearchStats} counted in plain fields along
+ * the way, and {@link #setMetrics(SearchMetrics)} passes each result on.
+ * <p>
+ * A {@code Search} is single-threaded and reusable; all per-ply state lives
+ * in preallocated primitive arrays. Its {@link TranspositionTable} may be
+ * shared with other searches running concurrently.
+ */
+public final class Search {
+
+    public static final int MAX_PLY = 128;
+
+    public static final int INFINITY = 32_000;
+    /** Score of a won position at the root; wins further away score lower. */
+    public static final int WIN = 30_000;
+    /** Scores at or beyond this magnitude are forced wins or losses. */
+    public static final int WIN_THRESHOLD = WIN - MAX_PLY;
+    /**
+     * Base score of an endgame-database win. The static evaluation is added
+     * on top so that the winning side still makes progress inside the
+     * database.
+     */
+    public static final int TABLEBASE_WIN = 20_000;
+
+    private static final int ASPIRATION_DEPTH = 4;
+    private static final int ASPIRATION_WINDOW = 25;
+    /** Moves are reduced from this remaining depth and move number on. */
+    private static final int REDUCTION_DEPTH = 3;
+    private static final int REDUCTION_MOVES = 3;
+    /** From this depth and move number on, reductions are two plies. */
+    private static final int DEEP_REDUCTION_DEPTH = 6;
+    private static final int DEEP_REDUCTION_MOVES = 6;
+    private static final int CHECK_INTERVAL = 1024;
+    private static final int DEFAULT_TABLE_MB = 16;
+    /** Marks a node whose score is not settled by repetition or the tablebase. */
+    private static final int UNKNOWN = Integer.MIN_VALUE;
+    /** Marks a frontier child waiting for its batch score. */
+    private static final int BATCHED = Integer.MIN_VALUE + 1;
+
+    private final Evaluator evaluator;
+    private final TranspositionTable table;
+    private Tablebase tablebase;
+    private boolean selective = true;
+    private SearchMetrics metrics = SearchMetrics.NONE;
+
+    /** The evaluator as a batch evaluator, or {@code null} while leaves are scored one by one. */
+    private BatchEvaluator batch;
+    private final LeafBatch leaves = new LeafBatch();
+    /** Per child of a frontier node: its leaf score, or {@link #UNKNOWN} if it must be searched. */
+    private final int[] leafScores = new int[MoveGenerator.MAX_MOVES];
+
+    private final MoveOrdering ordering = new MoveOrdering();
+    private final long[] rootMoves = new long[MoveGenerator.MAX_MOVES];
+    private final long[] moves = new long[MAX_PLY * MoveGenerator.MAX_MOVES];
+    private final long[] pv = new long[MAX_PLY * MAX_PLY];
+    private final int[] pvLength = new int[MAX_PLY + 1];
+
+    private Board board;
+    private int rootCount;
+    private long rootBest;
+
+    private long nodes;
+    // Plain fields, as the search is confined to one thread; see SearchStats.
+    private long tableProbes;
+    private long tableHits;
+    private long cutoffs;
+    private long firstMoveCutoffs;
+    private final long[] iterationNodes = new long[MAX_PLY];
+    private final long[] iterationNanos = new long[MAX_PLY];
+    private long nodeLimit;
+    private long deadline;
+    private boolean aborted;
+    private volatile boolean stopRequested;
+
+    public Search(Evaluator evaluator) {
+        this(evaluator, new TranspositionTable(DEFAULT_TABLE_MB));
+    }
+
+    public Search(Evaluator evaluator, TranspositionTable table) {
+        this.evaluator = evaluator;
+        this.table = table;
+        setBatchLeaves(true);
+    }
+
+    /**
+     * Whether to score the leaves below a node in one batch, when the
+     * evaluator supports it. On by default; the result of a search is the
+     * same either way.
+     */
+    public void setBatchLeaves(boolean enabled) {
+        batch = enabled && evaluator instanceof BatchEvaluator ? (BatchEvaluator) evaluator : null;
+    }
+
+    /**
+     * Whether to use principal variation search and late move reductions;
+     * on by default. Off, the search is plain alpha-beta with the same
+     * move ordering.
+     */
+    public void setSelectivity(boolean enabled) {
+        selective = enabled;
+    }
+
+    /** Probes {@code tablebase} at every node it covers; {@code null} disables probing. */
+    public void setTablebase(Tablebase tablebase) {
+        this.tablebase = tablebase;
+    }
+
+    /** Reports the result of every {@link #search} to {@code metrics}. */
+    public void setMetrics(SearchMetrics metrics) {
+        this.metrics = metrics == null ? SearchMetrics.NONE : metrics;
+    }
+
+    /**
+     * Searches {@code position} within {@code limits}. The given board is not
+     * modified. Positions played on it before count as repetitions, see
+     * {@link Board#copyWithHistory()}.
+     */
+    public SearchResult search(Board position, SearchLimits limits) {
+        stopRequested = false;
+        table.newSearch();
+        SearchResult result = run(position, limits, 1);
+        metrics.searchFinished(result);
+        return result;
+    }
+
+    /**
+     * Searches as one thread of a {@link ParallelSearch}, starting iterative
+     * deepening at {@code firstDepth}. Unlike {@link #search} this neither
+     * clears a pending stop request nor advances the table generation; the
+     * caller does both before starting its threads.
+     */
+    SearchResult run(Board position, SearchLimits limits, int firstDepth) {
+        long start = System.nanoTime();
+        board = position.copyWithHistory();
+        nodes = 0;
+        tableProbes = 0;
+        tableHits = 0;
+        cutoffs = 0;
+        firstMoveCutoffs = 0;
+        Arrays.fill(iterationNodes, 0);
+        Arrays.fill(iterationNanos, 0);
+        nodeLimit = limits.nodes();
+        deadline = limits.hasTimeLimit() ? start + limits.timeNanos() : Long.MAX_VALUE;
+        aborted = false;
+        ordering.newSearch();
+
+        rootCount = MoveGenerator.generate(board, rootMoves, 0);
+        if (rootCount == 0) {
+            return new SearchResult(Move.NONE, -WIN, 0, 0, System.nanoTime() - start, new long[0],
+                    SearchStats.EMPTY);
+        }
+        long bestMove = rootMoves[0];
+        int bestScore = 0;
+        int completed = 0;
+        long[] bestPv = {bestMove};
+        if (rootCount == 1 && limits.hasTimeLimit()) {
+            return new SearchResult(bestMove, evaluator.evaluate(board), 0, 0,
+                    System.nanoTime() - start, bestPv, SearchStats.EMPTY);
+        }
+
+        for (int depth = Math.min(firstDepth, limits.depth()); depth <= limits.depth(); depth++) {
+            rootBest = Move.NONE;
+            int score = aspiration(depth, bestScore, completed > 0);
+            if (aborted) {
+                if (rootBest != Move.NONE && rootBest != bestMove) {
+                    bestMove = rootBest;
+                    bestPv = new long[] {bestMove};
+                }
+                break;
+            }
+            completed = depth;
+            iterationNodes[depth] = nodes;
+            iterationNanos[depth] = System.nanoTime() - start;
+            bestScore = score;
+            bestMove = pv[0];
+            bestPv = Arrays.copyOf(pv, pvLength[0]);
+            if (Math.abs(score) >= WIN_THRESHOLD) {
+                break;
+            }
+            if (limits.hasTimeLimit() && System.nanoTime() - start > limits.timeNanos() / 2) {
+                break;
+            }
+        }
+        SearchStats stats = new SearchStats(tableProbes, tableHits, cutoffs, firstMoveCutoffs,
+                Arrays.copyOf(iterationNodes, completed + 1), Arrays.copyOf(iterationNanos, completed + 1));
+        return new SearchResult(bestMove, bestScore, completed, nodes, System.nanoTime() - start, bestPv, stats);
+    }
+
+    /**
+     * Forgets the killer moves and history that move ordering carries from
+     * one search to the next. With the table cleared too, the next search
+     * returns what it would on a fresh {@code Search}.
+     */
+    public void clearHistory() {
+        ordering.clear();
+    }
+
+    /** Asks a running search to stop as soon as possible. Safe from any thread. */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    void clearStop() {
+        stopRequested = false;
+    }
+
+    public long nodes() {
+        return nodes;
+    }
+
+    private int aspiration(int depth, int previous, boolean hasPrevious) {
+        int alpha = -INFINITY;
+        int beta = INFINITY;
+        int delta = ASPIRATION_WINDOW;
+        if (hasPrevious && depth >= ASPIRATION_DEPTH && Math.abs(previous) < WIN_THRESHOLD) {
+            alpha = previous - delta;
+            beta = previous + delta;
+        }
+        while (true) {
+            int score = searchRoot(depth, alpha, beta);
+            if (aborted) {
+                return score;
+            }
+            if (score <= alpha) {
+                alpha = Math.max(score - delta, -INFINITY);
+            } else if (score >= beta) {
+                beta = Math.min(score + delta, INFINITY);
+            } else {
+                return score;
+            }
+            delta *= 2;
+        }
+    }
+
+    private int searchRoot(int depth, int alpha, int beta) {
+        int best = -INFINITY;
+        pvLength[0] = 0;
+        for (int i = 0; i < rootCount; i++) {
+            long move = rootMoves[i];
+            board.make(move);
+            nodes++;
+            int score;
+            if (!selective || i == 0) {
+                score = -negamax(depth - 1, 1, -beta, -alpha);
+            } else {
+                score = -negamax(depth - 1, 1, -alpha - 1, -alpha);
+                if (score > alpha && score < beta && !aborted) {
+                    score = -negamax(depth - 1, 1, -beta, -alpha);
+                }
+            }
+            board.unmake();
+            if (aborted) {
+                return best;
+            }
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    rootBest = move;
+                    updatePv(0, move);
+                    // Search the current best first in the next iteration.
+                    System.arraycopy(rootMoves, 0, rootMoves, 1, i);
+                    rootMoves[0] = move;
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    private int negamax(int depth, int ply, int alpha, int beta) {
+        pvLength[ply] = ply;
+        if ((nodes & (CHECK_INTERVAL - 1)) == 0) {
+            checkLimits();
+        }
+        if (aborted) {
+            return 0;
+        }
+        int known = settled();
+        if (known != UNKNOWN) {
+            return known;
+        }
+        if (depth <= 0 || ply >= MAX_PLY - 1) {
+            return quiesce(ply, alpha, beta);
+        }
+
+        long key = board.key();
+        long entry = table.probe(key);
+        tableProbes++;
+        if (entry != TranspositionTable.MISS) {
+            tableHits++;
+        }
+        if (entry != TranspositionTable.MISS && TranspositionTable.depth(entry) >= depth) {
+            int score = fromTable(TranspositionTable.score(entry), ply);
+            int bound = TranspositionTable.bound(entry);
+            if (bound == TranspositionTable.EXACT
+                    || (bound == TranspositionTable.LOWER && score >= beta)
+                    || (bound == TranspositionTable.UPPER && score <= alpha)) {
+                return score;
+            }
+        }
+
+        int offset = ply * MoveGenerator.MAX_MOVES;
+        int count = MoveGenerator.generate(board, moves, offset);
+        if (count == 0) {
+            return -WIN + ply;
+        }
+        ordering.score(board, moves, offset, count, ply, entry);
+        boolean frontier = depth == 1 && batch != null && count >= batch.minimumBatch();
+        if (frontier) {
+            // The leaf scores are indexed by position in the list, so fix the order first.
+            ordering.sort(moves, offset, count);
+            scoreLeaves(ply, offset, count);
+        }
+        int side = board.sideToMove();
+        int originalAlpha = alpha;
+        int best = -INFINITY;
+        long bestMove = Move.NONE;
+        for (int i = offset; i < offset + count; i++) {
+            long move = ordering.next(moves, i, offset + count);
+            int score;
+            if (frontier && leafScores[i - offset] != UNKNOWN) {
+                // What negamax would do on entering the leaf, with its score already known.
+                nodes++;
+                pvLength[ply + 1] = ply + 1;
+                if ((nodes & (CHECK_INTERVAL - 1)) == 0) {
+                    checkLimits();
+                }
+                score = -leafScores[i - offset];
+            } else if (!selective || i == offset) {
+                board.make(move);
+                nodes++;
+                score = -negamax(depth - 1, ply + 1, -beta, -alpha);
+                board.unmake();
+            } else {
+                boolean late = depth >= REDUCTION_DEPTH && i - offset >= REDUCTION_MOVES
+                        && ordering.isLate(i) && !promotes(move);
+                board.make(move);
+                nodes++;
+                int reduction = 0;
+                if (late && !MoveGenerator.hasCapture(board)) {
+                    reduction = depth >= DEEP_REDUCTION_DEPTH && i - offset >= DEEP_REDUCTION_MOVES ? 2 : 1;
+                }
+                score = -negamax(depth - 1 - reduction, ply + 1, -alpha - 1, -alpha);
+                if (score > alpha && reduction > 0 && !aborted) {
+                    score = -negamax(depth - 1, ply + 1, -alpha - 1, -alpha);
+                }
+                if (score > alpha && score < beta && !aborted) {
+                    score = -negamax(depth - 1, ply + 1, -beta, -alpha);
+                }
+                board.unmake();
+            }
+            if (aborted) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    bestMove = move;
+                    updatePv(ply, move);
+                    if (alpha >= beta) {
+                        ordering.cutoff(move, side, ply, depth);
+                        cutoffs++;
+                        if (i == offset) {
+                            firstMoveCutoffs++;
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+        int bound = best >= beta ? TranspositionTable.LOWER
+                : best > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+        table.store(key, toTable(best, ply), depth, bound, bestMove);
+        return best;
+    }
+
+    /**
+     * Search below the horizon: plays out captures until the side to move
+     * has none, then evaluates. A capture is compulsory, so unlike a chess
+     * quiescence search there is no standing pat: a position with a
+     * capture pending has no static value of its own. Captures only
+     * shrink the board and each sequence is one move, so this ends within
+     * a couple of dozen plies; the moves go into the same flat buffer as
+     * the main search and nothing is allocated.
+     */
+    private int quiesce(int ply, int alpha, int beta) {
+        if (ply >= MAX_PLY - 1) {
+            return evaluator.evaluate(board);
+        }
+        int offset = ply * MoveGenerator.MAX_MOVES;
+        int count = MoveGenerator.generateCaptures(board, moves, offset);
+        if (count == 0) {
+            // A side left without pieces or moves by the captures has lost, whatever the material.
+            return MoveGenerator.hasQuietMove(board) ? evaluator.evaluate(board) : -WIN + ply;
+        }
+        ordering.score(board, moves, offset, count, ply, TranspositionTable.MISS);
+        int best = -INFINITY;
+        for (int i = offset; i < offset + count; i++) {
+            long move = ordering.next(moves, i, offset + count);
+            board.make(move);
+            nodes++;
+            int score = -quiescentChild(ply + 1, -beta, -alpha);
+            board.unmake();
+            if (aborted) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePv(ply, move);
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /** Entry to a node of {@link #quiesce}, with the checks every node makes. */
+    private int quiescentChild(int ply, int alpha, int beta) {
+        pvLength[ply] = ply;
+        if ((nodes & (CHECK_INTERVAL - 1)) == 0) {
+            checkLimits();
+        }
+        if (aborted) {
+            return 0;
+        }
+        int known = settled();
+        if (known != UNKNOWN) {
+            return known;
+        }
+        return quiesce(ply, alpha, beta);
+    }
+
+    /** Whether {@code move} crowns a man. */
+    private boolean promotes(long move) {
+        int promotion = board.sideToMove() == Board.BLACK ? Squares.BLACK_PROMOTION : Squares.WHITE_PROMOTION;
+        return (board.kings() & (1 << Move.from(move))) == 0 && (promotion & (1 << Move.to(move))) != 0;
+    }
+
+    /**
+     * The score of the current position if it is a repetition or a
+     * tablebase position, otherwise {@link #UNKNOWN}.
+     */
+    private int settled() {
+        if (board.isRepetition()) {
+            return 0;
+        }
+        if (tablebase != null && board.pieceCount() <= tablebase.maxPieces()) {
+            int value = tablebase.probe(board);
+            if (value == Tablebase.WIN) {
+                return TABLEBASE_WIN + evaluator.evaluate(board);
+            }
+            if (value == Tablebase.LOSS) {
+                return -TABLEBASE_WIN + evaluator.evaluate(board);
+            }
+            if (value == Tablebase.DRAW) {
+                return 0;
+            }
+        }
+        return UNKNOWN;
+    }
+
+    /**
+     * Fills {@link #leafScores} with the score of each of the {@code count}
+     * moves at {@code offset}, from the side to move after it: settled
+     * leaves and leaves without a move directly, quiet ones through one
+     * batch evaluation. Leaves with
+     * a capture pending are left {@link #UNKNOWN}; their quiescence search
+     * depends on the window, so they are searched in turn.
+     */
+    private void scoreLeaves(int ply, int offset, int count) {
+        leaves.clear();
+        for (int i = 0; i < count; i++) {
+            board.make(moves[offset + i]);
+            int known = settled();
+            leafScores[i] = known;
+            if (known == UNKNOWN && !MoveGenerator.hasCapture(board)) {
+                if (MoveGenerator.hasQuietMove(board)) {
+                    leafScores[i] = BATCHED;
+                    leaves.add(board);
+                } else {
+                    leafScores[i] = -WIN + ply + 1;
+                }
+            }
+            board.unmake();
+        }
+        batch.evaluate(leaves);
+        int next = 0;
+        for (int i = 0; i < count; i++) {
+            if (leafScores[i] == BATCHED) {
+                leafScores[i] = leaves.score(next++);
+            }
+        }
+    }
+
+    /** Win scores are stored relative to the node, not the root. */
+    private static int toTable(int score, int ply) {
+        if (score >= WIN_THRESHOLD) {
+            return score + ply;
+        }
+        if (score <= -WIN_THRESHOLD) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score >= WIN_THRESHOLD) {
+            return score - ply;
+        }
+        if (score <= -WIN_THRESHOLD) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    private void updatePv(int ply, long move) {
+        int row = ply * MAX_PLY;
+        int childRow = (ply + 1) * MAX_PLY;
+        pv[row + ply] = move;
+        int childLength = pvLength[ply + 1];
+        for (int j = ply + 1; j < childLength; j++) {
+            pv[row + j] = pv[childRow + j];
+        }
+        pvLength[ply] = Math.max(childLength, ply + 1);
+    }
+
+    private void checkLimits() {
+        if (stopRequested || nodes >= nodeLimit || System.nanoTime() >= deadline) {
+            aborted = true;
+        }
+    }
+}
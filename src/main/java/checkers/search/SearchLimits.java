@@ -0,0 +1,77 @@
+package checkers.search;
+
+/**
+ * Bounds on a single search. Any combination of depth, node and time limits
+ * may be set; the search stops at whichever is reached first.
+ */
+public final class SearchLimits {
+
+    public static final int UNLIMITED_DEPTH = Search.MAX_PLY - 1;
+
+    private final int depth;
+    private final long nodes;
+    private final long timeNanos;
+
+    private SearchLimits(int depth, long nodes, long timeNanos) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("Depth must be positive: " + depth);
+        }
+        if (nodes < 1) {
+            throw new IllegalArgumentException("Node limit must be positive: " + nodes);
+        }
+        if (timeNanos < 1) {
+            throw new IllegalArgumentException("Time budget must be positive: " + timeNanos);
+        }
+        this.depth = Math.min(depth, UNLIMITED_DEPTH);
+        this.nodes = nodes;
+        this.timeNanos = timeNanos;
+    }
+
+    public static SearchLimits depth(int depth) {
+        return new SearchLimits(depth, Long.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    public static SearchLimits nodes(long nodes) {
+        return new SearchLimits(UNLIMITED_DEPTH, nodes, Long.MAX_VALUE);
+    }
+
+    public static SearchLimits millis(long millis) {
+        return new SearchLimits(UNLIMITED_DEPTH, Long.MAX_VALUE, millis * 1_000_000L);
+    }
+
+    public SearchLimits withDepth(int depth) {
+        return new SearchLimits(depth, nodes, timeNanos);
+    }
+
+    public SearchLimits withNodes(long nodes) {
+        return new SearchLimits(depth, nodes, timeNanos);
+    }
+
+    public SearchLimits withMillis(long millis) {
+        return new SearchLimits(depth, nodes, millis * 1_000_000L);
+    }
+
+    public int depth() {
+        return depth;
+    }
+
+    public long nodes() {
+        return nodes;
+    }
+
+    /** Hard per-move budget in nanoseconds, {@link Long#MAX_VALUE} if unbounded. */
+    public long timeNanos() {
+        return timeNanos;
+    }
+
+    public boolean hasTimeLimit() {
+        return timeNanos != Long.MAX_VALUE;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchLimits[depth=" + depth
+                + (nodes != Long.MAX_VALUE ? ", nodes=" + nodes : "")
+                + (hasTimeLimit() ? ", ms=" + timeNanos / 1_000_000L : "") + "]";
+    }
+}
@@ -0,0 +1,23 @@
+package checkers.search;
+
+/**
+ * Receives every finished search, for counting and logging. Called on the
+ * searching thread once the result is known, so it must be quick and
+ * thread-safe when shared by several searches; the per-node counting is
+ * done by the search itself, see {@link SearchStats}.
+ */
+@FunctionalInterface
+public interface SearchMetrics {
+
+    SearchMetrics NONE = result -> { };
+
+    void searchFinished(SearchResult result);
+
+    /** Reports to this, then to {@code next}. */
+    default SearchMetrics andThen(SearchMetrics next) {
+        return result -> {
+            searchFinished(result);
+            next.searchFinished(result);
+        };
+    }
+}
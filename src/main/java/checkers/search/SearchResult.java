@@ -0,0 +1,83 @@
+package checkers.search;
+
+import checkers.core.Move;
+
+/** Outcome of a search: the move to play and how it was found. */
+public final class SearchResult {
+
+    private final long bestMove;
+    private final int score;
+    private final int depth;
+    private final long nodes;
+    private final long elapsedNanos;
+    private final long[] pv;
+    private final SearchStats stats;
+
+    SearchResult(long bestMove, int score, int depth, long nodes, long elapsedNanos, long[] pv,
+                 SearchStats stats) {
+        this.bestMove = bestMove;
+        this.score = score;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.elapsedNanos = elapsedNanos;
+        this.pv = pv;
+        this.stats = stats;
+    }
+
+    /** Best move found, or {@link Move#NONE} if the side to move has no legal move. */
+    public long bestMove() {
+        return bestMove;
+    }
+
+    /** Score of the best move from the mover's point of view. */
+    public int score() {
+        return score;
+    }
+
+    /** Deepest fully completed iteration. */
+    public int depth() {
+        return depth;
+    }
+
+    public long nodes() {
+        return nodes;
+    }
+
+    public long elapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public long nodesPerSecond() {
+        return elapsedNanos > 0 ? nodes * 1_000_000_000L / elapsedNanos : 0;
+    }
+
+    /** Principal variation starting with {@link #bestMove()}. */
+    public long[] pv() {
+        return pv.clone();
+    }
+
+    public SearchStats stats() {
+        return stats;
+    }
+
+    public boolean isWin() {
+        return score >= Search.WIN_THRESHOLD;
+    }
+
+    public boolean isLoss() {
+        return score <= -Search.WIN_THRESHOLD;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("depth ").append(depth).append(" score ").append(score)
+                .append(" nodes ").append(nodes)
+                .append(" nps ").append(nodesPerSecond())
+                .append(" time ").append(elapsedNanos / 1_000_000L).append("ms pv");
+        for (long move : pv) {
+            sb.append(' ').append(Move.toString(move));
+        }
+        return sb.toString();
+    }
+}
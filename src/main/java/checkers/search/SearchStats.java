@@ -0,0 +1,112 @@
+package checkers.search;
+
+import java.util.Locale;
+
+/**
+ * Counters describing how a search went, for telling a slow move from a
+ * hard one: how often the {@link TranspositionTable} knew a node, how often
+ * the move ordering was right, and how fast each iteration grew.
+ * <p>
+ * The table and cutoff counters cover the full-width nodes of the tree,
+ * not the capture-only quiescence nodes below the horizon.
+ */
+public final class SearchStats {
+
+    static final SearchStats EMPTY = new SearchStats(0, 0, 0, 0, new long[1], new long[1]);
+
+    private final long tableProbes;
+    private final long tableHits;
+    private final long cutoffs;
+    private final long firstMoveCutoffs;
+    /** Nodes and nanoseconds spent when each iteration completed, indexed by depth; zero where none ran. */
+    private final long[] iterationNodes;
+    private final long[] iterationNanos;
+
+    SearchStats(long tableProbes, long tableHits, long cutoffs, long firstMoveCutoffs,
+                long[] iterationNodes, long[] iterationNanos) {
+        this.tableProbes = tableProbes;
+        this.tableHits = tableHits;
+        this.cutoffs = cutoffs;
+        this.firstMoveCutoffs = firstMoveCutoffs;
+        this.iterationNodes = iterationNodes;
+        this.iterationNanos = iterationNanos;
+    }
+
+    /**
+     * The counters of this and {@code other} added together, for threads
+     * searching the same position. Iterations are this search's.
+     */
+    SearchStats plus(SearchStats other) {
+        return new SearchStats(tableProbes + other.tableProbes, tableHits + other.tableHits,
+                cutoffs + other.cutoffs, firstMoveCutoffs + other.firstMoveCutoffs,
+                iterationNodes, iterationNanos);
+    }
+
+    public long tableProbes() {
+        return tableProbes;
+    }
+
+    /** Probes that found an entry for the position, whatever its depth. */
+    public long tableHits() {
+        return tableHits;
+    }
+
+    /** Nodes that failed high. */
+    public long cutoffs() {
+        return cutoffs;
+    }
+
+    /** Nodes that failed high on the first move searched. */
+    public long firstMoveCutoffs() {
+        return firstMoveCutoffs;
+    }
+
+    public double tableHitRate() {
+        return tableProbes > 0 ? (double) tableHits / tableProbes : 0;
+    }
+
+    /** Share of cutoffs made by the first move; near 1 means the ordering rarely misses. */
+    public double firstMoveCutoffRate() {
+        return cutoffs > 0 ? (double) firstMoveCutoffs / cutoffs : 0;
+    }
+
+    /** Deepest iteration recorded. */
+    public int iterations() {
+        return iterationNodes.length - 1;
+    }
+
+    /** Nodes searched by the iteration to {@code depth} alone, or 0 if it did not complete. */
+    public long iterationNodes(int depth) {
+        if (depth < 1 || depth > iterations() || iterationNodes[depth] == 0) {
+            return 0;
+        }
+        return iterationNodes[depth] - iterationNodes[depth - 1];
+    }
+
+    /** Time taken by the iteration to {@code depth} alone, or 0 if it did not complete. */
+    public long iterationNanos(int depth) {
+        if (depth < 1 || depth > iterations() || iterationNanos[depth] == 0) {
+            return 0;
+        }
+        return iterationNanos[depth] - iterationNanos[depth - 1];
+    }
+
+    /**
+     * The branching factor of a uniform tree as deep as the last completed
+     * iteration with as many nodes: how much each ply costs, the pruning
+     * included. Unlike the ratio of successive iterations it holds up when
+     * the table answers the early iterations for nothing. 0 when no
+     * iteration completed.
+     */
+    public double effectiveBranchingFactor() {
+        int last = iterations();
+        long nodes = iterationNodes(last);
+        return last > 0 && nodes > 0 ? Math.pow(nodes, 1.0 / last) : 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "tt-hit %.1f%% first-cutoff %.1f%% ebf %.2f",
+                100 * tableHitRate(), 100 * firstMoveCutoffRate(), effectiveBranchingFactor());
+    }
+}
@@ -0,0 +1,171 @@
+package checkers.search;
+
+import checkers.core.Move;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * Fixed-size transposition table shared by any number of search threads.
+ * <p>
+ * The table is a single {@code long[]} of buckets, each holding two entries
+ * of two longs: {@code key ^ data} followed by {@code data}. Reads and
+ * writes take no locks. A reader accepts an entry only if XOR-ing the two
+ * words gives back the probed key, so an entry torn by a concurrent writer
+ * is simply a miss. Every word is accessed with opaque (bitwise atomic)
+ * semantics, so a single long is never torn even on 32-bit JVMs.
+ * <p>
+ * The first entry of a bucket is depth-preferred: it is only replaced by a
+ * search at least as deep, or when it was written by an earlier search. The
+ * second entry always takes what the first one declined.
+ * <p>
+ * Data layout: score in bits 0-15, depth in 16-23, bound in 24-25, move
+ * (origin and destination plus a presence bit) in 26-36 and the search
+ * generation in 40-47.
+ */
+public final class TranspositionTable {
+
+    public static final int UPPER = 1;
+    public static final int LOWER = 2;
+    public static final int EXACT = 3;
+
+    /** Value returned by {@link #probe(long)} on a miss; no entry has this data. */
+    public static final long MISS = 0L;
+
+    private static final VarHandle SLOT = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private static final int BUCKET_LONGS = 4;
+    private static final int BYTES_PER_BUCKET = BUCKET_LONGS * Long.BYTES;
+
+    private final long[] table;
+    private final int bucketMask;
+    private volatile int generation;
+
+    /** Creates a table of at most {@code megabytes}, rounded down to a power of two. */
+    public TranspositionTable(int megabytes) {
+        if (megabytes < 1) {
+            throw new IllegalArgumentException("Table size must be at least 1 MB: " + megabytes);
+        }
+        long buckets = Long.highestOneBit((long) megabytes * 1024 * 1024 / BYTES_PER_BUCKET);
+        if (buckets * BUCKET_LONGS > Integer.MAX_VALUE - 8) {
+            buckets = Integer.highestOneBit((Integer.MAX_VALUE - 8) / BUCKET_LONGS);
+        }
+        table = new long[(int) buckets * BUCKET_LONGS];
+        bucketMask = (int) buckets - 1;
+    }
+
+    /** Starts a new search so that entries from older searches become replaceable. */
+    public void newSearch() {
+        generation = (generation + 1) & 0xFF;
+    }
+
+    public void clear() {
+        Arrays.fill(table, 0L);
+    }
+
+    /** Returns the entry data stored for {@code key}, or {@link #MISS}. */
+    public long probe(long key) {
+        int base = bucket(key);
+        for (int i = base; i < base + BUCKET_LONGS; i += 2) {
+            long data = (long) SLOT.getOpaque(table, i + 1);
+            if (data != MISS && ((long) SLOT.getOpaque(table, i) ^ data) == key) {
+                return data;
+            }
+        }
+        return MISS;
+    }
+
+    /**
+     * Stores a search result. {@code score} must already be made relative to
+     * the stored node (see {@link Search}); {@code move} may be {@link Move#NONE}.
+     */
+    public void store(long key, int score, int depth, int bound, long move) {
+        int gen = generation;
+        int base = bucket(key);
+        long firstData = (long) SLOT.getOpaque(table, base + 1);
+        long firstKey = (long) SLOT.getOpaque(table, base) ^ firstData;
+        int slot;
+        if (firstData == MISS || firstKey == key || generation(firstData) != gen
+                || depth >= depth(firstData)) {
+            slot = base;
+        } else {
+            slot = base + 2;
+        }
+        long previous = (long) SLOT.getOpaque(table, slot + 1);
+        if (move == Move.NONE && previous != MISS
+                && ((long) SLOT.getOpaque(table, slot) ^ previous) == key) {
+            // Keep the known best move when a later visit found none.
+            move = previousMove(previous);
+        }
+        long data = pack(score, depth, bound, move, gen);
+        SLOT.setOpaque(table, slot, key ^ data);
+        SLOT.setOpaque(table, slot + 1, data);
+    }
+
+    private int bucket(long key) {
+        return ((int) key & bucketMask) * BUCKET_LONGS;
+    }
+
+    private static long pack(int score, int depth, int bound, long move, int gen) {
+        long moveBits = move == Move.NONE ? 0
+                : 0x400 | (Move.from(move) << 5) | Move.to(move);
+        return (score & 0xFFFFL)
+                | ((long) Math.min(Math.max(depth, 0), 0xFF) << 16)
+                | ((long) bound << 24)
+                | (moveBits << 26)
+                | ((long) gen << 40);
+    }
+
+    private static long previousMove(long data) {
+        long bits = (data >>> 26) & 0x7FF;
+        return bits == 0 ? Move.NONE : Move.of((int) (bits >>> 5) & 31, (int) bits & 31, 0);
+    }
+
+    public static int score(long data) {
+        return (short) data;
+    }
+
+    public static int depth(long data) {
+        return (int) (data >>> 16) & 0xFF;
+    }
+
+    public static int bound(long data) {
+        return (int) (data >>> 24) & 3;
+    }
+
+    public static boolean hasMove(long data) {
+        return ((data >>> 26) & 0x400) != 0;
+    }
+
+    /** Whether {@code move} has the origin and destination of the stored best move. */
+    public static boolean isMove(long data, long move) {
+        long bits = (data >>> 26) & 0x7FF;
+        return bits == (0x400 | (Move.from(move) << 5) | Move.to(move));
+    }
+
+    private static int generation(long data) {
+        return (int) (data >>> 40) & 0xFF;
+    }
+
+    /** Capacity in entries. */
+    public int capacity() {
+        return table.length / 2;
+    }
+
+    /** Permille of the first thousand buckets holding an entry of the current search. */
+    public int hashfull() {
+        int gen = generation;
+        int sample = Math.min(1000, bucketMask + 1);
+        int used = 0;
+        for (int b = 0; b < sample; b++) {
+            for (int i = b * BUCKET_LONGS; i < (b + 1) * BUCKET_LONGS; i += 2) {
+                long data = (long) SLOT.getOpaque(table, i + 1);
+                if (data != MISS && generation(data) == gen) {
+                    used++;
+                }
+            }
+        }
+        return used * 1000 / (sample * 2);
+    }
+}
@@ -0,0 +1,66 @@
+package checkers.server;
+
+import checkers.core.Board;
+import checkers.eval.PositionalEvaluator;
+import checkers.search.Search;
+import checkers.search.SearchLimits;
+import checkers.search.SearchMetrics;
+import checkers.search.TranspositionTable;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * The searches every bot of a server plays with. At most {@code size} bot
+ * moves are searched at once, each by a {@link Search} with its own table,
+ * and further requests wait for one to come free. Memory therefore stays
+ * the same however many bot games are open, and the tables stay warm from
+ * one move to the next.
+ */
+final class BotPool {
+
+    /** Table size of each pooled search. */
+    static final int TABLE_MB = 8;
+
+    private final BlockingQueue<Search> idle;
+
+    /** {@code size} searches, each reporting to {@code metrics}. */
+    BotPool(int size, SearchMetrics metrics) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Need at least one search: " + size);
+        }
+        idle = new ArrayBlockingQueue<>(size);
+        for (int i = 0; i < size; i++) {
+            Search search = new Search(new PositionalEvaluator(), new TranspositionTable(TABLE_MB));
+            search.setMetrics(metrics);
+            idle.add(search);
+        }
+    }
+
+    /** Searches {@code position} with the next free search and returns its best move. */
+    long bestMove(Board position, SearchLimits limits) {
+        Search search = take();
+        try {
+            return search.search(position, limits).bestMove();
+        } finally {
+            idle.add(search);
+        }
+    }
+
+    private Search take() {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return idle.take();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package checkers.server;
+
+import checkers.metrics.TextExporter;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * The client command set shared by every transport: parses one command,
+ * applies it to the server's rooms and answers through the client's
+ * {@link Subscriber}. Not thread-safe; each connection owns one and feeds
+ * it commands in order.
+ * <p>
+ * Commands: {@code NEW}, {@code NEW BOT [DEPTH]}, {@code JOIN GAME},
+ * {@code WATCH GAME}, {@code MOVE GAME 11-15}, {@code RESIGN GAME},
+ * {@code STATE GAME}, {@code METRICS}, {@code PING} and {@code QUIT}.
+ */
+final class Commands {
+
+    private final GameServer server;
+    private final Subscriber client;
+    private final Set<GameRoom> rooms = new LinkedHashSet<>();
+
+    Commands(GameServer server, Subscriber client) {
+        this.server = server;
+        this.client = client;
+    }
+
+    /** Applies one command line; returns false when the client has asked to quit. */
+    boolean handle(String command) {
+        if (command.isEmpty()) {
+            return true;
+        }
+        String[] words = command.split("\\s+");
+        rooms.removeIf(GameRoom::isOver);
+        try {
+            switch (words[0].toUpperCase()) {
+                case "NEW": {
+                    boolean bot = words.length > 1 && words[1].equalsIgnoreCase("BOT");
+                    GameRoom room = bot
+                            ? server.create(words.length > 2 ? Integer.parseInt(words[2]) : server.botDepth())
+                            : server.create();
+                    rooms.add(room);
+                    room.join(client);
+                    return true;
+                }
+                case "JOIN": {
+                    GameRoom room = server.room(gameId(words));
+                    room.join(client);
+                    rooms.add(room);
+                    return true;
+                }
+                case "WATCH": {
+                    GameRoom room = server.room(gameId(words));
+                    rooms.add(room);
+                    room.watch(client);
+                    return true;
+                }
+                case "MOVE":
+                    if (words.length != 3) {
+                        throw new IllegalArgumentException("Usage: MOVE GAME MOVE");
+                    }
+                    server.room(gameId(words)).move(client, words[2]);
+                    return true;
+                case "RESIGN":
+                    server.room(gameId(words)).resign(client);
+                    return true;
+                case "STATE":
+                    client.deliver(new GameEvent(server.room(gameId(words)).state()));
+                    return true;
+                case "METRICS":
+                    client.deliver(new GameEvent(Json.object().put("type", "metrics")
+                            .put("text", TextExporter.format(server.botMetrics()))));
+                    return true;
+                case "PING":
+                    client.deliver(new GameEvent(Json.object().put("type", "pong")));
+                    return true;
+                case "QUIT":
+                    return false;
+                default:
+                    throw new IllegalArgumentException("Unknown command: " + words[0]);
+            }
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            client.deliver(new GameEvent(Json.object().put("type", "error").put("message", e.getMessage())));
+            return true;
+        }
+    }
+
+    /**
+     * Leaves every room the client joined or watched, forfeiting its games.
+     * A room that fails to record the forfeit does not keep the client in
+     * the others; the first failure is rethrown once all are left.
+     */
+    void leaveAll() {
+        RuntimeException failure = null;
+        for (GameRoom room : rooms) {
+            try {
+                room.leave(client);
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        rooms.clear();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static long gameId(String[] words) {
+        if (words.length < 2) {
+            throw new IllegalArgumentException("Missing game id");
+        }
+        return Long.parseLong(words[1]);
+    }
+}
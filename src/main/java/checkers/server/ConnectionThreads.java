@@ -0,0 +1,37 @@
+package checkers.server;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Executors that run each connection on its own thread: a virtual thread
+ * on runtimes that have them (Java 21+), otherwise a pooled daemon
+ * platform thread. The tree compiles for Java 17, so the virtual-thread
+ * factory is looked up reflectively.
+ */
+final class ConnectionThreads {
+
+    private ConnectionThreads() {
+    }
+
+    static ExecutorService perConnection(String name) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, name);
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    static boolean virtualThreadsAvailable() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package checkers.server;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * One protocol message, serialised once and shared by every recipient.
+ * A broadcast to a thousand subscribers encodes its JSON line one time;
+ * each subscriber only copies the cached bytes to its socket. The
+ * WebSocket frame is built on first use, by whichever thread gets there
+ * first; a race only builds identical bytes twice.
+ */
+final class GameEvent {
+
+    private final String json;
+    private final byte[] line;
+    private volatile byte[] frame;
+
+    GameEvent(String json) {
+        this.json = json;
+        this.line = (json + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    GameEvent(Json json) {
+        this(json.toString());
+    }
+
+    String json() {
+        return json;
+    }
+
+    /** The JSON text followed by a newline, UTF-8 encoded. Do not modify. */
+    byte[] line() {
+        return line;
+    }
+
+    /** The JSON text as an unmasked WebSocket text frame. Do not modify. */
+    byte[] frame() {
+        byte[] f = frame;
+        if (f == null) {
+            f = WebSocketFrames.text(line, 0, line.length - 1);
+            frame = f;
+        }
+        return f;
+    }
+
+    @Override
+    public String toString() {
+        return json;
+    }
+}
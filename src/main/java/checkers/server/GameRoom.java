@@ -0,0 +1,345 @@
+package checkers.server;
+
+import checkers.core.Board;
+import checkers.core.Move;
+import checkers.core.MoveGenerator;
+import checkers.journal.GameJournal;
+import checkers.journal.JournaledGame;
+import checkers.pdn.PdnGame;
+import checkers.search.SearchLimits;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * One hosted game: the board, its two seats, the spectators and the event
+ * stream they all receive. Every operation takes the room's lock, so moves
+ * are applied and broadcast in one order. Broadcasting only queues the
+ * event on each {@link Subscriber}, so no socket is written under the
+ * lock. The lock is a {@link ReentrantLock} rather than a monitor so that
+ * a virtual thread waiting for the journal under it does not pin its
+ * carrier.
+ * <p>
+ * A bot seat searches its reply on the thread of the move that woke it,
+ * with a search borrowed from the server's {@link BotPool}. The search runs
+ * outside the lock on a copy of the board, so the room keeps serving its
+ * players and spectators meanwhile, and the reply is dropped if the game
+ * moved on or ended before it was found.
+ * <p>
+ * With a {@link GameJournal}, every move is journaled and waits until it is
+ * on disk before it is broadcast, so nothing a client has seen is lost in
+ * a crash. Seats are not journaled: after a restart a recovered room waits
+ * for its players to join again.
+ */
+final class GameRoom {
+
+    /** Draw after 40 moves per side without a man move or capture. */
+    static final int QUIET_PLY_LIMIT = 80;
+
+    final long id;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Board board = Board.initial();
+    private final long[] legal = new long[MoveGenerator.MAX_MOVES];
+    private final Subscriber[] seats = new Subscriber[2];
+    private final Set<Subscriber> spectators = new LinkedHashSet<>();
+    private final List<String> moves = new ArrayList<>();
+
+    /** Null in a game between two connections. */
+    private final BotPool bots;
+    private final int botColor;
+    private final SearchLimits botLimits;
+
+    private final GameJournal journal;
+    private final Consumer<GameRoom> onEnd;
+    private boolean started;
+    private boolean suspended;
+    private String result;
+
+    /**
+     * A game against a bot playing {@code botColor} to {@code botDepth}
+     * plies, or between two connections if {@code botColor} is -1. The
+     * creation is recorded in {@code journal} unless it is null; the bot
+     * searches with {@code bots}; {@code onEnd} runs once when the game
+     * finishes.
+     */
+    GameRoom(long id, int botColor, int botDepth, GameJournal journal, BotPool bots,
+             Consumer<GameRoom> onEnd) {
+        this.id = id;
+        this.onEnd = onEnd;
+        this.journal = journal;
+        this.botColor = botColor;
+        this.bots = botColor < 0 ? null : bots;
+        this.botLimits = SearchLimits.depth(Math.max(1, botDepth));
+        if (journal != null) {
+            journal.awaitDurable(journal.created(id, botColor, botDepth));
+        }
+    }
+
+    /** A room for a game recovered from {@code journal}, without seated players. */
+    private GameRoom(JournaledGame game, GameJournal journal, BotPool bots, Consumer<GameRoom> onEnd) {
+        this.id = game.id();
+        this.onEnd = onEnd;
+        this.journal = journal;
+        this.botColor = game.botColor();
+        this.bots = botColor < 0 ? null : bots;
+        this.botLimits = SearchLimits.depth(Math.max(1, game.botDepth()));
+        // Replayed rather than set, so the board keeps the history repetitions are found in.
+        for (long move : game.moves()) {
+            board.make(move);
+            moves.add(Move.toPathString(move));
+        }
+        Board position = game.board();
+        if (!board.equals(position)) {
+            board.set(position.black(), position.white(), position.kings(), position.sideToMove());
+            board.setQuietPlies(position.quietPlies());
+        }
+    }
+
+    static GameRoom recover(JournaledGame game, GameJournal journal, BotPool bots, Consumer<GameRoom> onEnd) {
+        return new GameRoom(game, journal, bots, onEnd);
+    }
+
+    /** Seats {@code player} on the first free side and returns its colour. */
+    int join(Subscriber player) {
+        int color = seat(player);
+        playBot();
+        return color;
+    }
+
+    private int seat(Subscriber player) {
+        lock.lock();
+        try {
+            if (result != null) {
+                throw new IllegalStateException("Game " + id + " is over");
+            }
+            if (suspended) {
+                throw new IllegalStateException("Server is shutting down");
+            }
+            int color = -1;
+            for (int c = Board.BLACK; c <= Board.WHITE; c++) {
+                if (seats[c] == player) {
+                    throw new IllegalStateException("Already playing game " + id);
+                }
+                if (color < 0 && seats[c] == null && c != botColor) {
+                    color = c;
+                }
+            }
+            if (color < 0) {
+                throw new IllegalStateException("Game " + id + " is full");
+            }
+            seats[color] = player;
+            player.deliver(new GameEvent(Json.object().put("type", "joined").put("game", id)
+                    .put("color", colorName(color))));
+            if (bots != null || (seats[Board.BLACK] != null && seats[Board.WHITE] != null)) {
+                started = true;
+                broadcast(new GameEvent(state("start")));
+            }
+            return color;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops the game without a result for a server shutdown: later moves
+     * are refused and leaving players do not forfeit, so the journaled game
+     * resumes after the restart.
+     */
+    void suspend() {
+        lock.lock();
+        try {
+            suspended = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void watch(Subscriber spectator) {
+        lock.lock();
+        try {
+            spectators.add(spectator);
+            spectator.deliver(new GameEvent(state("state")));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Plays {@code text} for {@code player}.
+     *
+     * @throws IllegalStateException if it is not the player's turn
+     * @throws IllegalArgumentException if the move is not legal
+     */
+    void move(Subscriber player, String text) {
+        lock.lock();
+        try {
+            int side = board.sideToMove();
+            if (result != null) {
+                throw new IllegalStateException("Game " + id + " is over");
+            }
+            if (suspended) {
+                throw new IllegalStateException("Server is shutting down");
+            }
+            if (!started || seats[side] != player) {
+                throw new IllegalStateException("Not your turn in game " + id);
+            }
+            apply(Move.parse(board, text));
+        } finally {
+            lock.unlock();
+        }
+        playBot();
+    }
+
+    void resign(Subscriber player) {
+        lock.lock();
+        try {
+            int color = seatOf(player);
+            if (color < 0) {
+                throw new IllegalStateException("Not playing game " + id);
+            }
+            if (result == null && !suspended) {
+                finish(color == Board.BLACK ? PdnGame.WHITE_WINS : PdnGame.BLACK_WINS, "resignation");
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Drops a closed connection; a player leaving an unfinished game forfeits it. */
+    void leave(Subscriber subscriber) {
+        lock.lock();
+        try {
+            spectators.remove(subscriber);
+            int color = seatOf(subscriber);
+            if (color >= 0) {
+                seats[color] = null;
+                if (result == null && !suspended) {
+                    finish(color == Board.BLACK ? PdnGame.WHITE_WINS : PdnGame.BLACK_WINS, "disconnect");
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    String state() {
+        lock.lock();
+        try {
+            return state("state");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    boolean isOver() {
+        lock.lock();
+        try {
+            return result != null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Plays a legal move once it is journaled. If the journal cannot be
+     * written the move throws and the room stays where it was, the last
+     * position clients were told about.
+     */
+    private void apply(long move) {
+        if (journal != null) {
+            journal.awaitDurable(journal.moved(id, move));
+        }
+        board.make(move);
+        String text = Move.toPathString(move);
+        moves.add(text);
+        broadcast(new GameEvent(Json.object().put("type", "move").put("game", id).put("ply", moves.size())
+                .put("move", text).put("fen", board.toFen())
+                .put("toMove", colorName(board.sideToMove()))));
+        if (MoveGenerator.generate(board, legal, 0) == 0) {
+            finish(board.sideToMove() == Board.BLACK ? PdnGame.WHITE_WINS : PdnGame.BLACK_WINS, "no moves");
+        } else if (board.quietPlies() >= QUIET_PLY_LIMIT) {
+            finish(PdnGame.DRAWN, "40-move rule");
+        }
+    }
+
+    /** Plays the bot's replies while it is to move. Called without the lock held. */
+    private void playBot() {
+        if (bots == null) {
+            return;
+        }
+        while (true) {
+            Board position;
+            int ply;
+            lock.lock();
+            try {
+                if (!botToMove()) {
+                    return;
+                }
+                position = board.copyWithHistory();
+                ply = moves.size();
+            } finally {
+                lock.unlock();
+            }
+            long move = bots.bestMove(position, botLimits);
+            lock.lock();
+            try {
+                // Another thread may have played the reply meanwhile.
+                if (botToMove() && moves.size() == ply) {
+                    apply(move);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private boolean botToMove() {
+        return started && result == null && !suspended && board.sideToMove() == botColor;
+    }
+
+    private void finish(String result, String reason) {
+        if (journal != null) {
+            journal.awaitDurable(journal.ended(id, result));
+        }
+        this.result = result;
+        broadcast(new GameEvent(Json.object().put("type", "end").put("game", id)
+                .put("result", result).put("reason", reason)));
+        onEnd.accept(this);
+    }
+
+    private void broadcast(GameEvent event) {
+        for (Subscriber seat : seats) {
+            if (seat != null) {
+                seat.deliver(event);
+            }
+        }
+        for (Subscriber spectator : spectators) {
+            spectator.deliver(event);
+        }
+    }
+
+    private int seatOf(Subscriber subscriber) {
+        for (int c = Board.BLACK; c <= Board.WHITE; c++) {
+            if (seats[c] == subscriber) {
+                return c;
+            }
+        }
+        return -1;
+    }
+
+    private String state(String type) {
+        return Json.object().put("type", type).put("game", id).put("fen", board.toFen())
+                .put("toMove", colorName(board.sideToMove())).put("ply", moves.size())
+                .put("moves", String.join(" ", moves))
+                .put("result", result == null ? PdnGame.UNKNOWN : result).toString();
+    }
+
+    static String colorName(int color) {
+        return color == Board.BLACK ? "black" : "white";
+    }
+}
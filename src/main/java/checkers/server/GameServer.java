@@ -0,0 +1,243 @@
+package checkers.server;
+
+import checkers.core.Board;
+import checkers.journal.GameJournal;
+import checkers.journal.JournaledGame;
+import checkers.metrics.EngineMetrics;
+import checkers.metrics.JmxExporter;
+import checkers.metrics.TextExporter;
+import checkers.search.SearchMetrics;
+import checkers.search.SearchResult;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * TCP game server. Each accepted connection gets a reading and a writing
+ * thread (virtual where the runtime supports it, see
+ * {@link ConnectionThreads}) running a {@link Session}; games live in {@link GameRoom}s shared by the sessions
+ * that play or watch them. Clients send one command per line and receive
+ * one JSON object per line.
+ * <p>
+ * Given a data directory, games are kept in a {@link GameJournal} there:
+ * unfinished games survive a restart or crash and wait for their players
+ * to join again.
+ * <p>
+ * Every bot search is counted in {@link #botMetrics()}, which the command
+ * line server publishes over JMX as {@code checkers:type=Engine,name=bot}
+ * and clients read with {@code METRICS}. With {@code --slow-move-ms} each
+ * bot move taking at least that long is also described on standard error.
+ * <p>
+ * Usage: {@code java checkers.server.GameServer [--port N] [--bot-depth N]
+ * [--data DIR] [--slow-move-ms N]}
+ */
+public final class GameServer implements Closeable {
+
+    public static final int DEFAULT_PORT = 7788;
+    public static final int DEFAULT_BOT_DEPTH = 6;
+    /** Deepest search a client may ask of a bot. */
+    public static final int MAX_BOT_DEPTH = 12;
+    /** Bot moves searched at once, however many bot games are open; see {@link BotPool}. */
+    static final int BOT_SEARCHES = Runtime.getRuntime().availableProcessors();
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections = ConnectionThreads.perConnection("game-session");
+    private final Map<Long, GameRoom> rooms = new ConcurrentHashMap<>();
+    private final Set<Session> sessions = ConcurrentHashMap.newKeySet();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final int botDepth;
+    private final GameJournal journal;
+    private final EngineMetrics botMetrics = new EngineMetrics();
+    private volatile SearchMetrics slowMoves = SearchMetrics.NONE;
+    private final BotPool bots = new BotPool(BOT_SEARCHES, this::botSearched);
+
+    public GameServer(int port, int botDepth) throws IOException {
+        this(port, botDepth, null);
+    }
+
+    /**
+     * A server journaling its games in {@code dataDirectory}, or keeping
+     * them only in memory if it is null. Games left unfinished there are
+     * recovered first.
+     */
+    public GameServer(int port, int botDepth, Path dataDirectory) throws IOException {
+        this.botDepth = Math.max(1, Math.min(botDepth, MAX_BOT_DEPTH));
+        this.journal = dataDirectory == null ? null : GameJournal.open(dataDirectory);
+        if (journal != null) {
+            nextId.set(journal.nextGameId());
+            for (JournaledGame game : journal.games()) {
+                rooms.put(game.id(), GameRoom.recover(game, journal, bots, this::finished));
+            }
+        }
+        this.serverSocket = new ServerSocket();
+        try {
+            this.serverSocket.setReuseAddress(true);
+            this.serverSocket.bind(new InetSocketAddress(port), 1024);
+        } catch (IOException e) {
+            serverSocket.close();
+            if (journal != null) {
+                journal.close();
+            }
+            throw e;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = DEFAULT_PORT;
+        int botDepth = DEFAULT_BOT_DEPTH;
+        Path data = null;
+        long slowMoveMillis = -1;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--port") && i + 1 < args.length) {
+                port = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--bot-depth") && i + 1 < args.length) {
+                botDepth = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--data") && i + 1 < args.length) {
+                data = Paths.get(args[++i]);
+            } else if (args[i].equals("--slow-move-ms") && i + 1 < args.length) {
+                slowMoveMillis = Long.parseLong(args[++i]);
+            } else {
+                System.err.println("Usage: GameServer [--port N] [--bot-depth N] [--data DIR] [--slow-move-ms N]");
+                System.exit(2);
+            }
+        }
+        GameServer server = new GameServer(port, botDepth, data);
+        if (slowMoveMillis >= 0) {
+            server.logSlowMoves(slowMoveMillis);
+        }
+        JmxExporter.register(server.botMetrics(), "bot");
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.close();
+            } catch (IOException e) {
+                System.err.println("Shutdown failed: " + e);
+            }
+        }));
+        System.out.println("Listening on port " + server.port() + (ConnectionThreads.virtualThreadsAvailable()
+                ? " (virtual threads)" : " (platform threads)")
+                + (data == null ? "" : ", " + server.activeGames() + " games recovered"));
+        server.serve();
+    }
+
+    public int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    /** Accepts connections until {@link #close()}. */
+    public void serve() throws IOException {
+        while (!serverSocket.isClosed()) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (SocketException e) {
+                if (serverSocket.isClosed()) {
+                    return;
+                }
+                throw e;
+            }
+            try {
+                socket.setTcpNoDelay(true);
+                Session session = new Session(socket, this);
+                sessions.add(session);
+                connections.execute(session::write);
+                connections.execute(session);
+            } catch (IOException e) {
+                socket.close();
+            }
+        }
+    }
+
+    /** Runs {@link #serve()} on a background daemon thread. */
+    public void start() {
+        Thread acceptor = new Thread(() -> {
+            try {
+                serve();
+            } catch (IOException e) {
+                System.err.println("Game server stopped: " + e);
+            }
+        }, "game-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        // Unfinished games stay unfinished rather than forfeited by the disconnects.
+        for (GameRoom room : rooms.values()) {
+            room.suspend();
+        }
+        for (Session session : sessions) {
+            session.close();
+        }
+        connections.shutdownNow();
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    /** Number of games not yet finished. */
+    public int activeGames() {
+        return rooms.size();
+    }
+
+    /** Counters of every bot search on this server. */
+    public EngineMetrics botMetrics() {
+        return botMetrics;
+    }
+
+    /** Describes each bot move taking at least {@code millis} ms on standard error. */
+    public void logSlowMoves(long millis) {
+        slowMoves = TextExporter.slowMoves(System.err, millis);
+    }
+
+    int botDepth() {
+        return botDepth;
+    }
+
+    GameRoom create() {
+        GameRoom room = new GameRoom(nextId.getAndIncrement(), -1, 0, journal, null, this::finished);
+        rooms.put(room.id, room);
+        return room;
+    }
+
+    /** A game against a bot playing white. */
+    GameRoom create(int depth) {
+        GameRoom room = new GameRoom(nextId.getAndIncrement(), Board.WHITE,
+                Math.max(1, Math.min(depth, MAX_BOT_DEPTH)), journal, bots, this::finished);
+        rooms.put(room.id, room);
+        return room;
+    }
+
+    GameRoom room(long id) {
+        GameRoom room = rooms.get(id);
+        if (room == null) {
+            throw new IllegalArgumentException("No game " + id);
+        }
+        return room;
+    }
+
+    void closed(Session session) {
+        sessions.remove(session);
+    }
+
+    private void botSearched(SearchResult result) {
+        botMetrics.searchFinished(result);
+        slowMoves.searchFinished(result);
+    }
+
+    private void finished(GameRoom room) {
+        rooms.remove(room.id);
+    }
+}
@@ -0,0 +1,124 @@
+package checkers.server;
+
+/**
+ * Just enough JSON for the wire protocol: flat objects of string and
+ * number fields, written with {@link #object()} and read back with
+ * {@link #field(String, String)}.
+ */
+final class Json {
+
+    private final StringBuilder text = new StringBuilder("{");
+
+    private Json() {
+    }
+
+    static Json object() {
+        return new Json();
+    }
+
+    Json put(String key, String value) {
+        key(key);
+        quote(value);
+        return this;
+    }
+
+    Json put(String key, long value) {
+        key(key);
+        text.append(value);
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return text + "}";
+    }
+
+    private void key(String key) {
+        if (text.length() > 1) {
+            text.append(',');
+        }
+        quote(key);
+        text.append(':');
+    }
+
+    private void quote(String s) {
+        text.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"':
+                    text.append("\\\"");
+                    break;
+                case '\\':
+                    text.append("\\\\");
+                    break;
+                case '\n':
+                    text.append("\\n");
+                    break;
+                case '\r':
+                    text.append("\\r");
+                    break;
+                case '\t':
+                    text.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        text.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        text.append(c);
+                    }
+            }
+        }
+        text.append('"');
+    }
+
+    /**
+     * Value of a top-level field of a flat object: the unescaped text of a
+     * string, the literal text of a number, or null if the field is absent.
+     */
+    static String field(String json, String key) {
+        String marker = "\"" + key + "\":";
+        int at = json.indexOf(marker);
+        if (at < 0) {
+            return null;
+        }
+        int i = at + marker.length();
+        if (i < json.length() && json.charAt(i) == '"') {
+            StringBuilder value = new StringBuilder();
+            for (i++; i < json.length(); i++) {
+                char c = json.charAt(i);
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c == '\\' && i + 1 < json.length()) {
+                    char e = json.charAt(++i);
+                    switch (e) {
+                        case 'n':
+                            value.append('\n');
+                            break;
+                        case 'r':
+                            value.append('\r');
+                            break;
+                        case 't':
+                            value.append('\t');
+                            break;
+                        case 'u':
+                            value.append((char) Integer.parseInt(json.substring(i + 1, i + 5), 16));
+                            i += 4;
+                            break;
+                        default:
+                            value.append(e);
+                    }
+                } else {
+                    value.append(c);
+                }
+            }
+            return null;
+        }
+        int end = i;
+        while (end < json.length() && ",}".indexOf(json.charAt(end)) < 0) {
+            end++;
+        }
+        return json.substring(i, end).trim();
+    }
+}
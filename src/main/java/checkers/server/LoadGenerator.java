@@ -0,0 +1,196 @@
+package checkers.server;
+
+import checkers.core.Board;
+import checkers.core.Move;
+import checkers.core.MoveGenerator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load test for {@link GameServer}: opens two connections per game, has
+ * them play random legal moves against each other and reports move
+ * throughput and the latency from sending a move to receiving its
+ * broadcast. With {@code --local} it starts a server in the same process,
+ * so no outside service is needed.
+ * <p>
+ * Usage: {@code java checkers.server.LoadGenerator [--host H] [--port N]
+ * [--local] [--games N] [--plies N]}
+ */
+public final class LoadGenerator {
+
+    private final String host;
+    private final int port;
+    private final int plies;
+    private final AtomicLong finished = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final List<long[]> latencies = new ArrayList<>();
+
+    public LoadGenerator(String host, int port, int plies) {
+        this.host = host;
+        this.port = port;
+        this.plies = plies;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String host = "localhost";
+        int port = GameServer.DEFAULT_PORT;
+        boolean local = false;
+        int games = 100;
+        int plies = 60;
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--local")) {
+                local = true;
+            } else if (arg.equals("--host") && i + 1 < args.length) {
+                host = args[++i];
+            } else if (arg.equals("--port") && i + 1 < args.length) {
+                port = Integer.parseInt(args[++i]);
+            } else if (arg.equals("--games") && i + 1 < args.length) {
+                games = Integer.parseInt(args[++i]);
+            } else if (arg.equals("--plies") && i + 1 < args.length) {
+                plies = Integer.parseInt(args[++i]);
+            } else {
+                System.err.println("Usage: LoadGenerator [--host H] [--port N] [--local] [--games N] [--plies N]");
+                System.exit(2);
+            }
+        }
+        GameServer server = null;
+        if (local) {
+            server = new GameServer(0, GameServer.DEFAULT_BOT_DEPTH);
+            server.start();
+            host = "localhost";
+            port = server.port();
+        }
+        try {
+            new LoadGenerator(host, port, plies).run(games);
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+
+    /** Plays {@code games} concurrent games and prints a summary. */
+    public void run(int games) throws InterruptedException {
+        ExecutorService clients = ConnectionThreads.perConnection("load-client");
+        long start = System.nanoTime();
+        List<Future<?>> running = new ArrayList<>();
+        for (int g = 0; g < games; g++) {
+            CompletableFuture<Long> id = new CompletableFuture<>();
+            long seed = g;
+            running.add(clients.submit(() -> play(id, true, seed)));
+            running.add(clients.submit(() -> play(id, false, seed)));
+        }
+        for (Future<?> f : running) {
+            try {
+                f.get();
+            } catch (ExecutionException e) {
+                errors.incrementAndGet();
+            }
+        }
+        clients.shutdown();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long[] all = latencies.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        System.out.printf("%d games finished, %d errors, %d moves in %.2f s (%.0f moves/s)%n",
+                finished.get(), errors.get(), all.length, seconds, all.length / seconds);
+        if (all.length > 0) {
+            System.out.printf("move latency ms: p50 %.2f  p99 %.2f  max %.2f%n",
+                    all[all.length / 2] / 1e6, all[(int) (all.length * 0.99)] / 1e6, all[all.length - 1] / 1e6);
+        }
+    }
+
+    private void play(CompletableFuture<Long> gameId, boolean creator, long seed) {
+        SplittableRandom random = new SplittableRandom(seed * 2 + (creator ? 0 : 1));
+        long[] timings = new long[plies + 2];
+        int timed = 0;
+        try (Socket socket = new Socket(host, port)) {
+            socket.setTcpNoDelay(true);
+            BufferedReader in = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            OutputStream out = socket.getOutputStream();
+            String color = creator ? "black" : "white";
+            long game;
+            if (creator) {
+                send(out, "NEW");
+                String reply = in.readLine();
+                if (reply == null || !"joined".equals(Json.field(reply, "type"))) {
+                    gameId.completeExceptionally(new IOException("Unexpected reply: " + reply));
+                    errors.incrementAndGet();
+                    return;
+                }
+                game = Long.parseLong(Json.field(reply, "game"));
+                gameId.complete(game);
+            } else {
+                game = gameId.get();
+                send(out, "JOIN " + game);
+            }
+            long sentAt = 0;
+            long[] legal = new long[MoveGenerator.MAX_MOVES];
+            for (String line; (line = in.readLine()) != null; ) {
+                String type = Json.field(line, "type");
+                if ("end".equals(type)) {
+                    if (creator) {
+                        finished.incrementAndGet();
+                    }
+                    break;
+                }
+                if ("error".equals(type)) {
+                    errors.incrementAndGet();
+                    break;
+                }
+                if (!"start".equals(type) && !"move".equals(type)) {
+                    continue;
+                }
+                if (sentAt != 0 && timed < timings.length) {
+                    timings[timed++] = System.nanoTime() - sentAt;
+                    sentAt = 0;
+                }
+                if (!color.equals(Json.field(line, "toMove"))) {
+                    continue;
+                }
+                String ply = Json.field(line, "ply");
+                if (ply != null && Integer.parseInt(ply) >= plies) {
+                    send(out, "RESIGN " + game);
+                    continue;
+                }
+                Board board = Board.fromFen(Json.field(line, "fen"));
+                int count = MoveGenerator.generate(board, legal, 0);
+                if (count == 0) {
+                    // Lost; the end event follows.
+                    continue;
+                }
+                sentAt = System.nanoTime();
+                send(out, "MOVE " + game + " " + Move.toPathString(legal[random.nextInt(count)]));
+            }
+            send(out, "QUIT");
+        } catch (IOException | ExecutionException e) {
+            errors.incrementAndGet();
+            gameId.completeExceptionally(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            synchronized (latencies) {
+                latencies.add(Arrays.copyOf(timings, timed));
+            }
+        }
+    }
+
+    private static void send(OutputStream out, String command) throws IOException {
+        out.write((command + "\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+}
@@ -0,0 +1,133 @@
+package checkers.server;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One client connection, served by two threads: {@link #run()} reads
+ * command lines (see {@link Commands}) and {@link #write()} writes replies
+ * and game events as JSON lines.
+ * <p>
+ * {@link #deliver} only queues the event's cached line, so a room never
+ * waits on a slow client's socket while holding its lock. A client that
+ * lets more than {@link #MAX_QUEUED_BYTES} of events pile up is
+ * disconnected rather than buffered without bound.
+ */
+final class Session implements Runnable, Subscriber {
+
+    static final int MAX_LINE_BYTES = 1024;
+    /** Events a client may fall behind by before it is dropped. */
+    static final int MAX_QUEUED_BYTES = 1 << 20;
+
+    /** Queued after the last line; the writer flushes and closes the socket. */
+    private static final byte[] END = new byte[0];
+
+    private final Socket socket;
+    private final GameServer server;
+    private final OutputStream out;
+    private final BlockingQueue<byte[]> outbox = new LinkedBlockingQueue<>();
+    private final AtomicInteger queuedBytes = new AtomicInteger();
+    private final Commands commands;
+    private final byte[] line = new byte[MAX_LINE_BYTES];
+    private volatile boolean closed;
+
+    Session(Socket socket, GameServer server) throws IOException {
+        this.socket = socket;
+        this.server = server;
+        this.commands = new Commands(server, this);
+        this.out = new BufferedOutputStream(socket.getOutputStream(), 8192);
+    }
+
+    /** Reads and handles commands until the client quits or disconnects. */
+    @Override
+    public void run() {
+        try {
+            InputStream in = new BufferedInputStream(socket.getInputStream(), 8192);
+            String command;
+            while ((command = readLine(in)) != null) {
+                if (!commands.handle(command.trim())) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            // Connection reset or overlong line; treated as a disconnect.
+        } finally {
+            try {
+                commands.leaveAll();
+            } finally {
+                server.closed(this);
+                // The writer sends what is queued, then closes the socket.
+                outbox.add(END);
+            }
+        }
+    }
+
+    /** Writes queued lines, flushing whenever the queue runs dry, until the session ends. */
+    void write() {
+        try {
+            byte[] next = outbox.take();
+            while (next != END) {
+                out.write(next);
+                queuedBytes.addAndGet(-next.length);
+                next = outbox.poll();
+                if (next == null) {
+                    out.flush();
+                    next = outbox.take();
+                }
+            }
+            out.flush();
+        } catch (IOException | InterruptedException e) {
+            // Closed underneath us, or the server is shutting down.
+        } finally {
+            close();
+        }
+    }
+
+    @Override
+    public void deliver(GameEvent event) {
+        if (closed) {
+            return;
+        }
+        byte[] bytes = event.line();
+        if (queuedBytes.addAndGet(bytes.length) > MAX_QUEUED_BYTES) {
+            // The reading thread sees the closed socket and cleans up.
+            close();
+            return;
+        }
+        outbox.add(bytes);
+    }
+
+    void close() {
+        closed = true;
+        outbox.add(END);
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Already closed.
+        }
+    }
+
+    /** Reads a line of at most {@link #MAX_LINE_BYTES} bytes; null at end of stream. */
+    private String readLine(InputStream in) throws IOException {
+        int length = 0;
+        int c;
+        while ((c = in.read()) >= 0 && c != '\n') {
+            if (length == MAX_LINE_BYTES) {
+                throw new IOException("Line too long");
+            }
+            line[length++] = (byte) c;
+        }
+        if (c < 0 && length == 0) {
+            return null;
+        }
+        return new String(line, 0, length, StandardCharsets.UTF_8);
+    }
+}
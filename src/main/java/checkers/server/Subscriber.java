@@ -0,0 +1,12 @@
+package checkers.server;
+
+/** Receives the events of the games it plays in or watches. */
+interface Subscriber {
+
+    /**
+     * Delivers {@code event}. Called with the game's lock held, so events
+     * of one game arrive in order; implementations queue it and must not
+     * block on I/O.
+     */
+    void deliver(GameEvent event);
+}
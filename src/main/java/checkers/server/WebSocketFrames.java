@@ -0,0 +1,71 @@
+package checkers.server;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/** RFC 6455 pieces the gateway needs: the handshake key and server frames. */
+final class WebSocketFrames {
+
+    static final int OP_CONTINUATION = 0x0;
+    static final int OP_TEXT = 0x1;
+    static final int OP_BINARY = 0x2;
+    static final int OP_CLOSE = 0x8;
+    static final int OP_PING = 0x9;
+    static final int OP_PONG = 0xA;
+
+    static final int CLOSE_NORMAL = 1000;
+    static final int CLOSE_PROTOCOL_ERROR = 1002;
+    static final int CLOSE_UNSUPPORTED = 1003;
+    static final int CLOSE_INVALID_PAYLOAD = 1007;
+    static final int CLOSE_TOO_BIG = 1009;
+
+    /** Control frame payloads are limited to 125 bytes. */
+    static final int MAX_CONTROL_PAYLOAD = 125;
+
+    private static final String ACCEPT_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+
+    private WebSocketFrames() {
+    }
+
+    /** The {@code Sec-WebSocket-Accept} value answering {@code key}. */
+    static String acceptKey(String key) {
+        try {
+            MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+            byte[] digest = sha1.digest((key.trim() + ACCEPT_GUID).getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 not available", e);
+        }
+    }
+
+    static byte[] text(byte[] payload, int offset, int length) {
+        return frame(OP_TEXT, payload, offset, length);
+    }
+
+    static byte[] close(int code) {
+        return frame(OP_CLOSE, new byte[] {(byte) (code >>> 8), (byte) code}, 0, 2);
+    }
+
+    /** A final, unmasked frame; servers never mask what they send. */
+    static byte[] frame(int opcode, byte[] payload, int offset, int length) {
+        int header = length < 126 ? 2 : length <= 0xFFFF ? 4 : 10;
+        byte[] frame = new byte[header + length];
+        frame[0] = (byte) (0x80 | opcode);
+        if (length < 126) {
+            frame[1] = (byte) length;
+        } else if (length <= 0xFFFF) {
+            frame[1] = 126;
+            frame[2] = (byte) (length >>> 8);
+            frame[3] = (byte) length;
+        } else {
+            frame[1] = 127;
+            for (int i = 0; i < 8; i++) {
+                frame[2 + i] = (byte) ((long) length >>> (56 - 8 * i));
+            }
+        }
+        System.arraycopy(payload, offset, frame, header, length);
+        return frame;
+    }
+}
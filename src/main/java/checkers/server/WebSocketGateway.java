@@ -0,0 +1,529 @@
+package checkers.server;
+
+import checkers.metrics.JmxExporter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * WebSocket front end for a {@link GameServer}: browsers and other
+ * WebSocket clients send the same commands as the line protocol, one per
+ * text message, and receive each event as a text message. Games are the
+ * server's own rooms, so WebSocket and TCP clients can play and watch
+ * each other.
+ * <p>
+ * All sockets are served by one thread looping over a {@link Selector}.
+ * A room broadcast only queues the event's cached frame (see
+ * {@link GameEvent#frame()}) on each recipient and wakes the loop, so a
+ * move watched by thousands of spectators is serialised once and the
+ * bytes are shared by every queue. Commands run off the loop, in order
+ * per connection, because a bot reply searches on the thread that played
+ * the move. A client that lets more than {@link #MAX_QUEUED_BYTES} of
+ * events pile up is disconnected rather than buffered without bound.
+ * <p>
+ * Usage: {@code java checkers.server.WebSocketGateway [--port N]
+ * [--tcp-port N] [--bot-depth N] [--data DIR]}
+ */
+public final class WebSocketGateway implements Closeable {
+
+    public static final int DEFAULT_PORT = 7789;
+    /** Events a client may fall behind by before it is dropped. */
+    static final int MAX_QUEUED_BYTES = 1 << 20;
+    static final int MAX_REQUEST_BYTES = 8192;
+
+    private static final byte[] BAD_REQUEST =
+            "HTTP/1.1 400 Bad Request\r\nConnection: close\r\nContent-Length: 0\r\n\r\n"
+                    .getBytes(StandardCharsets.US_ASCII);
+
+    private final GameServer server;
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final ExecutorService commandThreads = ConnectionThreads.perConnection("ws-command");
+    /** Connections with queued output, handed from other threads to the loop. */
+    private final Queue<Connection> pendingFlush = new ConcurrentLinkedQueue<>();
+    private volatile boolean closed;
+    private volatile Thread loop;
+
+    public WebSocketGateway(GameServer server, int port) throws IOException {
+        this.server = server;
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        this.serverChannel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        this.serverChannel.bind(new InetSocketAddress(port), 1024);
+        this.serverChannel.configureBlocking(false);
+        this.serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = DEFAULT_PORT;
+        int tcpPort = GameServer.DEFAULT_PORT;
+        int botDepth = GameServer.DEFAULT_BOT_DEPTH;
+        Path data = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--port") && i + 1 < args.length) {
+                port = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--tcp-port") && i + 1 < args.length) {
+                tcpPort = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--bot-depth") && i + 1 < args.length) {
+                botDepth = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--data") && i + 1 < args.length) {
+                data = Paths.get(args[++i]);
+            } else {
+                System.err.println("Usage: WebSocketGateway [--port N] [--tcp-port N] [--bot-depth N] [--data DIR]");
+                System.exit(2);
+            }
+        }
+        GameServer server = new GameServer(tcpPort, botDepth, data);
+        JmxExporter.register(server.botMetrics(), "bot");
+        server.start();
+        WebSocketGateway gateway = new WebSocketGateway(server, port);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                // The server first, so its games are suspended rather than forfeited.
+                server.close();
+                gateway.close();
+            } catch (IOException e) {
+                System.err.println("Shutdown failed: " + e);
+            }
+        }));
+        System.out.println("Listening on port " + gateway.port() + " (WebSocket) and "
+                + server.port() + " (TCP)");
+        gateway.serve();
+    }
+
+    public int port() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /** Runs the event loop until {@link #close()}. */
+    public void serve() throws IOException {
+        loop = Thread.currentThread();
+        try {
+            while (!closed) {
+                selector.select();
+                for (Connection c; (c = pendingFlush.poll()) != null; ) {
+                    c.flush();
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    Connection c = (Connection) key.attachment();
+                    if (key.isReadable()) {
+                        c.read();
+                    }
+                    if (key.isValid() && key.isWritable()) {
+                        c.flush();
+                    }
+                }
+            }
+        } finally {
+            shutdown();
+        }
+    }
+
+    /** Runs {@link #serve()} on a background daemon thread. */
+    public void start() {
+        Thread loop = new Thread(() -> {
+            try {
+                serve();
+            } catch (IOException e) {
+                System.err.println("WebSocket gateway stopped: " + e);
+            }
+        }, "ws-loop");
+        loop.setDaemon(true);
+        loop.start();
+    }
+
+    /** Stops the loop and disconnects every client; their games are forfeited. */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        Thread running = loop;
+        if (running == null) {
+            shutdown();
+            return;
+        }
+        selector.wakeup();
+        try {
+            running.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void shutdown() throws IOException {
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof Connection) {
+                ((Connection) key.attachment()).close();
+            }
+        }
+        serverChannel.close();
+        selector.close();
+        commandThreads.shutdown();
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            Connection c = new Connection(channel);
+            c.key = channel.register(selector, SelectionKey.OP_READ, c);
+        }
+    }
+
+    /**
+     * One WebSocket client. Reading, writing and interest changes happen on
+     * the loop thread; {@link #deliver} and the command thread only append
+     * to the output queue and ask the loop to flush.
+     */
+    private final class Connection implements Subscriber {
+
+        private final SocketChannel channel;
+        private SelectionKey key;
+        private final ByteBuffer in = ByteBuffer.allocate(MAX_REQUEST_BYTES);
+        /** The data message being received, reassembled from its fragments. */
+        private final byte[] payload = new byte[Session.MAX_LINE_BYTES];
+        private int messageOpcode;
+        private int messageLength;
+        private boolean fragmented;
+        /** Control frames may arrive between fragments, so they get their own buffer. */
+        private final byte[] controlPayload = new byte[WebSocketFrames.MAX_CONTROL_PAYLOAD];
+        private final CharsetDecoder utf8 = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        private boolean upgraded;
+
+        private final Queue<ByteBuffer> out = new ConcurrentLinkedQueue<>();
+        private final ByteBuffer[] batch = new ByteBuffer[16];
+        private final AtomicInteger queuedBytes = new AtomicInteger();
+        private final AtomicBoolean flushScheduled = new AtomicBoolean();
+        private volatile boolean closeAfterFlush;
+        private volatile boolean overflowed;
+        private volatile boolean closed;
+
+        private final Commands commands = new Commands(server, this);
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean running = new AtomicBoolean();
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void deliver(GameEvent event) {
+            send(event.frame());
+        }
+
+        /** Queues shared bytes for this client; callable from any thread. */
+        private void send(byte[] bytes) {
+            if (closed) {
+                return;
+            }
+            if (queuedBytes.addAndGet(bytes.length) > MAX_QUEUED_BYTES) {
+                overflowed = true;
+            } else {
+                out.add(ByteBuffer.wrap(bytes));
+            }
+            if (flushScheduled.compareAndSet(false, true)) {
+                pendingFlush.add(this);
+                selector.wakeup();
+            }
+        }
+
+        /** Writes as much queued output as the socket takes. Loop thread only. */
+        void flush() {
+            flushScheduled.set(false);
+            if (closed) {
+                return;
+            }
+            if (overflowed) {
+                close();
+                return;
+            }
+            try {
+                while (true) {
+                    int n = 0;
+                    for (ByteBuffer b : out) {
+                        batch[n++] = b;
+                        if (n == batch.length) {
+                            break;
+                        }
+                    }
+                    if (n == 0) {
+                        break;
+                    }
+                    channel.write(batch, 0, n);
+                    int done = 0;
+                    while (done < n && !batch[done].hasRemaining()) {
+                        out.poll();
+                        queuedBytes.addAndGet(-batch[done].capacity());
+                        done++;
+                    }
+                    Arrays.fill(batch, 0, n, null);
+                    if (done < n) {
+                        break;
+                    }
+                }
+            } catch (IOException e) {
+                close();
+                return;
+            }
+            if (out.isEmpty()) {
+                if (closeAfterFlush) {
+                    close();
+                } else {
+                    key.interestOps(SelectionKey.OP_READ);
+                }
+            } else {
+                key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            }
+        }
+
+        /** Loop thread only. */
+        void read() {
+            try {
+                if (channel.read(in) < 0) {
+                    close();
+                    return;
+                }
+                if (closeAfterFlush) {
+                    // Hanging up; the rest of the input is ignored.
+                    in.clear();
+                    return;
+                }
+                in.flip();
+                boolean more = upgraded ? readFrames() : readHandshake();
+                in.compact();
+                if (more && !in.hasRemaining()) {
+                    // A request or frame larger than the buffer.
+                    refuse(upgraded ? WebSocketFrames.CLOSE_TOO_BIG : 0);
+                }
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        /** Returns true while the request is still incomplete. */
+        private boolean readHandshake() {
+            int end = -1;
+            for (int i = in.position(); i + 3 < in.limit(); i++) {
+                if (in.get(i) == '\r' && in.get(i + 1) == '\n' && in.get(i + 2) == '\r' && in.get(i + 3) == '\n') {
+                    end = i;
+                    break;
+                }
+            }
+            if (end < 0) {
+                return true;
+            }
+            byte[] request = new byte[end - in.position()];
+            in.get(request);
+            in.position(end + 4);
+            String[] lines = new String(request, StandardCharsets.ISO_8859_1).split("\r\n");
+            String key = null;
+            boolean websocket = false;
+            for (int i = 1; i < lines.length; i++) {
+                int colon = lines[i].indexOf(':');
+                if (colon < 0) {
+                    continue;
+                }
+                String name = lines[i].substring(0, colon).trim().toLowerCase(Locale.ROOT);
+                String value = lines[i].substring(colon + 1).trim();
+                if (name.equals("upgrade")) {
+                    websocket = value.toLowerCase(Locale.ROOT).contains("websocket");
+                } else if (name.equals("sec-websocket-key")) {
+                    key = value;
+                }
+            }
+            if (!lines[0].startsWith("GET ") || !websocket || key == null) {
+                refuse(0);
+                return false;
+            }
+            upgraded = true;
+            send(("HTTP/1.1 101 Switching Protocols\r\nUpgrade: websocket\r\nConnection: Upgrade\r\n"
+                    + "Sec-WebSocket-Accept: " + WebSocketFrames.acceptKey(key) + "\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII));
+            return readFrames();
+        }
+
+        /** Handles every complete frame; returns true if a partial one remains. */
+        private boolean readFrames() {
+            while (!closeAfterFlush && in.remaining() >= 2) {
+                int start = in.position();
+                int b0 = in.get(start) & 0xFF;
+                int b1 = in.get(start + 1) & 0xFF;
+                int opcode = b0 & 0x0F;
+                long length = b1 & 0x7F;
+                int header = 2;
+                if (length == 126) {
+                    if (in.remaining() < 4) {
+                        return true;
+                    }
+                    length = in.getShort(start + 2) & 0xFFFF;
+                    header = 4;
+                } else if (length == 127) {
+                    if (in.remaining() < 10) {
+                        return true;
+                    }
+                    length = in.getLong(start + 2);
+                    header = 10;
+                }
+                boolean fin = (b0 & 0x80) != 0;
+                boolean control = (opcode & 0x8) != 0;
+                // Reserved bits set (no extension is negotiated), an unmasked client frame, a
+                // fragmented control frame, or a continuation that does not continue anything.
+                if ((b0 & 0x70) != 0 || (b1 & 0x80) == 0
+                        || (control ? !fin : (opcode == WebSocketFrames.OP_CONTINUATION) != fragmented)) {
+                    refuse(WebSocketFrames.CLOSE_PROTOCOL_ERROR);
+                    return false;
+                }
+                long room = control ? WebSocketFrames.MAX_CONTROL_PAYLOAD : payload.length - messageLength;
+                if (length < 0 || length > room) {
+                    refuse(WebSocketFrames.CLOSE_TOO_BIG);
+                    return false;
+                }
+                int total = header + 4 + (int) length;
+                if (in.remaining() < total) {
+                    return true;
+                }
+                byte[] target = control ? controlPayload : payload;
+                int at = control ? 0 : messageLength;
+                int mask = start + header;
+                for (int i = 0; i < length; i++) {
+                    target[at + i] = (byte) (in.get(mask + 4 + i) ^ in.get(mask + (i & 3)));
+                }
+                in.position(start + total);
+                if (control) {
+                    handleControl(opcode, (int) length);
+                } else {
+                    if (opcode != WebSocketFrames.OP_CONTINUATION) {
+                        messageOpcode = opcode;
+                    }
+                    messageLength += (int) length;
+                    fragmented = !fin;
+                    if (fin) {
+                        int messageBytes = messageLength;
+                        messageLength = 0;
+                        handleMessage(messageOpcode, messageBytes);
+                    }
+                }
+            }
+            return in.hasRemaining() && !closeAfterFlush;
+        }
+
+        private void handleMessage(int opcode, int length) {
+            if (opcode != WebSocketFrames.OP_TEXT) {
+                refuse(WebSocketFrames.CLOSE_UNSUPPORTED);
+                return;
+            }
+            String command;
+            try {
+                command = utf8.decode(ByteBuffer.wrap(payload, 0, length)).toString().trim();
+            } catch (CharacterCodingException e) {
+                refuse(WebSocketFrames.CLOSE_INVALID_PAYLOAD);
+                return;
+            }
+            submit(() -> {
+                if (!commands.handle(command)) {
+                    closeAfterFlush = true;
+                    send(WebSocketFrames.close(WebSocketFrames.CLOSE_NORMAL));
+                }
+            });
+        }
+
+        private void handleControl(int opcode, int length) {
+            switch (opcode) {
+                case WebSocketFrames.OP_PING:
+                    send(WebSocketFrames.frame(WebSocketFrames.OP_PONG, controlPayload, 0, length));
+                    break;
+                case WebSocketFrames.OP_PONG:
+                    break;
+                case WebSocketFrames.OP_CLOSE:
+                    closeAfterFlush = true;
+                    send(WebSocketFrames.frame(WebSocketFrames.OP_CLOSE, controlPayload, 0, Math.min(length, 2)));
+                    break;
+                default:
+                    refuse(WebSocketFrames.CLOSE_PROTOCOL_ERROR);
+                    break;
+            }
+        }
+
+        /** Answers a bad request or frame and hangs up once the answer is sent. */
+        private void refuse(int closeCode) {
+            closeAfterFlush = true;
+            send(closeCode == 0 ? BAD_REQUEST : WebSocketFrames.close(closeCode));
+        }
+
+        /** Runs {@code task} after the connection's earlier commands, off the loop thread. */
+        private void submit(Runnable task) {
+            tasks.add(task);
+            if (running.compareAndSet(false, true)) {
+                try {
+                    commandThreads.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    // Shutting down.
+                    running.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            do {
+                for (Runnable task; (task = tasks.poll()) != null; ) {
+                    try {
+                        task.run();
+                    } catch (RuntimeException e) {
+                        // Later commands of the connection still have to run.
+                        System.err.println("Command failed: " + e);
+                    }
+                }
+                running.set(false);
+            } while (!tasks.isEmpty() && running.compareAndSet(false, true));
+        }
+
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Already closed.
+            }
+            out.clear();
+            submit(commands::leaveAll);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package checkers.tablebase;
+
+/**
+ * One material signature of the endgame database and its position index.
+ * <p>
+ * Positions are always stored with the side to move playing "down" the
+ * board like black; white-to-move positions are rotated 180 degrees and
+ * their colours swapped first (see {@link Tablebase#probe}). A position is
+ * indexed by the colex ranks of four square sets, in this order: own men
+ * on squares 1-28, opposing men on squares 5-32, own kings among the
+ * squares left free by the men, and opposing kings among the squares still
+ * free. Men of the two sides are ranked independently, so a few indices
+ * decode to men sharing a square; those are skipped.
+ */
+final class Slice {
+
+    static final int MAX_PER_SIDE = 12;
+    static final int KEY_COUNT = 13 * 13 * 13 * 13;
+
+    private static final int MAN_SQUARES = 28;
+    private static final long[][] BINOMIAL = new long[33][MAX_PER_SIDE + 1];
+
+    static {
+        for (int n = 0; n <= 32; n++) {
+            BINOMIAL[n][0] = 1;
+            for (int k = 1; k <= MAX_PER_SIDE; k++) {
+                BINOMIAL[n][k] = n == 0 ? 0 : BINOMIAL[n - 1][k - 1] + BINOMIAL[n - 1][k];
+            }
+        }
+    }
+
+    final int ownMen;
+    final int ownKings;
+    final int oppMen;
+    final int oppKings;
+    final long size;
+
+    private final long oppMenRanks;
+    private final long ownKingRanks;
+    private final long oppKingRanks;
+
+    Slice(int ownMen, int ownKings, int oppMen, int oppKings) {
+        if (ownMen + ownKings > MAX_PER_SIDE || oppMen + oppKings > MAX_PER_SIDE
+                || ownMen < 0 || ownKings < 0 || oppMen < 0 || oppKings < 0) {
+            throw new IllegalArgumentException("Invalid material: " + name(ownMen, ownKings, oppMen, oppKings));
+        }
+        this.ownMen = ownMen;
+        this.ownKings = ownKings;
+        this.oppMen = oppMen;
+        this.oppKings = oppKings;
+        int free = 32 - ownMen - oppMen;
+        oppMenRanks = BINOMIAL[MAN_SQUARES][oppMen];
+        ownKingRanks = BINOMIAL[free][ownKings];
+        oppKingRanks = BINOMIAL[free - ownKings][oppKings];
+        size = BINOMIAL[MAN_SQUARES][ownMen] * oppMenRanks * ownKingRanks * oppKingRanks;
+    }
+
+    static int key(int ownMen, int ownKings, int oppMen, int oppKings) {
+        return ((ownMen * 13 + ownKings) * 13 + oppMen) * 13 + oppKings;
+    }
+
+    int key() {
+        return key(ownMen, ownKings, oppMen, oppKings);
+    }
+
+    /** Key of the same material seen from the other side. */
+    int swappedKey() {
+        return key(oppMen, oppKings, ownMen, ownKings);
+    }
+
+    int pieces() {
+        return ownMen + ownKings + oppMen + oppKings;
+    }
+
+    int men() {
+        return ownMen + oppMen;
+    }
+
+    /** Index of a normalised position whose material matches this slice. */
+    long index(int ownMenBits, int ownKingBits, int oppMenBits, int oppKingBits) {
+        int men = ownMenBits | oppMenBits;
+        long r1 = rank(ownMenBits);
+        long r2 = rank(oppMenBits >>> 4);
+        long r3 = rank(compress(ownKingBits, men));
+        long r4 = rank(compress(oppKingBits, men | ownKingBits));
+        return ((r1 * oppMenRanks + r2) * ownKingRanks + r3) * oppKingRanks + r4;
+    }
+
+    /**
+     * Decodes {@code index} into own pieces, opposing pieces and kings, in
+     * that order. Returns false if the index does not describe a position.
+     */
+    boolean decode(long index, int[] out) {
+        long r4 = index % oppKingRanks;
+        index /= oppKingRanks;
+        long r3 = index % ownKingRanks;
+        index /= ownKingRanks;
+        long r2 = index % oppMenRanks;
+        long r1 = index / oppMenRanks;
+        int ownMenBits = unrank(r1, ownMen);
+        int oppMenBits = unrank(r2, oppMen) << 4;
+        if ((ownMenBits & oppMenBits) != 0) {
+            return false;
+        }
+        int men = ownMenBits | oppMenBits;
+        int ownKingBits = expand(unrank(r3, ownKings), men);
+        int oppKingBits = expand(unrank(r4, oppKings), men | ownKingBits);
+        out[0] = ownMenBits | ownKingBits;
+        out[1] = oppMenBits | oppKingBits;
+        out[2] = ownKingBits | oppKingBits;
+        return true;
+    }
+
+    /** Colex rank of a set of positions: the sum of C(p_i, i) over its members. */
+    private static long rank(int positions) {
+        long rank = 0;
+        int i = 1;
+        for (int bits = positions; bits != 0; bits &= bits - 1) {
+            rank += BINOMIAL[Integer.numberOfTrailingZeros(bits)][i++];
+        }
+        return rank;
+    }
+
+    private static int unrank(long rank, int k) {
+        int positions = 0;
+        int p = 31;
+        for (int i = k; i >= 1; i--) {
+            while (BINOMIAL[p][i] > rank) {
+                p--;
+            }
+            positions |= 1 << p;
+            rank -= BINOMIAL[p][i];
+            p--;
+        }
+        return positions;
+    }
+
+    /** Renumbers squares so that the squares in {@code removed} are skipped. */
+    private static int compress(int squares, int removed) {
+        int positions = 0;
+        for (int bits = squares; bits != 0; bits &= bits - 1) {
+            int sq = Integer.numberOfTrailingZeros(bits);
+            positions |= 1 << (sq - Integer.bitCount(removed & ((1 << sq) - 1)));
+        }
+        return positions;
+    }
+
+    private static int expand(int positions, int removed) {
+        int squares = 0;
+        int sq = 0;
+        for (int bits = positions; bits != 0; bits &= bits - 1) {
+            int target = Integer.numberOfTrailingZeros(bits);
+            // Walk to the target-th square not in removed.
+            int seen = sq - Integer.bitCount(removed & ((1 << sq) - 1));
+            while (true) {
+                if ((removed & (1 << sq)) == 0) {
+                    if (seen == target) {
+                        break;
+                    }
+                    seen++;
+                }
+                sq++;
+            }
+            squares |= 1 << sq;
+            sq++;
+        }
+        return squares;
+    }
+
+    static String name(int ownMen, int ownKings, int oppMen, int oppKings) {
+        return ownMen + "m" + ownKings + "k-" + oppMen + "m" + oppKings + "k";
+    }
+
+    @Override
+    public String toString() {
+        return name(ownMen, ownKings, oppMen, oppKings);
+    }
+}
@@ -0,0 +1,146 @@
+package checkers.tablebase;
+
+import checkers.core.Board;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Win/loss/draw endgame database with perfect-play values for every
+ * position of up to {@link #maxPieces()} pieces.
+ * <p>
+ * File layout (big-endian): the magic {@code CKTB}, format version, maximum
+ * piece count and slice count, then one directory entry per slice (four
+ * material bytes, data offset and position count as longs), then the slice
+ * data. Values are packed four positions to a byte, two bits each, position
+ * {@code i} in bits {@code 2 * (i & 3)} of byte {@code i >> 2}.
+ * <p>
+ * {@link #load(Path)} memory-maps each slice read-only instead of copying it
+ * onto the heap. Opening is then a matter of reading the directory, pages
+ * are faulted in as probes touch them, and engine processes on one machine
+ * share a single copy through the OS page cache.
+ */
+public final class Tablebase {
+
+    /** The position is not covered by the database. */
+    public static final int UNKNOWN = -1;
+    public static final int DRAW = 0;
+    /** The side to move wins. */
+    public static final int WIN = 1;
+    /** The side to move loses. */
+    public static final int LOSS = 2;
+
+    static final int MAGIC = 0x434B5442;
+    static final int VERSION = 1;
+
+    private final int maxPieces;
+    private final Slice[] slices = new Slice[Slice.KEY_COUNT];
+    private final ByteBuffer[] data = new ByteBuffer[Slice.KEY_COUNT];
+
+    Tablebase(int maxPieces) {
+        this.maxPieces = maxPieces;
+    }
+
+    /** Maps a database written by {@link TablebaseGenerator}. */
+    public static Tablebase load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = map(channel, 0, 16);
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException("Not a tablebase file: " + file);
+            }
+            int version = header.getInt(4);
+            if (version != VERSION) {
+                throw new IOException("Unsupported tablebase version " + version + ": " + file);
+            }
+            Tablebase tablebase = new Tablebase(header.getInt(8));
+            int count = header.getInt(12);
+            if (count < 0 || 16L + count * 20L > channel.size()) {
+                throw new IOException("Corrupt tablebase directory: " + file);
+            }
+            ByteBuffer directory = map(channel, 16, count * 20L);
+            for (int i = 0; i < count; i++) {
+                int entry = i * 20;
+                Slice slice = new Slice(directory.get(entry) & 0xFF, directory.get(entry + 1) & 0xFF,
+                        directory.get(entry + 2) & 0xFF, directory.get(entry + 3) & 0xFF);
+                long offset = directory.getLong(entry + 4);
+                if (directory.getLong(entry + 12) != slice.size) {
+                    throw new IOException("Slice " + slice + " has the wrong size: " + file);
+                }
+                int length = packedLength(slice.size);
+                if (offset < 0 || offset + length > channel.size()) {
+                    throw new IOException("Slice " + slice + " lies outside the file: " + file);
+                }
+                tablebase.put(slice, map(channel, offset, length));
+            }
+            return tablebase;
+        }
+    }
+
+    private static ByteBuffer map(FileChannel channel, long offset, long length) throws IOException {
+        // The mapping stays valid after the channel is closed.
+        return channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+    }
+
+    public int maxPieces() {
+        return maxPieces;
+    }
+
+    /**
+     * Perfect-play value of {@code board} for the side to move: {@link #WIN},
+     * {@link #LOSS}, {@link #DRAW}, or {@link #UNKNOWN} if the position has
+     * more pieces than the database covers. Does not allocate.
+     */
+    public int probe(Board board) {
+        int own;
+        int opp;
+        int kings;
+        if (board.sideToMove() == Board.BLACK) {
+            own = board.black();
+            opp = board.white();
+            kings = board.kings();
+        } else {
+            own = Integer.reverse(board.white());
+            opp = Integer.reverse(board.black());
+            kings = Integer.reverse(board.kings());
+        }
+        if (own == 0) {
+            return LOSS;
+        }
+        if (Integer.bitCount(own | opp) > maxPieces || opp == 0) {
+            return UNKNOWN;
+        }
+        return probeNormalized(own, opp, kings);
+    }
+
+    /** Probes a position given with the side to move playing as black. */
+    int probeNormalized(int own, int opp, int kings) {
+        int ownMen = own & ~kings;
+        int ownKings = own & kings;
+        int oppMen = opp & ~kings;
+        int oppKings = opp & kings;
+        int key = Slice.key(Integer.bitCount(ownMen), Integer.bitCount(ownKings),
+                Integer.bitCount(oppMen), Integer.bitCount(oppKings));
+        Slice slice = slices[key];
+        if (slice == null) {
+            return UNKNOWN;
+        }
+        long index = slice.index(ownMen, ownKings, oppMen, oppKings);
+        return (data[key].get((int) (index >>> 2)) >>> ((index & 3) << 1)) & 3;
+    }
+
+    void put(Slice slice, ByteBuffer packed) {
+        slices[slice.key()] = slice;
+        data[slice.key()] = packed;
+    }
+
+    static int packedLength(long positions) {
+        long length = (positions + 3) >>> 2;
+        if (length > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Slice too large: " + positions + " positions");
+        }
+        return (int) length;
+    }
+}
@@ -0,0 +1,281 @@
+package checkers.tablebase;
+
+import checkers.core.Board;
+import checkers.core.MoveGenerator;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.LongStream;
+
+/**
+ * Builds the win/loss/draw database by retrograde analysis.
+ * <p>
+ * Slices are solved from fewest pieces up. A slice and its colour-swapped
+ * twin are solved together, because every quiet move leads from one to the
+ * other; captures and promotions lead only into slices solved earlier. Each
+ * pass marks a position won if some move reaches a position lost for the
+ * opponent, and lost if every move reaches a position won for the opponent
+ * (or there is no move). Passes repeat until nothing changes; whatever is
+ * still unresolved is a draw. Passes run in parallel over index ranges:
+ * values only ever move from unresolved to final, so a stale read only
+ * delays a result to the next pass.
+ * <p>
+ * Usage: {@code java checkers.tablebase.TablebaseGenerator [--pieces N] FILE}.
+ */
+public final class TablebaseGenerator {
+
+    public static final int DEFAULT_PIECES = 6;
+
+    private static final byte UNRESOLVED = 0;
+    private static final byte WIN = Tablebase.WIN;
+    private static final byte LOSS = Tablebase.LOSS;
+    private static final byte INVALID = 3;
+
+    private static final int CHUNK = 1 << 14;
+
+    private final int maxPieces;
+    private final Tablebase solved;
+    /** Slices of the group being solved, one value byte per position. */
+    private final byte[][] working = new byte[Slice.KEY_COUNT][];
+    private final Slice[] workingSlices = new Slice[Slice.KEY_COUNT];
+    /** Finished slices, packed as in the file. */
+    private final byte[][] packed = new byte[Slice.KEY_COUNT][];
+
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    public TablebaseGenerator(int maxPieces) {
+        if (maxPieces < 2 || maxPieces > 2 * Slice.MAX_PER_SIDE) {
+            throw new IllegalArgumentException("Piece count out of range: " + maxPieces);
+        }
+        this.maxPieces = maxPieces;
+        this.solved = new Tablebase(maxPieces);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int pieces = DEFAULT_PIECES;
+        Path output = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--pieces") && i + 1 < args.length) {
+                pieces = Integer.parseInt(args[++i]);
+            } else if (output == null && !args[i].startsWith("--")) {
+                output = Paths.get(args[i]);
+            } else {
+                System.err.println("Usage: TablebaseGenerator [--pieces N] FILE");
+                System.exit(2);
+            }
+        }
+        if (output == null) {
+            System.err.println("Usage: TablebaseGenerator [--pieces N] FILE");
+            System.exit(2);
+        }
+        new TablebaseGenerator(pieces).generate(output);
+    }
+
+    /** Solves every slice of up to {@code maxPieces} pieces and writes the database. */
+    public Tablebase generate(Path output) throws IOException {
+        List<Slice> order = new ArrayList<>();
+        for (Slice slice : slices(maxPieces)) {
+            if (slice.key() <= slice.swappedKey()) {
+                order.add(slice);
+            }
+        }
+        order.sort(Comparator.comparingInt(Slice::pieces).thenComparingInt(Slice::men));
+        List<Slice> written = new ArrayList<>();
+        for (Slice slice : order) {
+            Slice twin = slice.key() == slice.swappedKey() ? null
+                    : new Slice(slice.oppMen, slice.oppKings, slice.ownMen, slice.ownKings);
+            solveGroup(slice, twin);
+            written.add(slice);
+            if (twin != null) {
+                written.add(twin);
+            }
+        }
+        write(output, written);
+        return solved;
+    }
+
+    static List<Slice> slices(int maxPieces) {
+        List<Slice> all = new ArrayList<>();
+        for (int pieces = 2; pieces <= maxPieces; pieces++) {
+            for (int own = 1; own < pieces; own++) {
+                int opp = pieces - own;
+                if (own > Slice.MAX_PER_SIDE || opp > Slice.MAX_PER_SIDE) {
+                    continue;
+                }
+                for (int ownKings = 0; ownKings <= own; ownKings++) {
+                    for (int oppKings = 0; oppKings <= opp; oppKings++) {
+                        all.add(new Slice(own - ownKings, ownKings, opp - oppKings, oppKings));
+                    }
+                }
+            }
+        }
+        return all;
+    }
+
+    private void solveGroup(Slice slice, Slice twin) {
+        long start = System.nanoTime();
+        open(slice);
+        if (twin != null) {
+            open(twin);
+        }
+        int passes = 0;
+        boolean changed = true;
+        while (changed) {
+            passes++;
+            changed = pass(slice);
+            if (twin != null) {
+                changed |= pass(twin);
+            }
+        }
+        close(slice, passes, start);
+        if (twin != null) {
+            close(twin, passes, start);
+        }
+    }
+
+    private void open(Slice slice) {
+        working[slice.key()] = new byte[Math.toIntExact(slice.size)];
+        workingSlices[slice.key()] = slice;
+    }
+
+    private void close(Slice slice, int passes, long start) {
+        byte[] values = working[slice.key()];
+        byte[] bits = new byte[Tablebase.packedLength(slice.size)];
+        long wins = 0;
+        long losses = 0;
+        long draws = 0;
+        for (int i = 0; i < values.length; i++) {
+            int v = values[i];
+            if (v == WIN) {
+                wins++;
+            } else if (v == LOSS) {
+                losses++;
+            } else if (v == UNRESOLVED) {
+                draws++;
+            }
+            if (v == WIN || v == LOSS) {
+                bits[i >>> 2] |= (byte) (v << ((i & 3) << 1));
+            }
+        }
+        working[slice.key()] = null;
+        workingSlices[slice.key()] = null;
+        packed[slice.key()] = bits;
+        solved.put(slice, ByteBuffer.wrap(bits));
+        System.out.printf("%-12s %,14d positions  %,12d wins  %,12d losses  %,12d draws  %3d passes  %.1f s%n",
+                slice, slice.size, wins, losses, draws, passes, (System.nanoTime() - start) / 1e9);
+    }
+
+    private boolean pass(Slice slice) {
+        byte[] values = working[slice.key()];
+        AtomicBoolean changed = new AtomicBoolean();
+        long chunks = (values.length + CHUNK - 1) / CHUNK;
+        LongStream.range(0, chunks).parallel().forEach(chunk -> {
+            int from = (int) (chunk * CHUNK);
+            int to = (int) Math.min(values.length, from + (long) CHUNK);
+            if (solveRange(slice, values, from, to)) {
+                changed.set(true);
+            }
+        });
+        return changed.get();
+    }
+
+    private boolean solveRange(Slice slice, byte[] values, int from, int to) {
+        Scratch s = scratch.get();
+        boolean changed = false;
+        for (int i = from; i < to; i++) {
+            if (values[i] != UNRESOLVED) {
+                continue;
+            }
+            if (!slice.decode(i, s.pieces)) {
+                values[i] = INVALID;
+                continue;
+            }
+            s.board.set(s.pieces[0], s.pieces[1], s.pieces[2], Board.BLACK);
+            byte value = solve(s.board, s.moves);
+            if (value != UNRESOLVED) {
+                values[i] = value;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    private byte solve(Board board, long[] moves) {
+        int count = MoveGenerator.generate(board, moves, 0);
+        boolean allLost = true;
+        for (int i = 0; i < count; i++) {
+            board.make(moves[i]);
+            int reply = childValue(board);
+            board.unmake();
+            if (reply == LOSS) {
+                return WIN;
+            }
+            if (reply != WIN) {
+                allLost = false;
+            }
+        }
+        return allLost ? LOSS : UNRESOLVED;
+    }
+
+    /** Value for the side to move (white) of a position just reached by black. */
+    private int childValue(Board board) {
+        int own = Integer.reverse(board.white());
+        if (own == 0) {
+            return LOSS;
+        }
+        int opp = Integer.reverse(board.black());
+        int kings = Integer.reverse(board.kings());
+        int ownMen = own & ~kings;
+        int oppMen = opp & ~kings;
+        int key = Slice.key(Integer.bitCount(ownMen), Integer.bitCount(own & kings),
+                Integer.bitCount(oppMen), Integer.bitCount(opp & kings));
+        byte[] values = working[key];
+        if (values == null) {
+            return solved.probeNormalized(own, opp, kings);
+        }
+        long index = workingSlices[key].index(ownMen, own & kings, oppMen, opp & kings);
+        return values[(int) index];
+    }
+
+    private void write(Path output, List<Slice> slices) throws IOException {
+        Path temp = output.resolveSibling(output.getFileName() + ".tmp");
+        try (OutputStream file = Files.newOutputStream(temp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            out.writeInt(Tablebase.MAGIC);
+            out.writeInt(Tablebase.VERSION);
+            out.writeInt(maxPieces);
+            out.writeInt(slices.size());
+            long offset = 16L + slices.size() * 20L;
+            for (Slice slice : slices) {
+                out.writeByte(slice.ownMen);
+                out.writeByte(slice.ownKings);
+                out.writeByte(slice.oppMen);
+                out.writeByte(slice.oppKings);
+                out.writeLong(offset);
+                out.writeLong(slice.size);
+                offset += Tablebase.packedLength(slice.size);
+            }
+            for (Slice slice : slices) {
+                out.write(packed[slice.key()]);
+            }
+        }
+        Files.move(temp, output, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static final class Scratch {
+        final Board board = Board.initial();
+        final long[] moves = new long[MoveGenerator.MAX_MOVES];
+        final int[] pieces = new int[3];
+    }
+}
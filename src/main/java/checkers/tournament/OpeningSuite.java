@@ -0,0 +1,74 @@
+package checkers.tournament;
+
+import checkers.core.Board;
+import checkers.core.MoveGenerator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Start positions for a match. Each opening is played twice with colours
+ * reversed, so an unbalanced opening favours neither engine.
+ */
+public final class OpeningSuite {
+
+    private final List<Board> positions;
+
+    private OpeningSuite(List<Board> positions) {
+        if (positions.isEmpty()) {
+            throw new IllegalArgumentException("Empty opening suite");
+        }
+        this.positions = Collections.unmodifiableList(positions);
+    }
+
+    /** One FEN per line; blank lines and lines starting with '#' are skipped. */
+    public static OpeningSuite load(Path file) throws IOException {
+        List<Board> positions = new ArrayList<>();
+        for (String line : Files.readAllLines(file)) {
+            line = line.trim();
+            if (!line.isEmpty() && !line.startsWith("#")) {
+                positions.add(Board.fromFen(line));
+            }
+        }
+        return new OpeningSuite(positions);
+    }
+
+    /**
+     * Every distinct position reachable in exactly {@code plies} plies from
+     * the start; three plies gives the familiar three-move ballots.
+     */
+    public static OpeningSuite ballots(int plies) {
+        Set<Board> positions = new LinkedHashSet<>();
+        expand(Board.initial(), plies, new long[plies + 1][MoveGenerator.MAX_MOVES], positions);
+        return new OpeningSuite(new ArrayList<>(positions));
+    }
+
+    private static void expand(Board board, int plies, long[][] moves, Set<Board> out) {
+        if (plies == 0) {
+            out.add(board.copy());
+            return;
+        }
+        long[] buffer = moves[plies];
+        int count = MoveGenerator.generate(board, buffer, 0);
+        for (int i = 0; i < count; i++) {
+            board.make(buffer[i]);
+            expand(board, plies - 1, moves, out);
+            board.unmake();
+        }
+    }
+
+    public int size() {
+        return positions.size();
+    }
+
+    /** Opening {@code i}, wrapping around the suite. Returns a fresh copy. */
+    public Board get(long i) {
+        return positions.get((int) (i % positions.size())).copy();
+    }
+}
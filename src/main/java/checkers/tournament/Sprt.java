@@ -0,0 +1,104 @@
+package checkers.tournament;
+
+/**
+ * Sequential probability ratio test between two Elo hypotheses, plus the
+ * Elo estimate of a win/draw/loss record.
+ * <p>
+ * The log-likelihood ratio uses the normal approximation of the per-game
+ * score distribution: with {@code s0} and {@code s1} the expected scores
+ * under the two hypotheses and {@code m} and {@code v} the observed mean
+ * and variance over {@code n} games,
+ * {@code LLR = n (s1 - s0) (2m - s0 - s1) / (2v)}. The test accepts H1 once
+ * the ratio reaches {@code ln((1 - beta) / alpha)} and H0 once it falls to
+ * {@code ln(beta / (1 - alpha))}.
+ */
+public final class Sprt {
+
+    public enum Decision { CONTINUE, ACCEPT_H0, ACCEPT_H1 }
+
+    private final double elo0;
+    private final double elo1;
+    private final double lower;
+    private final double upper;
+
+    public Sprt(double elo0, double elo1, double alpha, double beta) {
+        if (elo1 <= elo0 || alpha <= 0 || alpha >= 1 || beta <= 0 || beta >= 1) {
+            throw new IllegalArgumentException("Need elo0 < elo1 and 0 < alpha, beta < 1");
+        }
+        this.elo0 = elo0;
+        this.elo1 = elo1;
+        this.lower = Math.log(beta / (1 - alpha));
+        this.upper = Math.log((1 - beta) / alpha);
+    }
+
+    public double lowerBound() {
+        return lower;
+    }
+
+    public double upperBound() {
+        return upper;
+    }
+
+    public double llr(long wins, long draws, long losses) {
+        long n = wins + draws + losses;
+        if (n == 0) {
+            return 0;
+        }
+        double mean = (wins + 0.5 * draws) / n;
+        double variance = (wins * sq(1 - mean) + draws * sq(0.5 - mean) + losses * sq(mean)) / n;
+        if (variance == 0) {
+            return 0;
+        }
+        double s0 = expectedScore(elo0);
+        double s1 = expectedScore(elo1);
+        return n * (s1 - s0) * (2 * mean - s0 - s1) / (2 * variance);
+    }
+
+    public Decision decide(long wins, long draws, long losses) {
+        double llr = llr(wins, draws, losses);
+        if (llr >= upper) {
+            return Decision.ACCEPT_H1;
+        }
+        if (llr <= lower) {
+            return Decision.ACCEPT_H0;
+        }
+        return Decision.CONTINUE;
+    }
+
+    /** Expected score of a player {@code elo} points stronger. */
+    public static double expectedScore(double elo) {
+        return 1 / (1 + Math.pow(10, -elo / 400));
+    }
+
+    /** Elo difference implied by a score fraction strictly between 0 and 1. */
+    public static double elo(double score) {
+        return -400 * Math.log10(1 / score - 1);
+    }
+
+    /** Elo difference of a record; infinite for a clean sweep. */
+    public static double elo(long wins, long draws, long losses) {
+        long n = wins + draws + losses;
+        return n == 0 ? 0 : elo((wins + 0.5 * draws) / n);
+    }
+
+    /** Half-width of the 95% confidence interval of {@link #elo(long, long, long)}. */
+    public static double eloError95(long wins, long draws, long losses) {
+        long n = wins + draws + losses;
+        if (n == 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double mean = (wins + 0.5 * draws) / n;
+        double variance = (wins * sq(1 - mean) + draws * sq(0.5 - mean) + losses * sq(mean)) / n;
+        double margin = 1.959964 * Math.sqrt(variance / n);
+        return (elo(Math.min(mean + margin, 1 - 1e-9)) - elo(Math.max(mean - margin, 1e-9))) / 2;
+    }
+
+    private static double sq(double x) {
+        return x * x;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SPRT(%.1f, %.1f) bounds [%.2f, %.2f]", elo0, elo1, lower, upper);
+    }
+}
@@ -0,0 +1,445 @@
+package checkers.tournament;
+
+import checkers.core.Board;
+import checkers.core.Move;
+import checkers.core.MoveGenerator;
+import checkers.eval.Evaluator;
+import checkers.eval.MaterialEvaluator;
+import checkers.eval.PositionalEvaluator;
+import checkers.pdn.PdnGame;
+import checkers.search.Search;
+import checkers.search.SearchLimits;
+import checkers.search.SearchResult;
+import checkers.search.TranspositionTable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Plays engine A against engine B over an opening suite, many games at a
+ * time, and reports the Elo difference of A, optionally stopping early on
+ * an SPRT decision.
+ * <p>
+ * Workers pull game numbers from a shared counter; games {@code 2k} and
+ * {@code 2k + 1} start from opening {@code k} with colours reversed. Every
+ * worker keeps one searcher per engine and clears their tables and move
+ * ordering history before each game, so games are independent. A game is drawn by repetition, after 40
+ * moves per side without a man move or capture, or after
+ * {@link #MAX_GAME_PLIES} plies; a side without moves, with an illegal move
+ * or out of time loses.
+ * <p>
+ * Usage: {@code java checkers.tournament.Tournament [--a CLASS] [--b CLASS]
+ * [--threads N] [--games N] [--tc BASE_MS+INC_MS | --depth N | --nodes N]
+ * [--openings FILE | --ballots PLIES] [--hash MB]
+ * [--sprt ELO0,ELO1[,ALPHA,BETA]] [--pdn FILE] [--plain a|b]}. Engines
+ * are named by their {@link Evaluator} class, which needs a no-argument
+ * constructor. {@code --plain} makes one engine search without PVS and
+ * late move reductions (see {@link Search#setSelectivity(boolean)}), to
+ * play the same evaluator against itself with and without them.
+ */
+public final class Tournament {
+
+    public static final int MAX_GAME_PLIES = 400;
+    public static final int QUIET_PLY_LIMIT = 80;
+
+    private static final int BLACK_WINS = 2;
+    private static final int DRAW = 1;
+    private static final int WHITE_WINS = 0;
+
+    /** An engine under test: a name, a factory for its evaluator and its search options. */
+    public static final class Engine {
+        final String name;
+        final Supplier<? extends Evaluator> evaluator;
+        final boolean selective;
+
+        public Engine(String name, Supplier<? extends Evaluator> evaluator) {
+            this(name, evaluator, true);
+        }
+
+        private Engine(String name, Supplier<? extends Evaluator> evaluator, boolean selective) {
+            this.name = name;
+            this.evaluator = evaluator;
+            this.selective = selective;
+        }
+
+        /** The same engine searching with plain alpha-beta. */
+        public Engine plain() {
+            return new Engine(name + "(plain)", evaluator, false);
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    private final Engine a;
+    private final Engine b;
+    private final OpeningSuite openings;
+    private final int threads;
+
+    private SearchLimits limits = SearchLimits.depth(8);
+    private long baseNanos;
+    private long incrementNanos;
+    private int hashMegabytes = 16;
+    private long maxGames = 1000;
+    private Sprt sprt;
+    private Writer pdn;
+
+    private final AtomicLong nextGame = new AtomicLong();
+    private volatile boolean stopped;
+    private long wins;
+    private long draws;
+    private long losses;
+    private long timeLosses;
+    private Sprt.Decision decision = Sprt.Decision.CONTINUE;
+
+    public Tournament(Engine a, Engine b, OpeningSuite openings, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Need at least one thread: " + threads);
+        }
+        this.a = a;
+        this.b = b;
+        this.openings = openings;
+        this.threads = threads;
+    }
+
+    /** Searches every move with fixed limits (depth or nodes). */
+    public void setLimits(SearchLimits limits) {
+        this.limits = limits;
+        this.baseNanos = 0;
+    }
+
+    /** Plays with a clock: {@code base} per game plus {@code increment} per move. */
+    public void setTimeControl(long baseMillis, long incrementMillis) {
+        this.baseNanos = TimeUnit.MILLISECONDS.toNanos(baseMillis);
+        this.incrementNanos = TimeUnit.MILLISECONDS.toNanos(incrementMillis);
+    }
+
+    public void setHash(int megabytes) {
+        this.hashMegabytes = megabytes;
+    }
+
+    public void setMaxGames(long maxGames) {
+        this.maxGames = maxGames;
+    }
+
+    /** Stops as soon as {@code sprt} accepts either hypothesis; {@code null} plays every game. */
+    public void setSprt(Sprt sprt) {
+        this.sprt = sprt;
+    }
+
+    /** Writes every finished game to {@code pdn}; {@code null} keeps no record. */
+    public void setPdn(Writer pdn) {
+        this.pdn = pdn;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String engineA = PositionalEvaluator.class.getName();
+        String engineB = MaterialEvaluator.class.getName();
+        int threads = Runtime.getRuntime().availableProcessors();
+        OpeningSuite openings = null;
+        SearchLimits limits = null;
+        long[] timeControl = null;
+        int hash = 16;
+        long games = 1000;
+        Sprt sprt = null;
+        String pdnFile = null;
+        String plain = null;
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (i + 1 >= args.length) {
+                usage();
+            }
+            String value = args[++i];
+            switch (arg) {
+                case "--a":
+                    engineA = value;
+                    break;
+                case "--b":
+                    engineB = value;
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(value);
+                    break;
+                case "--games":
+                    games = Long.parseLong(value);
+                    break;
+                case "--tc": {
+                    String[] parts = value.split("\\+");
+                    timeControl = new long[] {
+                            Long.parseLong(parts[0]), parts.length > 1 ? Long.parseLong(parts[1]) : 0};
+                    break;
+                }
+                case "--depth":
+                    limits = SearchLimits.depth(Integer.parseInt(value));
+                    break;
+                case "--nodes":
+                    limits = SearchLimits.nodes(Long.parseLong(value));
+                    break;
+                case "--openings":
+                    openings = OpeningSuite.load(Paths.get(value));
+                    break;
+                case "--ballots":
+                    openings = OpeningSuite.ballots(Integer.parseInt(value));
+                    break;
+                case "--hash":
+                    hash = Integer.parseInt(value);
+                    break;
+                case "--sprt": {
+                    String[] parts = value.split(",");
+                    sprt = new Sprt(Double.parseDouble(parts[0]), Double.parseDouble(parts[1]),
+                            parts.length > 2 ? Double.parseDouble(parts[2]) : 0.05,
+                            parts.length > 3 ? Double.parseDouble(parts[3]) : 0.05);
+                    break;
+                }
+                case "--pdn":
+                    pdnFile = value;
+                    break;
+                case "--plain":
+                    if (!value.equals("a") && !value.equals("b")) {
+                        usage();
+                    }
+                    plain = value;
+                    break;
+                default:
+                    usage();
+            }
+        }
+        Engine a = engine(engineA, "A");
+        Engine b = engine(engineB, "B");
+        if ("a".equals(plain)) {
+            a = a.plain();
+        } else if ("b".equals(plain)) {
+            b = b.plain();
+        }
+        Tournament tournament = new Tournament(a, b,
+                openings == null ? OpeningSuite.ballots(3) : openings, threads);
+        if (limits != null) {
+            tournament.setLimits(limits);
+        }
+        if (timeControl != null) {
+            tournament.setTimeControl(timeControl[0], timeControl[1]);
+        }
+        tournament.setHash(hash);
+        tournament.setMaxGames(games);
+        tournament.setSprt(sprt);
+        if (pdnFile == null) {
+            tournament.run();
+        } else {
+            try (Writer out = Files.newBufferedWriter(Paths.get(pdnFile))) {
+                tournament.setPdn(out);
+                tournament.run();
+            }
+        }
+    }
+
+    private static void usage() {
+        System.err.println("Usage: Tournament [--a CLASS] [--b CLASS] [--threads N] [--games N]"
+                + " [--tc BASE_MS+INC_MS | --depth N | --nodes N] [--openings FILE | --ballots PLIES]"
+                + " [--hash MB] [--sprt ELO0,ELO1[,ALPHA,BETA]] [--pdn FILE] [--plain a|b]");
+        System.exit(2);
+    }
+
+    private static Engine engine(String className, String label) throws ReflectiveOperationException {
+        Class<? extends Evaluator> type = Class.forName(className).asSubclass(Evaluator.class);
+        type.getDeclaredConstructor().newInstance();
+        return new Engine(label + ":" + type.getSimpleName(), () -> {
+            try {
+                return type.getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Cannot create " + className, e);
+            }
+        });
+    }
+
+    /** Plays until the game limit or an SPRT decision and prints the final standing. */
+    public void run() throws InterruptedException {
+        System.out.printf("%s vs %s, %d openings, %d threads, %s%s%n", a, b, openings.size(), threads,
+                baseNanos > 0 ? "tc " + baseNanos / 1_000_000 + "+" + incrementNanos / 1_000_000 + " ms" : limits,
+                sprt == null ? "" : ", " + sprt);
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "tournament");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            for (int i = 0; i < threads; i++) {
+                pool.execute(this::work);
+            }
+            pool.shutdown();
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+        report(true);
+    }
+
+    private void work() {
+        TranspositionTable tableA = new TranspositionTable(hashMegabytes);
+        TranspositionTable tableB = new TranspositionTable(hashMegabytes);
+        Search searchA = new Search(a.evaluator.get(), tableA);
+        Search searchB = new Search(b.evaluator.get(), tableB);
+        searchA.setSelectivity(a.selective);
+        searchB.setSelectivity(b.selective);
+        long[] moves = new long[MAX_GAME_PLIES];
+        while (!stopped) {
+            long game = nextGame.getAndIncrement();
+            if (game >= maxGames) {
+                return;
+            }
+            tableA.clear();
+            tableB.clear();
+            searchA.clearHistory();
+            searchB.clearHistory();
+            boolean aIsBlack = game % 2 == 0;
+            Board start = openings.get(game / 2);
+            Game result = aIsBlack ? play(start, searchA, searchB, moves) : play(start, searchB, searchA, moves);
+            record(game, aIsBlack, start, moves, result);
+        }
+    }
+
+    private static final class Game {
+        final int blackPoints;
+        final String termination;
+        final int plies;
+        final boolean onTime;
+
+        Game(int blackPoints, String termination, int plies, boolean onTime) {
+            this.blackPoints = blackPoints;
+            this.termination = termination;
+            this.plies = plies;
+            this.onTime = onTime;
+        }
+    }
+
+    private Game play(Board start, Search black, Search white, long[] played) {
+        Board board = start.copy();
+        long[] legal = new long[MoveGenerator.MAX_MOVES];
+        long[] clock = {baseNanos, baseNanos};
+        for (int ply = 0; ply < MAX_GAME_PLIES; ply++) {
+            int side = board.sideToMove();
+            int count = MoveGenerator.generate(board, legal, 0);
+            if (count == 0) {
+                return new Game(side == Board.BLACK ? WHITE_WINS : BLACK_WINS, "no moves", ply, false);
+            }
+            if (board.isRepetition()) {
+                return new Game(DRAW, "repetition", ply, false);
+            }
+            if (board.quietPlies() >= QUIET_PLY_LIMIT) {
+                return new Game(DRAW, "40-move rule", ply, false);
+            }
+            Search search = side == Board.BLACK ? black : white;
+            long move;
+            if (count == 1) {
+                move = legal[0];
+            } else {
+                SearchLimits moveLimits = limits;
+                if (baseNanos > 0) {
+                    long budget = Math.min(clock[side] / 20 + incrementNanos, clock[side] / 2);
+                    moveLimits = SearchLimits.millis(Math.max(1, budget / 1_000_000));
+                }
+                long started = System.nanoTime();
+                SearchResult result = search.search(board, moveLimits);
+                if (baseNanos > 0) {
+                    clock[side] -= System.nanoTime() - started;
+                    if (clock[side] < 0) {
+                        return new Game(side == Board.BLACK ? WHITE_WINS : BLACK_WINS, "time forfeit", ply, true);
+                    }
+                    clock[side] += incrementNanos;
+                }
+                move = result.bestMove();
+            }
+            if (!isLegal(move, legal, count)) {
+                return new Game(side == Board.BLACK ? WHITE_WINS : BLACK_WINS, "illegal move", ply, false);
+            }
+            played[ply] = move;
+            board.make(move);
+        }
+        return new Game(DRAW, "move limit", MAX_GAME_PLIES, false);
+    }
+
+    private static boolean isLegal(long move, long[] legal, int count) {
+        for (int i = 0; i < count; i++) {
+            if (legal[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private synchronized void record(long number, boolean aIsBlack, Board start, long[] moves, Game game) {
+        int aPoints = aIsBlack ? game.blackPoints : 2 - game.blackPoints;
+        if (aPoints == 2) {
+            wins++;
+        } else if (aPoints == 1) {
+            draws++;
+        } else {
+            losses++;
+        }
+        if (game.onTime) {
+            timeLosses++;
+        }
+        if (pdn != null) {
+            writePdn(number, aIsBlack, start, moves, game);
+        }
+        long played = wins + draws + losses;
+        if (sprt != null && decision == Sprt.Decision.CONTINUE) {
+            decision = sprt.decide(wins, draws, losses);
+            if (decision != Sprt.Decision.CONTINUE) {
+                stopped = true;
+            }
+        }
+        if (played % 100 == 0) {
+            report(false);
+        }
+    }
+
+    private void writePdn(long number, boolean aIsBlack, Board start, long[] moves, Game game) {
+        StringBuilder text = new StringBuilder();
+        text.append("[Event \"").append(a).append(" vs ").append(b).append("\"]\n");
+        text.append("[Round \"").append(number + 1).append("\"]\n");
+        text.append("[Black \"").append(aIsBlack ? a : b).append("\"]\n");
+        text.append("[White \"").append(aIsBlack ? b : a).append("\"]\n");
+        text.append("[FEN \"").append(start.toFen()).append("\"]\n");
+        String result = game.blackPoints == BLACK_WINS ? PdnGame.BLACK_WINS
+                : game.blackPoints == WHITE_WINS ? PdnGame.WHITE_WINS : PdnGame.DRAWN;
+        text.append("[Result \"").append(result).append("\"]\n");
+        text.append("[Termination \"").append(game.termination).append("\"]\n");
+        boolean blackFirst = start.sideToMove() == Board.BLACK;
+        for (int i = 0; i < game.plies; i++) {
+            if (i == 0 && !blackFirst) {
+                text.append("1... ");
+            } else if ((i % 2 == 0) == blackFirst) {
+                text.append((i + (blackFirst ? 0 : 1)) / 2 + 1).append(". ");
+            }
+            text.append(Move.toPathString(moves[i])).append(i % 12 == 11 ? "\n" : " ");
+        }
+        text.append(result).append("\n\n");
+        try {
+            pdn.write(text.toString());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private synchronized void report(boolean last) {
+        long played = wins + draws + losses;
+        System.out.printf("%s%6d games  +%d =%d -%d  Elo %+.1f +/- %.1f%s%s%n", last ? "Final " : "",
+                played, wins, draws, losses, Sprt.elo(wins, draws, losses),
+                Sprt.eloError95(wins, draws, losses),
+                sprt == null ? "" : String.format("  LLR %.2f", sprt.llr(wins, draws, losses)),
+                timeLosses == 0 ? "" : "  time forfeits " + timeLosses);
+        if (last && decision != Sprt.Decision.CONTINUE) {
+            System.out.println(decision == Sprt.Decision.ACCEPT_H1 ? "SPRT: H1 accepted" : "SPRT: H0 accepted");
+        }
+    }
+}
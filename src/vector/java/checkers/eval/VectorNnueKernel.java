@@ -0,0 +1,75 @@
+package checkers.eval;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link NnueKernel} on the incubating Vector API. Compiled separately
+ * with {@code --add-modules jdk.incubator.vector} and found by name at run
+ * time, so the rest of the tree builds and runs without the module.
+ * Refuses to load where vectors are narrower than 256 bits, on which the
+ * scalar loops are as fast.
+ */
+final class VectorNnueKernel implements NnueKernel {
+
+    private static final VectorSpecies<Short> SHORTS = ShortVector.SPECIES_256;
+    private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_64;
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_256;
+
+    VectorNnueKernel() {
+        if (IntVector.SPECIES_PREFERRED.vectorBitSize() < 256) {
+            throw new UnsupportedOperationException("Vectors are only "
+                    + IntVector.SPECIES_PREFERRED.vectorBitSize() + " bits wide");
+        }
+    }
+
+    @Override
+    public String name() {
+        return "vector";
+    }
+
+    @Override
+    public void add(short[] acc, short[] weights, int offset) {
+        for (int i = 0; i < acc.length; i += SHORTS.length()) {
+            ShortVector.fromArray(SHORTS, acc, i)
+                    .add(ShortVector.fromArray(SHORTS, weights, offset + i))
+                    .intoArray(acc, i);
+        }
+    }
+
+    @Override
+    public void subtract(short[] acc, short[] weights, int offset) {
+        for (int i = 0; i < acc.length; i += SHORTS.length()) {
+            ShortVector.fromArray(SHORTS, acc, i)
+                    .sub(ShortVector.fromArray(SHORTS, weights, offset + i))
+                    .intoArray(acc, i);
+        }
+    }
+
+    @Override
+    public void clip(short[] acc, byte[] out, int offset) {
+        for (int i = 0; i < acc.length; i += SHORTS.length()) {
+            ByteVector bytes = (ByteVector) ShortVector.fromArray(SHORTS, acc, i)
+                    .max((short) 0)
+                    .min((short) 127)
+                    .convertShape(VectorOperators.S2B, ByteVector.SPECIES_128, 0);
+            bytes.intoArray(out, offset + i);
+        }
+    }
+
+    @Override
+    public int dot(byte[] in, byte[] weights, int offset) {
+        IntVector sum = IntVector.zero(INTS);
+        for (int i = 0; i < in.length; i += BYTES.length()) {
+            IntVector x = (IntVector) ByteVector.fromArray(BYTES, in, i)
+                    .convertShape(VectorOperators.B2I, INTS, 0);
+            IntVector w = (IntVector) ByteVector.fromArray(BYTES, weights, offset + i)
+                    .convertShape(VectorOperators.B2I, INTS, 0);
+            sum = sum.add(x.mul(w));
+        }
+        return sum.reduceLanes(VectorOperators.ADD);
+    }
+}
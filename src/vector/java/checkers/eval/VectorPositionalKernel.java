@@ -0,0 +1,192 @@
+package checkers.eval;
+
+import checkers.core.Board;
+import checkers.core.Squares;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link PositionalKernel} on the incubating Vector API: each lane holds
+ * one position, and every term of {@link PositionalEvaluator} is computed
+ * for a whole vector of positions with lane-wise shifts, masks and a
+ * bit-parallel population count. Conditions the scalar code branches on
+ * become lane masks. Compiled and loaded like {@link VectorNnueKernel}.
+ * <p>
+ * The terms are added in small passes over the batch, accumulating in its
+ * {@code scores} array, rather than in one loop body: C2 only keeps
+ * vectors in registers within code it has inlined, and anything much
+ * larger than one mobility direction exceeds its inlining budget, so
+ * vectors returned by helpers would be boxed on the heap.
+ */
+final class VectorPositionalKernel implements PositionalKernel {
+
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    /**
+     * Break-even measured in search on 512-bit vectors, where a batch also
+     * costs a make/unmake per child and scores leaves a cutoff would skip.
+     */
+    private static final int MINIMUM_BATCH = 12;
+
+    private static final int[][] SHIFT = PositionalEvaluator.STEP_SHIFT;
+    private static final int[][] MASK = PositionalEvaluator.STEP_MASK;
+
+    /** Runaway passes each cover this many squares, padded with empty ones. */
+    private static final int RUNAWAY_PASS = 4;
+    /**
+     * Per colour and runaway square: its bit, the cone ahead of it and the
+     * signed bonus of a runaway man there, from black's point of view.
+     */
+    private static final int[][] SQUARE = new int[2][];
+    private static final int[][] CONE = new int[2][];
+    private static final int[][] BONUS = new int[2][];
+
+    static {
+        for (int color = Board.BLACK; color <= Board.WHITE; color++) {
+            int rows = PositionalEvaluator.RUNAWAY_ROWS[color];
+            int count = (Integer.bitCount(rows) + RUNAWAY_PASS - 1) / RUNAWAY_PASS * RUNAWAY_PASS;
+            SQUARE[color] = new int[count];
+            CONE[color] = new int[count];
+            BONUS[color] = new int[count];
+            int n = 0;
+            for (int bits = rows; bits != 0; bits &= bits - 1, n++) {
+                int sq = Integer.numberOfTrailingZeros(bits);
+                int bonus = PositionalEvaluator.runaway(sq, color);
+                SQUARE[color][n] = 1 << sq;
+                CONE[color][n] = PositionalEvaluator.CONE[color][sq];
+                BONUS[color][n] = color == Board.BLACK ? bonus : -bonus;
+            }
+        }
+    }
+
+    VectorPositionalKernel() {
+        if (INTS.vectorBitSize() < 256 || INTS.length() > LeafBatch.LANES) {
+            throw new UnsupportedOperationException("Vectors are " + INTS.vectorBitSize() + " bits wide");
+        }
+    }
+
+    @Override
+    public String name() {
+        return "vector";
+    }
+
+    @Override
+    public int minimumBatch() {
+        return MINIMUM_BATCH;
+    }
+
+    @Override
+    public void evaluate(LeafBatch leaves) {
+        int size = leaves.size;
+        backRanks(leaves, size);
+        // Men step in the two directions towards promotion, kings in all four.
+        mobility(leaves, size, Squares.UP_LEFT, Board.BLACK);
+        mobility(leaves, size, Squares.UP_RIGHT, Board.BLACK);
+        mobility(leaves, size, Squares.DOWN_LEFT, Board.WHITE);
+        mobility(leaves, size, Squares.DOWN_RIGHT, Board.WHITE);
+        for (int color = Board.BLACK; color <= Board.WHITE; color++) {
+            for (int n = 0; n < SQUARE[color].length; n += RUNAWAY_PASS) {
+                runaways(leaves, size, color, n);
+            }
+        }
+        sideToMove(leaves, size);
+    }
+
+    /** Starts each score at material and placement plus the back-rank terms. */
+    private static void backRanks(LeafBatch leaves, int size) {
+        IntVector zero = IntVector.zero(INTS);
+        for (int i = 0; i < size; i += INTS.length()) {
+            IntVector kings = IntVector.fromArray(INTS, leaves.kings, i);
+            IntVector blackMen = IntVector.fromArray(INTS, leaves.black, i).and(kings.not());
+            IntVector whiteMen = IntVector.fromArray(INTS, leaves.white, i).and(kings.not());
+            IntVector blackGuards = bitCount(blackMen.and(PositionalEvaluator.BLACK_BACK_RANK));
+            IntVector whiteGuards = bitCount(whiteMen.and(PositionalEvaluator.WHITE_BACK_RANK));
+            // A back rank only counts while the opponent still has men to crown.
+            blackGuards = zero.blend(blackGuards, whiteMen.compare(VectorOperators.NE, 0));
+            whiteGuards = zero.blend(whiteGuards, blackMen.compare(VectorOperators.NE, 0));
+            IntVector.fromArray(INTS, leaves.psq, i)
+                    .add(blackGuards.sub(whiteGuards).mul(PositionalEvaluator.BACK_RANK))
+                    .intoArray(leaves.scores, i);
+        }
+    }
+
+    /**
+     * Adds the mobility term of both colours in direction {@code dir}, in
+     * which only the kings of {@code kingsOnly} move.
+     */
+    private static void mobility(LeafBatch leaves, int size, int dir, int kingsOnly) {
+        int[] blackMovers = kingsOnly == Board.BLACK ? leaves.kings : leaves.black;
+        int[] whiteMovers = kingsOnly == Board.WHITE ? leaves.kings : leaves.white;
+        for (int i = 0; i < size; i += INTS.length()) {
+            IntVector black = IntVector.fromArray(INTS, leaves.black, i);
+            IntVector white = IntVector.fromArray(INTS, leaves.white, i);
+            IntVector empty = black.or(white).not();
+            IntVector blackTargets = step(black.and(IntVector.fromArray(INTS, blackMovers, i)), dir).and(empty);
+            IntVector whiteTargets = step(white.and(IntVector.fromArray(INTS, whiteMovers, i)), dir).and(empty);
+            IntVector.fromArray(INTS, leaves.scores, i)
+                    .add(bitCount(blackTargets).sub(bitCount(whiteTargets)).mul(PositionalEvaluator.MOBILITY))
+                    .intoArray(leaves.scores, i);
+        }
+    }
+
+    /**
+     * Adds the runaway bonus of men of {@code color} on its runaway squares
+     * {@code n} to {@code n + 3}; squares past the last count for nothing.
+     */
+    private static void runaways(LeafBatch leaves, int size, int color, int n) {
+        int[] own = color == Board.BLACK ? leaves.black : leaves.white;
+        int[] opponents = color == Board.BLACK ? leaves.white : leaves.black;
+        IntVector zero = IntVector.zero(INTS);
+        for (int i = 0; i < size; i += INTS.length()) {
+            IntVector kings = IntVector.fromArray(INTS, leaves.kings, i);
+            IntVector them = IntVector.fromArray(INTS, opponents, i);
+            IntVector men = IntVector.fromArray(INTS, own, i).and(kings.not());
+            // Opposing kings stop every runaway, so count them in each cone.
+            IntVector theirKings = them.and(kings);
+            IntVector bonus = zero.blend(BONUS[color][n], runaway(men, them, theirKings, color, n))
+                    .add(zero.blend(BONUS[color][n + 1], runaway(men, them, theirKings, color, n + 1)))
+                    .add(zero.blend(BONUS[color][n + 2], runaway(men, them, theirKings, color, n + 2)))
+                    .add(zero.blend(BONUS[color][n + 3], runaway(men, them, theirKings, color, n + 3)));
+            IntVector.fromArray(INTS, leaves.scores, i).add(bonus).intoArray(leaves.scores, i);
+        }
+    }
+
+    private static VectorMask<Integer> runaway(IntVector men, IntVector them, IntVector theirKings,
+                                               int color, int n) {
+        return men.and(SQUARE[color][n]).compare(VectorOperators.NE, 0)
+                .and(them.and(CONE[color][n]).or(theirKings).compare(VectorOperators.EQ, 0));
+    }
+
+    /** Turns black's point of view into the side to move's. */
+    private static void sideToMove(LeafBatch leaves, int size) {
+        for (int i = 0; i < size; i += INTS.length()) {
+            IntVector score = IntVector.fromArray(INTS, leaves.scores, i);
+            VectorMask<Integer> white = IntVector.fromArray(INTS, leaves.side, i)
+                    .compare(VectorOperators.NE, Board.BLACK);
+            score.blend(score.neg(), white).intoArray(leaves.scores, i);
+        }
+    }
+
+    private static IntVector step(IntVector squares, int dir) {
+        return shift(squares.and(MASK[dir][0]), SHIFT[dir][0]).or(shift(squares.and(MASK[dir][1]), SHIFT[dir][1]));
+    }
+
+    /**
+     * Shifts by {@code delta} in either direction. Both shifts are always
+     * applied, one of them by zero: choosing between two vectors would merge
+     * them at a branch, and C2 boxes vectors it has to merge.
+     */
+    private static IntVector shift(IntVector squares, int delta) {
+        return squares.lanewise(VectorOperators.LSHL, Math.max(delta, 0))
+                .lanewise(VectorOperators.LSHR, Math.max(-delta, 0));
+    }
+
+    /** Population count of each lane by summing bits in ever wider fields. */
+    private static IntVector bitCount(IntVector x) {
+        x = x.sub(x.lanewise(VectorOperators.LSHR, 1).and(0x55555555));
+        x = x.and(0x33333333).add(x.lanewise(VectorOperators.LSHR, 2).and(0x33333333));
+        x = x.add(x.lanewise(VectorOperators.LSHR, 4)).and(0x0F0F0F0F);
+        return x.mul(0x01010101).lanewise(VectorOperators.LSHR, 24);
+    }
+}
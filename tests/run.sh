@@ -0,0 +1,10 @@
+#!/bin/sh
+# Compiles the core and the tests into tests/build and runs them.
+# Arguments are passed through, e.g. ./tests/run.sh --filter Journal
+set -e
+root=$(cd "$(dirname "$0")/.." && pwd)
+out="$root/tests/build"
+rm -rf "$out"
+mkdir -p "$out"
+javac -d "$out" $(find "$root/src/main/java" "$root/tests/src/main/java" -name '*.java')
+exec java -cp "$out" checkers.test.Tests "$@"
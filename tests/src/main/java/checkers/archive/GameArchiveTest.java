@@ -0,0 +1,136 @@
+package checkers.archive;
+
+import checkers.core.Board;
+import checkers.core.MoveGenerator;
+import checkers.pdn.PdnGame;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static checkers.test.Assert.assertArrayEquals;
+import static checkers.test.Assert.assertEquals;
+import static checkers.test.Assert.assertThrows;
+import static checkers.test.Assert.assertTrue;
+
+/** Writes archives with {@link GameArchiveWriter} and reads them back with {@link GameArchiveReader}. */
+public final class GameArchiveTest {
+
+    private static final String[] RESULTS = {
+            PdnGame.BLACK_WINS, PdnGame.WHITE_WINS, PdnGame.DRAWN, PdnGame.UNKNOWN
+    };
+
+    /** A game as it was written. */
+    private static final class Game {
+        final Map<String, String> tags = new LinkedHashMap<>();
+        Board start;
+        long[] moves;
+        String result;
+    }
+
+    public void testRoundTrip() throws IOException {
+        // More than one block, so the index and random access across blocks are used.
+        SplittableRandom random = new SplittableRandom(42);
+        List<Game> games = new ArrayList<>();
+        for (int i = 0; i < GameArchive.BLOCK_GAMES + 44; i++) {
+            Game game = new Game();
+            game.tags.put("Event", "Round trip " + i);
+            if (i % 7 == 0) {
+                game.tags.put("Site", "Z\u00fcrich");
+            }
+            game.start = i % 5 == 0 ? Board.fromFen("W:WK22,25:B10,11,18,K19,26") : Board.initial();
+            game.moves = randomGame(game.start, random, random.nextInt(120));
+            game.result = RESULTS[i % RESULTS.length];
+            games.add(game);
+        }
+        Path file = Files.createTempFile("archive", ".cga");
+        try {
+            try (GameArchiveWriter writer = new GameArchiveWriter(file)) {
+                for (Game game : games) {
+                    writer.add(game.tags, game.start, game.moves, game.result);
+                }
+                assertEquals(games.size(), writer.games());
+            }
+            try (GameArchiveReader reader = GameArchiveReader.open(file)) {
+                assertEquals(games.size(), reader.gameCount());
+                assertEquals(2, reader.blockCount());
+                List<ArchivedGame> read = new ArrayList<>();
+                reader.forEach(read::add);
+                assertEquals(games.size(), read.size());
+                for (int i = 0; i < games.size(); i++) {
+                    assertSame(games.get(i), read.get(i), i);
+                }
+                for (int i : new int[] {games.size() - 1, 0, GameArchive.BLOCK_GAMES, 17}) {
+                    assertSame(games.get(i), reader.game(i), i);
+                }
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    public void testEmptyArchive() throws IOException {
+        Path file = Files.createTempFile("archive", ".cga");
+        try {
+            new GameArchiveWriter(file).close();
+            try (GameArchiveReader reader = GameArchiveReader.open(file)) {
+                assertEquals(0, reader.gameCount());
+                assertEquals(0, reader.blockCount());
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    public void testCorruptPlyCountIsRejected() throws IOException {
+        // No tags, standard start, then a ply count of 2^31 - 1 in a 7-byte block.
+        byte[] record = {0, 0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07};
+        ByteBuffer data = ByteBuffer.allocate(GameArchive.HEADER_BYTES + record.length
+                + GameArchive.INDEX_ENTRY_BYTES + GameArchive.TRAILER_BYTES);
+        data.putInt(GameArchive.MAGIC).putInt(GameArchive.VERSION).put(record);
+        data.putLong(GameArchive.HEADER_BYTES).putInt(record.length).putInt(1);
+        data.putLong(GameArchive.HEADER_BYTES + record.length).putInt(1).putInt(GameArchive.MAGIC);
+        Path file = Files.createTempFile("archive", ".cga");
+        try {
+            Files.write(file, data.array());
+            try (GameArchiveReader reader = GameArchiveReader.open(file)) {
+                IOException e = assertThrows(IOException.class, () -> reader.game(0));
+                assertTrue(e.getMessage().startsWith("Corrupt game 0"), e.getMessage());
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static void assertSame(Game expected, ArchivedGame actual, long number) {
+        assertEquals(number, actual.number());
+        assertEquals(expected.tags, actual.tags());
+        assertEquals(expected.start, actual.startBoard());
+        assertArrayEquals(expected.moves, actual.moves());
+        assertEquals(expected.result, actual.result());
+    }
+
+    /** Up to {@code plies} random legal moves from {@code start}. */
+    private static long[] randomGame(Board start, SplittableRandom random, int plies) {
+        Board board = start.copy();
+        long[] legal = new long[MoveGenerator.MAX_MOVES];
+        long[] moves = new long[plies];
+        int n = 0;
+        while (n < plies) {
+            int count = MoveGenerator.generate(board, legal, 0);
+            if (count == 0) {
+                break;
+            }
+            moves[n] = legal[random.nextInt(count)];
+            board.make(moves[n++]);
+        }
+        return Arrays.copyOf(moves, n);
+    }
+}
@@ -0,0 +1,48 @@
+package checkers.core;
+
+import java.util.SplittableRandom;
+
+import static checkers.test.Assert.assertEquals;
+import static checkers.test.Assert.assertThrows;
+import static checkers.test.Assert.assertTrue;
+
+/** {@link Move#toPathString} and {@link Move#parse} read each other's output back. */
+public final class MoveTest {
+
+    /** The king on 2 can take 6, 14 and 23 or 7, 15 and 23, both ending on 27. */
+    private static final String AMBIGUOUS = "B:W6,7,14,15,23:BK2";
+
+    public void testAmbiguousKingCapture() {
+        Board board = Board.fromFen(AMBIGUOUS);
+        long left = Move.parse(board, "2x9x18x27");
+        long right = Move.parse(board, "2x11x18x27");
+        assertTrue(left != right, "Both paths parsed to " + Move.toPathString(left));
+        assertEquals(Move.toString(left), Move.toString(right));
+        assertEquals("2x9x18x27", Move.toPathString(left));
+        assertEquals("2x11x18x27", Move.toPathString(right));
+        assertEquals(left, Move.parse(board, Move.toPathString(left)));
+        assertEquals(right, Move.parse(board, Move.toPathString(right)));
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> Move.parse(board, "2x27"));
+        assertTrue(e.getMessage().startsWith("Ambiguous move"), e.getMessage());
+    }
+
+    public void testPathStringsParseBack() {
+        // Random games reach plenty of multi-jumps by men and kings.
+        SplittableRandom random = new SplittableRandom(7);
+        long[] legal = new long[MoveGenerator.MAX_MOVES];
+        for (int game = 0; game < 200; game++) {
+            Board board = Board.initial();
+            for (int ply = 0; ply < 150; ply++) {
+                int count = MoveGenerator.generate(board, legal, 0);
+                if (count == 0) {
+                    break;
+                }
+                for (int i = 0; i < count; i++) {
+                    assertEquals(legal[i], Move.parse(board, Move.toPathString(legal[i])));
+                }
+                board.make(legal[random.nextInt(count)]);
+            }
+        }
+    }
+}
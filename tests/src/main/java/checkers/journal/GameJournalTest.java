@@ -0,0 +1,222 @@
+package checkers.journal;
+
+import checkers.core.Board;
+import checkers.core.MoveGenerator;
+import checkers.pdn.PdnGame;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static checkers.test.Assert.assertArrayEquals;
+import static checkers.test.Assert.assertEquals;
+import static checkers.test.Assert.assertTrue;
+
+/**
+ * Writes journals, takes copies of their directory as a crash would leave
+ * it, tears the last record and checks what {@link GameJournal#open}
+ * recovers.
+ */
+public final class GameJournalTest {
+
+    private final List<Path> directories = new ArrayList<>();
+
+    public void testReopenAfterClose() throws IOException {
+        try {
+            Path dir = directory();
+            long[] moves = openingMoves(5);
+            try (GameJournal journal = GameJournal.open(dir)) {
+                journal.created(1, Board.WHITE, 6);
+                for (long move : moves) {
+                    journal.moved(1, move);
+                }
+                journal.created(2, -1, 0);
+                journal.awaitDurable(journal.ended(2, PdnGame.BLACK_WINS));
+            }
+            try (GameJournal journal = GameJournal.open(dir)) {
+                assertEquals(3, journal.nextGameId());
+                JournaledGame game = only(journal.games());
+                assertEquals(1, game.id());
+                assertEquals(Board.WHITE, game.botColor());
+                assertEquals(6, game.botDepth());
+                assertArrayEquals(moves, game.moves());
+                assertEquals(play(moves), game.board());
+            }
+        } finally {
+            deleteDirectories();
+        }
+    }
+
+    public void testTornRecordIsCutOff() throws IOException {
+        try {
+            Path dir = directory();
+            long[] moves = openingMoves(4);
+            Path crash;
+            try (GameJournal journal = GameJournal.open(dir)) {
+                journal.created(1, -1, 0);
+                long seq = 0;
+                for (long move : moves) {
+                    seq = journal.moved(1, move);
+                }
+                journal.awaitDurable(seq);
+                crash = crashCopy(dir);
+            }
+            // Three bytes short of the last move record.
+            tear(crash, 3);
+            try (GameJournal journal = GameJournal.open(crash)) {
+                JournaledGame game = only(journal.games());
+                assertArrayEquals(Arrays.copyOf(moves, 3), game.moves());
+                assertEquals(play(Arrays.copyOf(moves, 3)), game.board());
+                // The torn move is played again after the restart.
+                journal.awaitDurable(journal.moved(1, moves[3]));
+                Path second = crashCopy(crash);
+                try (GameJournal recovered = GameJournal.open(second)) {
+                    assertArrayEquals(moves, only(recovered.games()).moves());
+                }
+            }
+        } finally {
+            deleteDirectories();
+        }
+    }
+
+    public void testTornLengthIsCutOff() throws IOException {
+        try {
+            Path dir = directory();
+            long[] moves = openingMoves(2);
+            Path crash;
+            try (GameJournal journal = GameJournal.open(dir)) {
+                journal.created(1, -1, 0);
+                journal.moved(1, moves[0]);
+                journal.awaitDurable(journal.moved(1, moves[1]));
+                crash = crashCopy(dir);
+            }
+            // A move record is 33 bytes; leave only the first four of the last one.
+            tear(crash, 29);
+            try (GameJournal journal = GameJournal.open(crash)) {
+                assertArrayEquals(Arrays.copyOf(moves, 1), only(journal.games()).moves());
+            }
+        } finally {
+            deleteDirectories();
+        }
+    }
+
+    public void testEmptySnapshot() throws IOException {
+        try {
+            Path dir = directory();
+            try (GameJournal journal = GameJournal.open(dir)) {
+                journal.created(1, -1, 0);
+                journal.awaitDurable(journal.ended(1, PdnGame.DRAWN));
+            }
+            Path snapshot = only(files(dir, "snapshot-*.bin"));
+            // Header and checksum only.
+            assertEquals(32, Files.size(snapshot));
+            long[] moves = openingMoves(3);
+            Path crash;
+            try (GameJournal journal = GameJournal.open(dir)) {
+                assertTrue(journal.games().isEmpty(), "Games recovered from an empty snapshot");
+                assertEquals(2, journal.nextGameId());
+                journal.created(2, Board.BLACK, 4);
+                long seq = 0;
+                for (long move : moves) {
+                    seq = journal.moved(2, move);
+                }
+                journal.awaitDurable(seq);
+                crash = crashCopy(dir);
+            }
+            // The empty snapshot plus a segment ending in a torn record.
+            tear(crash, 1);
+            try (GameJournal journal = GameJournal.open(crash)) {
+                JournaledGame game = only(journal.games());
+                assertEquals(2, game.id());
+                assertEquals(Board.BLACK, game.botColor());
+                assertArrayEquals(Arrays.copyOf(moves, 2), game.moves());
+                assertEquals(3, journal.nextGameId());
+            }
+        } finally {
+            deleteDirectories();
+        }
+    }
+
+    private Path directory() throws IOException {
+        Path dir = Files.createTempDirectory("journal");
+        directories.add(dir);
+        return dir;
+    }
+
+    /** Copies the files of a journal that is still open, as if the process died now. */
+    private Path crashCopy(Path dir) throws IOException {
+        Path copy = directory();
+        for (Path file : files(dir, "*")) {
+            Files.copy(file, copy.resolve(file.getFileName()));
+        }
+        return copy;
+    }
+
+    /** Cuts {@code bytes} off the end of the newest non-empty segment. */
+    private static void tear(Path dir, int bytes) throws IOException {
+        List<Path> segments = files(dir, "journal-*.log");
+        segments.sort(Comparator.comparing(Path::toString));
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            try (FileChannel channel = FileChannel.open(segments.get(i), StandardOpenOption.WRITE)) {
+                if (channel.size() > GameJournal.SEGMENT_HEADER) {
+                    channel.truncate(channel.size() - bytes);
+                    return;
+                }
+            }
+        }
+        throw new AssertionError("No records to tear in " + dir);
+    }
+
+    private static List<Path> files(Path dir, String glob) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, glob)) {
+            stream.forEach(files::add);
+        }
+        return files;
+    }
+
+    private void deleteDirectories() throws IOException {
+        for (Path dir : directories) {
+            try (Stream<Path> walk = Files.walk(dir)) {
+                for (Path path : walk.sorted(Comparator.reverseOrder()).toArray(Path[]::new)) {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
+
+    private static <T> T only(Collection<T> items) {
+        assertEquals(1, items.size());
+        return items.iterator().next();
+    }
+
+    /** The first legal move in each position, {@code plies} times from the start. */
+    private static long[] openingMoves(int plies) {
+        Board board = Board.initial();
+        long[] legal = new long[MoveGenerator.MAX_MOVES];
+        long[] moves = new long[plies];
+        for (int i = 0; i < plies; i++) {
+            MoveGenerator.generate(board, legal, 0);
+            moves[i] = legal[0];
+            board.make(moves[i]);
+        }
+        return moves;
+    }
+
+    private static Board play(long[] moves) {
+        Board board = Board.initial();
+        for (long move : moves) {
+            board.make(move);
+        }
+        return board;
+    }
+}
@@ -0,0 +1,208 @@
+package checkers.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static checkers.test.Assert.assertEquals;
+import static checkers.test.Assert.assertTrue;
+
+/**
+ * Talks to a {@link WebSocketGateway} over a real socket with hand-built
+ * client frames: fragmented messages, interleaved control frames and
+ * frames too large for the gateway's message buffer.
+ */
+public final class WebSocketGatewayTest {
+
+    private static final String PONG = "{\"type\":\"pong\"}";
+
+    public void testWholeMessage() throws IOException {
+        try (GameServer server = new GameServer(0, 1);
+             WebSocketGateway gateway = new WebSocketGateway(server, 0)) {
+            gateway.start();
+            try (Client client = new Client(gateway.port())) {
+                client.send(0x80 | WebSocketFrames.OP_TEXT, ascii("PING"));
+                client.expectText(PONG);
+            }
+        }
+    }
+
+    public void testFragmentedMessageWithPing() throws IOException {
+        try (GameServer server = new GameServer(0, 1);
+             WebSocketGateway gateway = new WebSocketGateway(server, 0)) {
+            gateway.start();
+            try (Client client = new Client(gateway.port())) {
+                client.send(WebSocketFrames.OP_TEXT, ascii("PI"));
+                client.send(0x80 | WebSocketFrames.OP_PING, ascii("hb"));
+                client.send(WebSocketFrames.OP_CONTINUATION, ascii("N"));
+                client.send(0x80 | WebSocketFrames.OP_CONTINUATION, ascii("G"));
+                // The ping is answered at once, the message once its last fragment is in.
+                Frame pong = client.read();
+                assertEquals(WebSocketFrames.OP_PONG, pong.opcode);
+                assertEquals("hb", pong.text());
+                client.expectText(PONG);
+                // The connection is ready for the next message.
+                client.send(0x80 | WebSocketFrames.OP_TEXT, ascii("PING"));
+                client.expectText(PONG);
+            }
+        }
+    }
+
+    public void testMessageOfLargestSize() throws IOException {
+        byte[] command = new byte[Session.MAX_LINE_BYTES];
+        Arrays.fill(command, (byte) ' ');
+        System.arraycopy(ascii("PING"), 0, command, 0, 4);
+        try (GameServer server = new GameServer(0, 1);
+             WebSocketGateway gateway = new WebSocketGateway(server, 0)) {
+            gateway.start();
+            try (Client client = new Client(gateway.port())) {
+                client.send(WebSocketFrames.OP_TEXT, Arrays.copyOf(command, 1000));
+                client.send(0x80 | WebSocketFrames.OP_CONTINUATION, Arrays.copyOfRange(command, 1000, command.length));
+                client.expectText(PONG);
+            }
+        }
+    }
+
+    public void testOversizedFrame() throws IOException {
+        try (GameServer server = new GameServer(0, 1);
+             WebSocketGateway gateway = new WebSocketGateway(server, 0)) {
+            gateway.start();
+            try (Client client = new Client(gateway.port())) {
+                client.send(0x80 | WebSocketFrames.OP_TEXT, new byte[Session.MAX_LINE_BYTES + 1]);
+                client.expectClose(WebSocketFrames.CLOSE_TOO_BIG);
+            }
+        }
+    }
+
+    public void testOversizedFragmentedMessage() throws IOException {
+        // Each fragment fits; together they do not.
+        int half = Session.MAX_LINE_BYTES / 2 + 1;
+        try (GameServer server = new GameServer(0, 1);
+             WebSocketGateway gateway = new WebSocketGateway(server, 0)) {
+            gateway.start();
+            try (Client client = new Client(gateway.port())) {
+                client.send(WebSocketFrames.OP_TEXT, new byte[half]);
+                client.send(0x80 | WebSocketFrames.OP_CONTINUATION, new byte[half]);
+                client.expectClose(WebSocketFrames.CLOSE_TOO_BIG);
+            }
+        }
+    }
+
+    public void testOversizedControlFrame() throws IOException {
+        try (GameServer server = new GameServer(0, 1);
+             WebSocketGateway gateway = new WebSocketGateway(server, 0)) {
+            gateway.start();
+            try (Client client = new Client(gateway.port())) {
+                client.send(0x80 | WebSocketFrames.OP_PING, new byte[WebSocketFrames.MAX_CONTROL_PAYLOAD + 1]);
+                client.expectClose(WebSocketFrames.CLOSE_TOO_BIG);
+            }
+        }
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static final class Frame {
+        final int opcode;
+        final byte[] payload;
+
+        Frame(int opcode, byte[] payload) {
+            this.opcode = opcode;
+            this.payload = payload;
+        }
+
+        String text() {
+            return new String(payload, StandardCharsets.UTF_8);
+        }
+    }
+
+    /** A blocking client that masks what it sends, as RFC 6455 requires of clients. */
+    private static final class Client implements Closeable {
+
+        private static final byte[] MASK = {0x37, (byte) 0xFA, 0x21, 0x3D};
+
+        private final Socket socket;
+        private final OutputStream out;
+        private final DataInputStream in;
+
+        Client(int port) throws IOException {
+            socket = new Socket("127.0.0.1", port);
+            socket.setSoTimeout(5000);
+            out = socket.getOutputStream();
+            in = new DataInputStream(socket.getInputStream());
+            out.write(("GET / HTTP/1.1\r\nHost: localhost\r\nUpgrade: websocket\r\nConnection: Upgrade\r\n"
+                    + "Sec-WebSocket-Key: dGhlIHNhbXBsZSBub25jZQ==\r\nSec-WebSocket-Version: 13\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            ByteArrayOutputStream response = new ByteArrayOutputStream();
+            int matched = 0;
+            while (matched < 4) {
+                int c = in.readUnsignedByte();
+                response.write(c);
+                matched = c == "\r\n\r\n".charAt(matched) ? matched + 1 : c == '\r' ? 1 : 0;
+            }
+            String head = response.toString(StandardCharsets.ISO_8859_1);
+            assertTrue(head.startsWith("HTTP/1.1 101 "), head);
+            assertTrue(head.contains("Sec-WebSocket-Accept: s3pPLMBiTxaQ9kYGzzhZRbK+xOo=\r\n"), head);
+        }
+
+        /** Sends one frame; {@code b0} is the FIN bit and opcode. */
+        void send(int b0, byte[] payload) throws IOException {
+            ByteArrayOutputStream frame = new ByteArrayOutputStream();
+            frame.write(b0);
+            if (payload.length < 126) {
+                frame.write(0x80 | payload.length);
+            } else {
+                frame.write(0x80 | 126);
+                frame.write(payload.length >>> 8);
+                frame.write(payload.length);
+            }
+            frame.write(MASK);
+            for (int i = 0; i < payload.length; i++) {
+                frame.write(payload[i] ^ MASK[i & 3]);
+            }
+            out.write(frame.toByteArray());
+            out.flush();
+        }
+
+        Frame read() throws IOException {
+            int b0 = in.readUnsignedByte();
+            int length = in.readUnsignedByte();
+            assertTrue((b0 & 0x80) != 0, "Server frames are never fragmented");
+            assertTrue((length & 0x80) == 0, "Server frames are never masked");
+            if (length == 126) {
+                length = in.readUnsignedShort();
+            } else if (length == 127) {
+                length = Math.toIntExact(in.readLong());
+            }
+            byte[] payload = new byte[length];
+            in.readFully(payload);
+            return new Frame(b0 & 0x0F, payload);
+        }
+
+        void expectText(String text) throws IOException {
+            Frame frame = read();
+            assertEquals(WebSocketFrames.OP_TEXT, frame.opcode);
+            assertEquals(text, frame.text());
+        }
+
+        /** Expects a close frame with {@code code}, then the end of the stream. */
+        void expectClose(int code) throws IOException {
+            Frame frame = read();
+            assertEquals(WebSocketFrames.OP_CLOSE, frame.opcode);
+            assertEquals(code, ((frame.payload[0] & 0xFF) << 8) | (frame.payload[1] & 0xFF));
+            assertEquals(-1, in.read());
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package checkers.test;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/** Checks for the tests run by {@link Tests}; each throws {@link AssertionError} on failure. */
+public final class Assert {
+
+    /** Code expected to throw. */
+    public interface Action {
+        void run() throws Exception;
+    }
+
+    private Assert() {
+    }
+
+    public static void assertTrue(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+    public static void assertEquals(Object expected, Object actual) {
+        if (!Objects.equals(expected, actual)) {
+            throw new AssertionError("Expected " + expected + " but was " + actual);
+        }
+    }
+
+    public static void assertEquals(long expected, long actual) {
+        if (expected != actual) {
+            throw new AssertionError("Expected " + expected + " but was " + actual);
+        }
+    }
+
+    public static void assertArrayEquals(long[] expected, long[] actual) {
+        if (!Arrays.equals(expected, actual)) {
+            throw new AssertionError("Expected " + Arrays.toString(expected) + " but was " + Arrays.toString(actual));
+        }
+    }
+
+    /** Runs {@code action} and returns what it threw, which must be a {@code type}. */
+    public static <T extends Throwable> T assertThrows(Class<T> type, Action action) {
+        try {
+            action.run();
+        } catch (Throwable e) {
+            if (type.isInstance(e)) {
+                return type.cast(e);
+            }
+            throw new AssertionError("Expected " + type.getSimpleName() + " but got " + e, e);
+        }
+        throw new AssertionError("Expected " + type.getSimpleName() + " but nothing was thrown");
+    }
+}
@@ -0,0 +1,79 @@
+package checkers.test;
+
+import checkers.archive.GameArchiveTest;
+import checkers.core.MoveTest;
+import checkers.journal.GameJournalTest;
+import checkers.server.WebSocketGatewayTest;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Runs the round-trip tests of the file formats and protocols.
+ * <p>
+ * A test class is public, has a no-argument constructor and lives in the
+ * package it tests, so it can reach package-private constants. Each of its
+ * public methods named {@code test...} runs on a fresh instance and fails
+ * by throwing; see {@link Assert}.
+ * <p>
+ * Usage: {@code java checkers.test.Tests [--filter REGEX]}, matched against
+ * {@code Class.method}, or {@code tests/run.sh} to compile and run in one
+ * step. Exits with status 1 if any test fails.
+ */
+public final class Tests {
+
+    private static final List<Class<?>> ALL = List.of(
+            MoveTest.class,
+            GameArchiveTest.class,
+            GameJournalTest.class,
+            WebSocketGatewayTest.class);
+
+    private Tests() {
+    }
+
+    public static void main(String[] args) throws ReflectiveOperationException {
+        Pattern filter = Pattern.compile(".*");
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--filter") && i + 1 < args.length) {
+                filter = Pattern.compile(args[++i]);
+            } else {
+                System.err.println("Unknown argument: " + args[i]);
+                System.err.println("Usage: Tests [--filter REGEX]");
+                System.exit(2);
+            }
+        }
+        int passed = 0;
+        int failed = 0;
+        for (Class<?> type : ALL) {
+            Method[] methods = type.getMethods();
+            Arrays.sort(methods, Comparator.comparing(Method::getName));
+            for (Method method : methods) {
+                String name = type.getSimpleName() + "." + method.getName();
+                if (!method.getName().startsWith("test") || method.getParameterCount() != 0
+                        || Modifier.isStatic(method.getModifiers()) || !filter.matcher(name).find()) {
+                    continue;
+                }
+                Object instance = type.getConstructor().newInstance();
+                long start = System.nanoTime();
+                try {
+                    method.invoke(instance);
+                    passed++;
+                    System.out.printf("ok    %-60s %6d ms%n", name, (System.nanoTime() - start) / 1_000_000L);
+                } catch (InvocationTargetException e) {
+                    failed++;
+                    System.out.printf("FAIL  %s%n", name);
+                    e.getCause().printStackTrace(System.out);
+                }
+            }
+        }
+        System.out.println(passed + " passed, " + failed + " failed");
+        if (failed > 0) {
+            System.exit(1);
+        }
+    }
+}